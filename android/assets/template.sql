@@ -19,6 +19,8 @@ CREATE TABLE IF NOT EXISTS songs (
     music_path      TEXT NOT NULL,
     sample_start    REAL DEFAULT 0,
     sample_length   REAL,
+    file_size       BIGINT,
+    last_modified   BIGINT,
     UNIQUE (pack, directory)
 );
 
@@ -32,13 +34,29 @@ CREATE TABLE IF NOT EXISTS charts (
     name                TEXT,
     description         TEXT,
     credit              TEXT,
+    chart_type          TEXT,
+    bpm_min             REAL,
+    bpm_max             REAL,
     FOREIGN KEY (song_id)
         REFERENCES songs (id)
             ON UPDATE CASCADE
             ON DELETE CASCADE
 );
 
+-- Songs are looked up by hash and sorted by title, artist and pack
+CREATE INDEX IF NOT EXISTS songs_hash ON songs (hash);
+CREATE INDEX IF NOT EXISTS songs_title ON songs (lower(title));
+CREATE INDEX IF NOT EXISTS songs_artist ON songs (lower(artist));
+CREATE INDEX IF NOT EXISTS songs_pack ON songs (lower(pack));
 
+-- Charts are fetched by song, the index covers the columns filtered when searching
+CREATE INDEX IF NOT EXISTS charts_song ON charts (song_id, chart_type, difficulty_class, difficulty_meter, bpm_min, bpm_max);
+CREATE INDEX IF NOT EXISTS charts_hash ON charts (hash);
 
-
-
+-- Full text index of song titles and artists, rows share the songs ids
+CREATE VIRTUAL TABLE IF NOT EXISTS songs_fts USING fts5 (
+    title,
+    artist,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
@@ -32,8 +32,13 @@ import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
 import com.badlogic.gdx.backends.android.AndroidMusic;
+import com.badlogic.gdx.files.FileHandle;
 import net.sync.game.Backend;
 import net.sync.game.Game;
+import net.sync.game.resource.AtlasPacker;
+import net.sync.game.resource.PixmapAtlasPacker;
+import net.sync.game.song.LibraryWatcher;
+import net.sync.game.song.PollingLibraryWatcher;
 import net.sync.game.util.ui.DPI;
 import org.sqlite.SQLiteDataSource;
 import org.sqlite.SQLiteJDBCLoader;
@@ -108,4 +113,14 @@ public class AndroidLauncher extends AndroidApplication implements Backend {
 		}
 		return dataSource;
 	}
+
+	@Override
+	public LibraryWatcher createLibraryWatcher(FileHandle root, LibraryWatcher.Listener listener) {
+		return new PollingLibraryWatcher(root, listener);
+	}
+
+	@Override
+	public AtlasPacker createAtlasPacker() {
+		return new PixmapAtlasPacker();
+	}
 }
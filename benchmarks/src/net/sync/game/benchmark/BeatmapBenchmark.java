@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.benchmark;
+
+import net.sync.game.GameMode;
+import net.sync.game.song.Beatmap;
+import net.sync.game.song.note.JudgeableNote;
+import net.sync.game.song.note.Note;
+import net.sync.game.song.note.NoteCategory;
+import net.sync.game.song.note.NotePanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures beatmap navigation, both through the note methods and through the index methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeatmapBenchmark {
+    private static final int QUERIES = 1024;
+    /* Panels of the benchmarked beatmap */
+    private static final int[] MODE_PANELS = NotePanel.getModePanels(GameMode.DANCE);
+
+    @Param({"50", "500"})
+    public int measures;
+
+    private Beatmap beatmap;
+    private double[] beats;
+    private int[] panels;
+
+    @Setup
+    public void setup() {
+        beatmap = Fixtures.createBeatmap(measures);
+        Random random = new Random(42L);
+        beats = new double[QUERIES];
+        panels = new int[QUERIES];
+        for(int i = 0; i < QUERIES; i++) {
+            beats[i] = random.nextDouble() * measures * 4.0D;
+            panels[i] = MODE_PANELS[random.nextInt(MODE_PANELS.length)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int higherNote() {
+        int count = 0;
+        for(int i = 0; i < QUERIES; i++) {
+            if(beatmap.higherNote(panels[i], beats[i]) != null) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int floorNote() {
+        int count = 0;
+        for(int i = 0; i < QUERIES; i++) {
+            if(beatmap.floorNote(panels[i], beats[i]) != null) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int higherJudgeableNotePredicate() {
+        int count = 0;
+        for(int i = 0; i < QUERIES; i++) {
+            if(beatmap.higherNote(panels[i], beats[i], n -> n instanceof JudgeableNote) != null) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int higherJudgeableIndex() {
+        int count = 0;
+        for(int i = 0; i < QUERIES; i++) {
+            if(beatmap.higherIndex(panels[i], beats[i], NoteCategory.JUDGEABLE) != -1) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Walks all the notes of all panels in order.
+     */
+    @Benchmark
+    public int walkAllNotes() {
+        int count = 0;
+        for(int panel : MODE_PANELS) {
+            for(int index = beatmap.ceilingIndex(panel, 0.0D); index != -1; index = beatmap.nextIndex(panel, index)) {
+                Note note = beatmap.getNoteAt(panel, index);
+                if(note != null) count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.benchmark;
+
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.Backend;
+import net.sync.game.Game;
+import net.sync.game.GameMode;
+import net.sync.game.GameSettings;
+import net.sync.game.resource.AtlasPacker;
+import net.sync.game.resource.PixmapAtlasPacker;
+import net.sync.game.round.Round;
+import net.sync.game.song.Beatmap;
+import net.sync.game.song.Chart;
+import net.sync.game.song.LibraryWatcher;
+import net.sync.game.song.PollingLibraryWatcher;
+import net.sync.game.song.Song;
+import net.sync.game.song.TimingData;
+import net.sync.game.song.note.FakeNote;
+import net.sync.game.song.note.HoldNote;
+import net.sync.game.song.note.MineNote;
+import net.sync.game.song.note.NotePanel;
+import net.sync.game.song.note.TapNote;
+import net.sync.game.util.ui.DPI;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Random;
+
+/**
+ * Synthetic data shared by the benchmarks. All generators are seeded so each run measures the same data.
+ */
+public class Fixtures {
+    private static final long SEED = 42L;
+    private static final int[] DANCE_PANELS = NotePanel.getModePanels(GameMode.DANCE);
+
+    /**
+     * Creates timing data with frequent bpm changes, stops, delays and warps.
+     * @param measures the count of measures covered by timing changes.
+     * @return the timing data.
+     */
+    public static TimingData createTimingData(int measures) {
+        Random random = new Random(SEED);
+        TimingData data = new TimingData();
+        data.offset = -0.1D;
+        data.putBpm(0.0D, 150.0D);
+        for(int measure = 1; measure < measures; measure++) {
+            double beat = measure * 4.0D;
+            switch(random.nextInt(8)) {
+                case 0: data.putBpm(beat, 80.0D + random.nextInt(180)); break;
+                case 1: data.putStop(beat, 0.25D + random.nextDouble()); break;
+                case 2: data.putDelay(beat, 0.25D + random.nextDouble()); break;
+                case 3: data.putWarp(beat, 1.0D); break;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Creates a dance beatmap with taps, holds, mines and fakes on 16th notes.
+     * @param measures the count of measures.
+     * @return the beatmap.
+     */
+    public static Beatmap createBeatmap(int measures) {
+        Random random = new Random(SEED);
+        Beatmap.Builder builder = new Beatmap.Builder();
+        for(int panel : DANCE_PANELS) {
+            double holdEnd = -1.0D;
+            for(int line = 0; line < measures * 16; line++) {
+                double beat = line / 4.0D;
+                if(beat <= holdEnd) continue;
+                int r = random.nextInt(100);
+                if(r < 15) {
+                    builder.putNote(panel, new TapNote(beat));
+                } else if(r < 17) {
+                    double length = (1 + random.nextInt(8)) / 4.0D;
+                    builder.putNote(panel, new HoldNote(beat, length));
+                    holdEnd = beat + length;
+                } else if(r < 22) {
+                    builder.putNote(panel, new MineNote(beat));
+                } else if(r < 25) {
+                    builder.putNote(panel, new FakeNote(beat));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generates the content of a SM sim file with a single dance-single chart.
+     * @param measures the count of measures.
+     * @return the sim file content.
+     */
+    public static String createSMContent(int measures) {
+        StringBuilder content = new StringBuilder();
+        appendHeader(content);
+        content.append("#OFFSET:-0.100;\n#BPMS:0.000=150.000,64.000=180.000;\n#STOPS:32.000=0.500;\n");
+        content.append("#NOTES:\n     dance-single:\n     :\n     Hard:\n     9:\n     0.5,0.5,0.5,0.5,0.5:\n");
+        appendMeasures(content, measures);
+        content.append(";\n");
+        return content.toString();
+    }
+
+    /**
+     * Generates the content of a SSC sim file with a single dance-single chart.
+     * @param measures the count of measures.
+     * @return the sim file content.
+     */
+    public static String createSSCContent(int measures) {
+        StringBuilder content = new StringBuilder();
+        content.append("#VERSION:0.83;\n");
+        appendHeader(content);
+        content.append("#OFFSET:-0.100;\n#BPMS:0.000=150.000,64.000=180.000;\n#STOPS:32.000=0.500;\n");
+        content.append("#NOTEDATA:;\n#STEPSTYPE:dance-single;\n#DIFFICULTY:Hard;\n#METER:9;\n#NOTES:\n");
+        appendMeasures(content, measures);
+        content.append(";\n");
+        return content.toString();
+    }
+
+    /**
+     * Generates the content of a DWI sim file with a single chart made of 8th notes.
+     * @param measures the count of measures.
+     * @return the sim file content.
+     */
+    public static String createDWIContent(int measures) {
+        Random random = new Random(SEED);
+        String steps = "000000002468";
+        StringBuilder content = new StringBuilder();
+        content.append("#TITLE:Benchmark;\n#ARTIST:Benchmark;\n#FILE:song.ogg;\n#BPM:150.000;\n#GAP:100;\n");
+        content.append("#SINGLE:BASIC:5:");
+        for(int i = 0; i < measures * 8; i++) {
+            content.append(steps.charAt(random.nextInt(steps.length())));
+            if(i % 64 == 63) content.append('\n');
+        }
+        content.append(";\n");
+        return content.toString();
+    }
+
+    private static void appendHeader(StringBuilder content) {
+        content.append("#TITLE:Benchmark;\n#SUBTITLE:;\n#ARTIST:Benchmark;\n#CREDIT:;\n#MUSIC:song.ogg;\n");
+        content.append("#SAMPLESTART:30.000;\n#SAMPLELENGTH:12.000;\n#SELECTABLE:YES;\n");
+        content.append("//Generated for benchmarks\n");
+    }
+
+    private static void appendMeasures(StringBuilder content, int measures) {
+        Random random = new Random(SEED);
+        int[] holdLines = new int[4];
+        for(int measure = 0; measure < measures; measure++) {
+            if(measure > 0) content.append(",\n");
+            for(int line = 0; line < 16; line++) {
+                for(int panel = 0; panel < 4; panel++) {
+                    char c = '0';
+                    if(holdLines[panel] > 0) {
+                        if(--holdLines[panel] == 0) c = '3';
+                    } else {
+                        int r = random.nextInt(100);
+                        if(r < 15) {
+                            c = '1';
+                        } else if(r < 17) {
+                            c = '2';
+                            holdLines[panel] = 2 + random.nextInt(8);
+                        } else if(r < 22) {
+                            c = 'M';
+                        } else if(r < 25) {
+                            c = 'F';
+                        }
+                    }
+                    content.append(c);
+                }
+                content.append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the given content to a temporary file deleted on exit.
+     * @param content the file content.
+     * @param extension the file extension, without the dot.
+     * @return the file handle.
+     * @throws IOException if the file cannot be created.
+     */
+    public static FileHandle writeTempFile(String content, String extension) throws IOException {
+        File file = File.createTempFile("benchmark", "." + extension);
+        file.deleteOnExit();
+        FileHandle handle = new FileHandle(file);
+        handle.writeString(content, false, "UTF-8");
+        return handle;
+    }
+
+    /**
+     * Creates a game instance without a running application, so classes that access
+     * the game settings and backend through the static shortcuts can be used.
+     * @throws ReflectiveOperationException if the game settings cannot be set.
+     */
+    public static void initGame() throws ReflectiveOperationException {
+        Game game = new Game(new BenchmarkBackend());
+        Field settings = Game.class.getDeclaredField("settings");
+        settings.setAccessible(true);
+        settings.set(game, new GameSettings());
+    }
+
+    /**
+     * Creates a round for the given beatmap. {@link #initGame()} must be called first.
+     * @param beatmap the beatmap, must not have been judged.
+     * @param timingData the timing data.
+     * @return the round.
+     */
+    public static Round createRound(Beatmap beatmap, TimingData timingData) {
+        Chart chart = new Chart();
+        chart.timingData = timingData;
+        chart.beatmap = beatmap;
+        return new Round(new Song(), chart, new SilentMusic());
+    }
+
+    private static class BenchmarkBackend implements Backend {
+        @Override public void initBackend() {}
+        @Override public DPI getDeviceDPI() { return null; }
+        @Override public double getDuration(Music music) { return 0.0D; }
+        @Override public DataSource getDatabaseDataSource() { return null; }
+        @Override public LibraryWatcher createLibraryWatcher(FileHandle root, LibraryWatcher.Listener listener) {
+            return new PollingLibraryWatcher(root, listener);
+        }
+        @Override public AtlasPacker createAtlasPacker() { return new PixmapAtlasPacker(); }
+    }
+
+    /**
+     * A music that never plays.
+     */
+    private static class SilentMusic implements Music {
+        @Override public void play() {}
+        @Override public void pause() {}
+        @Override public void stop() {}
+        @Override public boolean isPlaying() { return false; }
+        @Override public void setLooping(boolean isLooping) {}
+        @Override public boolean isLooping() { return false; }
+        @Override public void setVolume(float volume) {}
+        @Override public float getVolume() { return 1.0f; }
+        @Override public void setPan(float pan, float volume) {}
+        @Override public void setPosition(float position) {}
+        @Override public float getPosition() { return 0.0f; }
+        @Override public void dispose() {}
+        @Override public void setOnCompletionListener(OnCompletionListener listener) {}
+    }
+}
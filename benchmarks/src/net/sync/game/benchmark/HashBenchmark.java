@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.sync.game.benchmark;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.google.common.hash.Hashing;
+import net.sync.game.song.sim.SimHashFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes a large generated sim file and its content, as done by the song indexer to detect changes.
+ * The readBytes benchmark is the baseline that reads the whole file in memory before hashing it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashBenchmark {
+    @Param({"SHA_256", "MURMUR3_128"})
+    public SimHashFunction function;
+
+    @Param({"1000"})
+    public int measures;
+
+    private FileHandle file;
+    private CharBuffer content;
+
+    @Setup
+    public void setup() throws IOException {
+        String sm = Fixtures.createSMContent(measures);
+        file = Fixtures.writeTempFile(sm, "sm");
+        content = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(file.readBytes()));
+    }
+
+    @Benchmark
+    public String readBytes() {
+        return Hashing.sha256().hashBytes(file.readBytes()).toString();
+    }
+
+    @Benchmark
+    public String hashFile() {
+        return function.hash(file);
+    }
+
+    @Benchmark
+    public String hashContent() {
+        return function.hash(content);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.benchmark;
+
+import net.sync.game.GameMode;
+import net.sync.game.round.NoteTimes;
+import net.sync.game.round.PanelState;
+import net.sync.game.round.Round;
+import net.sync.game.round.judge.Judge;
+import net.sync.game.song.Beatmap;
+import net.sync.game.song.TimingData;
+import net.sync.game.song.note.NoteCategory;
+import net.sync.game.song.note.NotePanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a whole chart through the judge, updating it at a fixed rate and feeding it a synthetic
+ * input stream that hits most notes with a random timing error and misses the others.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JudgeBenchmark {
+    /* Max timing error of the synthetic input in seconds */
+    private static final double MAX_ERROR = 0.04D;
+    /* Time a tap is held in seconds */
+    private static final double TAP_DURATION = 0.05D;
+
+    @Param({"50", "500"})
+    public int measures;
+
+    /** Judge update rate in Hz **/
+    @Param({"360", "1000"})
+    public int updateRate;
+
+    private TimingData timingData;
+    private Round round;
+    private double endTime;
+
+    /* Input events sorted by time */
+    private int eventCount;
+    private double[] eventTimes;
+    private int[] eventPanels;
+    private boolean[] eventStates;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws ReflectiveOperationException {
+        Fixtures.initGame();
+        timingData = Fixtures.createTimingData(measures);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        //Judgments are stored inside notes, each invocation needs a new beatmap
+        Beatmap beatmap = Fixtures.createBeatmap(measures);
+        round = Fixtures.createRound(beatmap, timingData);
+        if(eventTimes == null) {
+            createInput(beatmap, round.getNoteTimes());
+        }
+    }
+
+    private void createInput(Beatmap beatmap, NoteTimes noteTimes) {
+        Random random = new Random(42L);
+        int[] modePanels = NotePanel.getModePanels(GameMode.DANCE);
+        int capacity = 0;
+        for(int panel : modePanels) {
+            capacity += beatmap.countNotes(panel) * 2;
+        }
+        double[] times = new double[capacity];
+        int[] panels = new int[capacity];
+        boolean[] states = new boolean[capacity];
+
+        int count = 0;
+        for(int panel : modePanels) {
+            int index = beatmap.ceilingIndex(panel, 0.0D, NoteCategory.JUDGEABLE);
+            for(; index != -1; index = beatmap.nextIndex(panel, index, NoteCategory.JUDGEABLE)) {
+                if(beatmap.isCategoryAt(panel, index, NoteCategory.MINE) || random.nextInt(10) == 0) {
+                    //Avoid mines and miss some notes
+                    continue;
+                }
+                double press = noteTimes.getHeadTime(panel, index) + (random.nextDouble() * 2.0D - 1.0D) * MAX_ERROR;
+                double release = Math.max(noteTimes.getTailTime(panel, index), press) + TAP_DURATION;
+                times[count] = press; panels[count] = panel; states[count] = true; count++;
+                times[count] = release; panels[count] = panel; states[count] = false; count++;
+            }
+            endTime = Math.max(endTime, noteTimes.getTailTime(panel, beatmap.countNotes(panel) - 1) + 1.0D);
+        }
+
+        //Sort events by time
+        Integer[] order = new Integer[count];
+        for(int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(times[a], times[b]));
+        eventCount = count;
+        eventTimes = new double[count];
+        eventPanels = new int[count];
+        eventStates = new boolean[count];
+        for(int i = 0; i < count; i++) {
+            int e = order[i];
+            eventTimes[i] = times[e];
+            eventPanels[i] = panels[e];
+            eventStates[i] = states[e];
+        }
+    }
+
+    @Benchmark
+    public Judge playChart() {
+        Judge judge = round.getJudge();
+        PanelState panelState = round.getPanelState();
+        double frame = 1.0D / updateRate;
+        int event = 0;
+        for(double time = 0.0D; time < endTime; time += frame) {
+            //Send input received since last update
+            while(event < eventCount && eventTimes[event] <= time) {
+                panelState.setState(eventPanels[event], eventTimes[event], eventStates[event]);
+                event++;
+            }
+            judge.update(time);
+        }
+        return judge;
+    }
+}
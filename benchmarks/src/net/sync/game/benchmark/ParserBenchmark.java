@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.benchmark;
+
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.song.Beatmap;
+import net.sync.game.song.Song;
+import net.sync.game.song.SongLoader;
+import net.sync.game.song.sim.DWIParser;
+import net.sync.game.song.sim.SMParser;
+import net.sync.game.song.sim.SSCParser;
+import net.sync.game.song.sim.SimChartParser;
+import net.sync.game.song.sim.SimFile;
+import net.sync.game.song.sim.SimParseException;
+import net.sync.game.song.sim.SimParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses large generated sim files, reading the header, the timing data and the beatmap of every chart.
+ * Song loading is measured both in the default mode and in the header only mode used by the song indexer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"SM", "SSC", "DWI"})
+    public String format;
+
+    @Param({"100", "1000"})
+    public int measures;
+
+    private SimFile simFile;
+
+    @Setup
+    public void setup() throws IOException, ReflectiveOperationException {
+        Fixtures.initGame();
+        FileHandle file;
+        switch(format) {
+            case "SM":  file = Fixtures.writeTempFile(Fixtures.createSMContent(measures), "sm"); break;
+            case "SSC": file = Fixtures.writeTempFile(Fixtures.createSSCContent(measures), "ssc"); break;
+            default:    file = Fixtures.writeTempFile(Fixtures.createDWIContent(measures), "dwi"); break;
+        }
+        simFile = new SimFile(file);
+    }
+
+    private SimParser createParser() {
+        switch(format) {
+            case "SM":  return new SMParser();
+            case "SSC": return new SSCParser();
+            default:    return new DWIParser();
+        }
+    }
+
+    @Benchmark
+    public void parseHeader(Blackhole blackhole) throws SimParseException {
+        SimParser parser = createParser();
+        parser.init(simFile);
+        blackhole.consume(parser.parseTitle());
+        blackhole.consume(parser.parseArtist());
+        blackhole.consume(parser.parseMusicPath());
+        blackhole.consume(parser.parseSampleStart());
+    }
+
+    @Benchmark
+    public void parseCharts(Blackhole blackhole) throws SimParseException {
+        SimParser parser = createParser();
+        parser.init(simFile);
+        blackhole.consume(parser.parseTitle());
+        for(SimChartParser chartParser : parser.getChartParsers()) {
+            chartParser.init();
+            blackhole.consume(chartParser.getHash());
+            blackhole.consume(chartParser.parseChartType());
+            blackhole.consume(chartParser.parseTimingData());
+            Beatmap beatmap = chartParser.parseBeatmap();
+            blackhole.consume(beatmap);
+        }
+    }
+
+    @Benchmark
+    public Song loadSong() throws ExecutionException, InterruptedException {
+        SongLoader loader = new SongLoader("Benchmark", simFile);
+        loader.run();
+        return loader.get();
+    }
+
+    @Benchmark
+    public Song loadSongHeaderOnly() throws ExecutionException, InterruptedException {
+        SongLoader loader = new SongLoader("Benchmark", simFile, true);
+        loader.run();
+        return loader.get();
+    }
+}
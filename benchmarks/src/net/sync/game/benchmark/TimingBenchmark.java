@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.benchmark;
+
+import net.sync.game.song.Timing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time/beat conversions. Sequential benchmarks move forward by a frame like
+ * the game loop does, random benchmarks jump around the whole chart.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingBenchmark {
+    private static final int QUERIES = 1024;
+    /* Frame duration at 360 fps */
+    private static final double FRAME = 1.0D / 360.0D;
+
+    @Param({"50", "500"})
+    public int measures;
+
+    private Timing timing;
+    private double[] randomTimes;
+    private double[] randomBeats;
+    private double time;
+    private double beat;
+    private double endTime;
+    private double endBeat;
+
+    @Setup
+    public void setup() {
+        timing = new Timing(Fixtures.createTimingData(measures));
+        endBeat = measures * 4.0D;
+        endTime = timing.getTimeAt(endBeat);
+        Random random = new Random(42L);
+        randomTimes = new double[QUERIES];
+        randomBeats = new double[QUERIES];
+        for(int i = 0; i < QUERIES; i++) {
+            randomTimes[i] = random.nextDouble() * endTime;
+            randomBeats[i] = random.nextDouble() * endBeat;
+        }
+    }
+
+    @Benchmark
+    public double getBeatAtSequential() {
+        time += FRAME;
+        if(time > endTime) time = 0.0D;
+        return timing.getBeatAt(time);
+    }
+
+    @Benchmark
+    public double getTimeAtSequential() {
+        beat += FRAME;
+        if(beat > endBeat) beat = 0.0D;
+        return timing.getTimeAt(beat);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double getBeatAtRandom() {
+        double sum = 0.0D;
+        for(double t : randomTimes) {
+            sum += timing.getBeatAt(t);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double getTimeAtRandom() {
+        double sum = 0.0D;
+        for(double b : randomBeats) {
+            sum += timing.getTimeAt(b);
+        }
+        return sum;
+    }
+}
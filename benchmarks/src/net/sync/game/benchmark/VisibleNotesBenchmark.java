@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.benchmark;
+
+import net.sync.game.GameMode;
+import net.sync.game.song.Beatmap;
+import net.sync.game.song.Timing;
+import net.sync.game.song.note.NotePanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per frame note visibility scan done by the beatmap view: the first note whose tail can
+ * reach the top of the view is found from the greatest end beats, notes ending above the view are skipped
+ * and the following notes are rendered until a note past the bottom of the view is reached. Rendering needs
+ * a GL context, so visibility is approximated with the beat distance from the receptor, as the speed
+ * modifier does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisibleNotesBenchmark {
+    /* Frame duration at 360 fps */
+    private static final double FRAME = 1.0D / 360.0D;
+    /* Panels of the benchmarked beatmap */
+    private static final int[] MODE_PANELS = NotePanel.getModePanels(GameMode.DANCE);
+
+    @Param({"500"})
+    public int measures;
+
+    /** Visible beats above the receptor **/
+    @Param({"4", "16"})
+    public double visibleBeats;
+
+    private Beatmap beatmap;
+    private Timing timing;
+    private double time;
+    private double endTime;
+
+    @Setup
+    public void setup() {
+        beatmap = Fixtures.createBeatmap(measures);
+        timing = new Timing(Fixtures.createTimingData(measures));
+        endTime = timing.getTimeAt(measures * 4.0D);
+    }
+
+    @Benchmark
+    public int scanFrame() {
+        time += FRAME;
+        if(time > endTime) time = 0.0D;
+        double beat = timing.getBeatAt(time);
+
+        int visible = 0;
+        for(int panel : MODE_PANELS) {
+            double startBeat = beat - 1.0D;
+            double endBeat = beat + visibleBeats;
+            int count = beatmap.countNotes(panel);
+            int viewIndex = beatmap.ceilingIndex(panel, startBeat);
+            if(viewIndex == -1) viewIndex = count;
+
+            //Find the starting note, lengthy notes starting above the view can reach it
+            int index = beatmap.ceilingEndIndex(panel, startBeat);
+            if(index == -1 || index > viewIndex) index = viewIndex;
+
+            //Walk the notes before the view, only laying out the ones reaching it
+            for(; index < viewIndex; index++) {
+                if(beatmap.getBeatAt(panel, index) + beatmap.getLengthAt(panel, index) >= startBeat
+                        && isVisible(panel, index, beat)) {
+                    visible++;
+                }
+            }
+
+            //Walk visible notes
+            for(; index < count; index++) {
+                if(isVisible(panel, index, beat)) {
+                    visible++;
+                } else if(beatmap.getBeatAt(panel, index) > endBeat) {
+                    break;
+                }
+            }
+        }
+        return visible;
+    }
+
+    private boolean isVisible(int panel, int index, double beat) {
+        double noteBeat = beatmap.getBeatAt(panel, index);
+        double tailBeat = noteBeat + beatmap.getLengthAt(panel, index);
+        return tailBeat >= beat - 1.0D && noteBeat <= beat + visibleBeats;
+    }
+}
@@ -23,6 +23,9 @@
 package net.sync.game;
 
 import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.resource.AtlasPacker;
+import net.sync.game.song.LibraryWatcher;
 import net.sync.game.util.ui.DPI;
 
 import javax.sql.DataSource;
@@ -48,4 +51,20 @@ public interface Backend {
      * @return the database data source.
      */
     DataSource getDatabaseDataSource();
+
+    /**
+     * Creates a watcher for the song library, using the file system notifications of the platform if available.
+     * Backends without notifications should return a {@link net.sync.game.song.PollingLibraryWatcher}.
+     * @param root the library directory.
+     * @param listener the listener notified with the changed directories.
+     * @return the library watcher, not started.
+     */
+    LibraryWatcher createLibraryWatcher(FileHandle root, LibraryWatcher.Listener listener);
+
+    /**
+     * Creates the packer used to pack theme textures into an atlas. Backends without a specific
+     * packer should return a {@link net.sync.game.resource.PixmapAtlasPacker}.
+     * @return the atlas packer.
+     */
+    AtlasPacker createAtlasPacker();
 }
@@ -79,7 +79,7 @@ public class Game implements ApplicationListener {
 		this.players = new PlayerManager();
 
 		//TODO test
-		this.songs.index(Gdx.files.absolute("E:/Games/StepMania 5/Songs"));
+		this.songs.watch(Gdx.files.absolute("E:/Games/StepMania 5/Songs"));
 
 		//Show test screen TODO
 		if(Gdx.app.getType() != Application.ApplicationType.Android)
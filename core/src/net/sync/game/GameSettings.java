@@ -23,6 +23,7 @@
 package net.sync.game;
 
 import net.sync.game.song.sim.SimFormat;
+import net.sync.game.song.sim.SimHashFunction;
 import net.sync.game.ui.ScreenCachePolicy;
 
 import java.util.ArrayList;
@@ -39,6 +40,12 @@ public class GameSettings {
 
     private ScreenCachePolicy screenCachePolicy = ScreenCachePolicy.DISPOSE_ON_HIDE;
 
+    /** Audio output latency in seconds, subtracted from the music position during a round **/
+    private double audioLatency = 0.0D;
+
+    /** Hash function used to detect sim file and chart changes. Changing it makes the next indexing hash every song again **/
+    private SimHashFunction simHashFunction = SimHashFunction.SHA_256;
+
     public GameSettings() {
         simFormatPriorityList.add(SimFormat.DWI);
         simFormatPriorityList.add(SimFormat.SSC);
@@ -60,6 +67,22 @@ public class GameSettings {
         return screenCachePolicy;
     }
 
+    public double getAudioLatency() {
+        return audioLatency;
+    }
+
+    public void setAudioLatency(double audioLatency) {
+        this.audioLatency = audioLatency;
+    }
+
+    public SimHashFunction getSimHashFunction() {
+        return simHashFunction;
+    }
+
+    public void setSimHashFunction(SimHashFunction simHashFunction) {
+        this.simHashFunction = simHashFunction;
+    }
+
     public GameMode getGameMode() {
         return GameMode.DANCE;
     }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.database;
+
+import org.jooq.ConnectionProvider;
+import org.jooq.exception.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A small pool of database connections. Connections are opened when needed up to the maximum size, configured
+ * by executing the given statements (e.g. SQLite pragmas) and reused. Acquiring a connection blocks while all
+ * the connections are in use, a pool with a single connection serializes its users.
+ */
+public class ConnectionPool implements ConnectionProvider {
+    /** Maximum time waited for a released connection before trying to open a new one **/
+    private static final long WAIT_MILLIS = 100;
+
+    private final DataSource dataSource;
+    private final int maxSize;
+    private final String[] setupStatements;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Creates a connection pool.
+     * @param dataSource the data source that opens the connections.
+     * @param maxSize the maximum number of connections.
+     * @param setupStatements the statements executed on each connection when it is opened.
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize, String... setupStatements) {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.setupStatements = setupStatements;
+    }
+
+    @Override
+    public Connection acquire() throws DataAccessException {
+        Connection connection = checkOpen(idle.poll());
+        try {
+            while(connection == null) {
+                //Open a new connection or wait for a released one. Waiting is bounded so that a connection
+                //can be opened again if a released one has been discarded
+                connection = open();
+                if(connection == null) {
+                    connection = checkOpen(idle.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for a connection", e);
+        }
+        return connection;
+    }
+
+    @Override
+    public void release(Connection connection) throws DataAccessException {
+        try {
+            //Connections are returned in auto commit mode
+            if(!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch(SQLException e) {
+            discard(connection);
+            throw new DataAccessException("Cannot reset connection", e);
+        }
+
+        synchronized(this) {
+            //Offered while holding the lock, so close() can't miss the connection
+            if(closed) {
+                discard(connection);
+            } else {
+                idle.offer(connection);
+            }
+        }
+    }
+
+    /**
+     * Closes the idle connections. Connections in use are closed when released.
+     */
+    public synchronized void close() {
+        closed = true;
+        List<Connection> connections = new ArrayList<>();
+        idle.drainTo(connections);
+        for(Connection connection : connections) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * Opens and configures a new connection if the pool isn't full.
+     * @return the connection, or null if the pool is full.
+     */
+    private synchronized Connection open() {
+        if(closed) throw new DataAccessException("Connection pool closed");
+        if(connections.size() >= maxSize) return null;
+
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            try(Statement statement = connection.createStatement()) {
+                for(String sql : setupStatements) {
+                    statement.execute(sql);
+                }
+            }
+        } catch(SQLException e) {
+            if(connection != null) {
+                try {
+                    connection.close();
+                } catch(SQLException ignored) {
+                    //Already failing
+                }
+            }
+            throw new DataAccessException("Cannot open connection", e);
+        }
+        connections.add(connection);
+        return connection;
+    }
+
+    /**
+     * Checks that the pool isn't closed after taking an idle connection. The connection is discarded if the pool
+     * has been closed, so idle connections are never handed out by a closed pool.
+     * @param connection the idle connection, can be null.
+     * @return the given connection.
+     * @throws DataAccessException if the pool is closed.
+     */
+    private synchronized Connection checkOpen(Connection connection) {
+        if(closed) {
+            if(connection != null) discard(connection);
+            throw new DataAccessException("Connection pool closed");
+        }
+        return connection;
+    }
+
+    private synchronized void discard(Connection connection) {
+        connections.remove(connection);
+        try {
+            connection.close();
+        } catch(SQLException e) {
+            //Connection is not used anymore
+        }
+    }
+}
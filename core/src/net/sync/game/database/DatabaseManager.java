@@ -24,6 +24,7 @@ package net.sync.game.database;
 
 import com.badlogic.gdx.Gdx;
 import com.google.common.base.Charsets;
+import com.badlogic.gdx.utils.Disposable;
 import com.google.common.base.Splitter;
 import org.jooq.DSLContext;
 import org.jooq.Record;
@@ -33,10 +34,35 @@ import org.jooq.SQLDialect;
 import javax.sql.DataSource;
 
 import static net.sync.game.Game.backend;
+import static net.sync.game.Game.disposer;
 import static org.jooq.impl.DSL.using;
 
-public class DatabaseManager {
-    private static int DATABASE_VERSION = 1;
+/**
+ * Manages the game database. Reads are executed on a small pool of connections while writes are executed on a
+ * single dedicated connection. The database runs in WAL mode so that reads don't wait for writes to complete.
+ */
+public class DatabaseManager implements Disposable {
+    private static int DATABASE_VERSION = 4;
+    /** The maximum number of connections used for reads **/
+    private static final int READ_CONNECTIONS = 3;
+    /** Executed on every connection when it is opened **/
+    private static final String[] CONNECTION_PRAGMAS = {
+            //With WAL, commits are durable once the WAL is checkpointed, but the database is never corrupted
+            "PRAGMA synchronous = NORMAL",
+            //8MiB page cache
+            "PRAGMA cache_size = -8192",
+            //Memory map up to 64MiB of the database
+            "PRAGMA mmap_size = 67108864",
+            //Charts are deleted with their songs
+            "PRAGMA foreign_keys = ON",
+            //Wait for locks instead of failing (e.g. while checkpointing)
+            "PRAGMA busy_timeout = 5000"
+    };
+
+    private ConnectionPool readPool;
+    private ConnectionPool writePool;
+    private DSLContext readDSL;
+    private DSLContext writeDSL;
 
     static {
         System.setProperty("org.jooq.no-logo", "true");
@@ -46,22 +72,42 @@ public class DatabaseManager {
      * Creates and initializes the database manager. Database will be created/updated if necessary
      */
     public DatabaseManager() {
+        DataSource dataSource = getDataSource();
+        readPool = new ConnectionPool(dataSource, READ_CONNECTIONS, CONNECTION_PRAGMAS);
+        writePool = new ConnectionPool(dataSource, 1, CONNECTION_PRAGMAS);
+        readDSL = using(readPool, getSQLDialect());
+        writeDSL = using(writePool, getSQLDialect());
+        disposer().manage(this);
+
+        //Journal mode is stored in the database file
+        writeDSL.fetch("PRAGMA journal_mode = WAL");
+
         int version = getDatabaseVersion();
         if(version == 0) {
             createDatabase();
-        } else if(version != DATABASE_VERSION) {
-            convertDatabase();
+        } else if(version < DATABASE_VERSION) {
+            convertDatabase(version);
         }
     }
 
     /**
-     * Creates a DSL executor with a configured connection that can be used
-     * directly to create and execute statements.
-     * @return a DSL executor with a configured connection.
+     * Gets a DSL executor that can be used directly to create and execute read statements.
+     * Statements are executed on pooled connections.
+     * @return a DSL executor for reads.
      * @throws RuntimeException if the database cannot be opened
      */
     public DSLContext getDSL() {
-        return using(getDataSource(), getSQLDialect());
+        return readDSL;
+    }
+
+    /**
+     * Gets a DSL executor that can be used to create and execute write statements. There is a single
+     * write connection, concurrent writers wait for each other.
+     * @return a DSL executor for writes.
+     * @throws RuntimeException if the database cannot be opened
+     */
+    public DSLContext getWriteDSL() {
+        return writeDSL;
     }
 
     /**
@@ -70,7 +116,7 @@ public class DatabaseManager {
      * @return the database version.
      */
     private int getDatabaseVersion() {
-        Result<Record> result = getDSL().fetch("PRAGMA user_version");
+        Result<Record> result = writeDSL.fetch("PRAGMA user_version");
         return result.isEmpty() ? 0 : result.get(0).get(0, Integer.class);
     }
 
@@ -84,16 +130,60 @@ public class DatabaseManager {
 
         //Execute the database generation script
         for(String sql : Splitter.on(";").trimResults().omitEmptyStrings().split(script)) {
-            getDSL().execute(sql);
+            writeDSL.execute(sql);
         }
 
         //Set database version
-        getDSL().execute("PRAGMA user_version = " + DATABASE_VERSION);
+        writeDSL.execute("PRAGMA user_version = " + DATABASE_VERSION);
+    }
+
+    /**
+     * Converts the database from the given version to the current one, applying each
+     * migration step in order.
+     * @param version the database version, greater than 0.
+     */
+    private void convertDatabase(int version) {
+        writeDSL.transaction(configuration -> {
+            DSLContext database = using(configuration);
+
+            if(version < 2) {
+                //Sim file size and last modified time, used to detect changes without hashing
+                database.execute("ALTER TABLE songs ADD COLUMN file_size BIGINT");
+                database.execute("ALTER TABLE songs ADD COLUMN last_modified BIGINT");
+            }
+            if(version < 3) {
+                //Chart type and bpm range used by song search, with the full text index of songs
+                database.execute("ALTER TABLE charts ADD COLUMN chart_type TEXT");
+                database.execute("ALTER TABLE charts ADD COLUMN bpm_min REAL");
+                database.execute("ALTER TABLE charts ADD COLUMN bpm_max REAL");
+                database.execute("CREATE INDEX IF NOT EXISTS charts_song_id ON charts (song_id)");
+                database.execute("CREATE VIRTUAL TABLE IF NOT EXISTS songs_fts USING fts5 (title, artist, " +
+                        "tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3')");
+                //Cached charts miss the new columns, clear the index so songs are indexed again
+                database.execute("DELETE FROM charts");
+                database.execute("DELETE FROM songs");
+            }
+            if(version < 4) {
+                //Indexes used when indexing and searching songs, the chart index covers the search columns
+                database.execute("DROP INDEX IF EXISTS charts_song_id");
+                database.execute("CREATE INDEX IF NOT EXISTS songs_hash ON songs (hash)");
+                database.execute("CREATE INDEX IF NOT EXISTS songs_title ON songs (lower(title))");
+                database.execute("CREATE INDEX IF NOT EXISTS songs_artist ON songs (lower(artist))");
+                database.execute("CREATE INDEX IF NOT EXISTS songs_pack ON songs (lower(pack))");
+                database.execute("CREATE INDEX IF NOT EXISTS charts_song ON charts " +
+                        "(song_id, chart_type, difficulty_class, difficulty_meter, bpm_min, bpm_max)");
+                database.execute("CREATE INDEX IF NOT EXISTS charts_hash ON charts (hash)");
+            }
+
+            //Set database version
+            database.execute("PRAGMA user_version = " + DATABASE_VERSION);
+        });
     }
 
-    private void convertDatabase() {
-        //Convert legacy version of the database
-        //TODO
+    @Override
+    public void dispose() {
+        readPool.close();
+        writePool.close();
     }
 
     private DataSource getDataSource() {
@@ -110,6 +110,21 @@ public class Charts extends TableImpl<ChartsRecord> {
      */
     public final TableField<ChartsRecord, String> CREDIT = createField("credit", org.jooq.impl.SQLDataType.CLOB, this, "");
 
+    /**
+     * The column <code>charts.chart_type</code>.
+     */
+    public final TableField<ChartsRecord, String> CHART_TYPE = createField("chart_type", org.jooq.impl.SQLDataType.CLOB, this, "");
+
+    /**
+     * The column <code>charts.bpm_min</code>.
+     */
+    public final TableField<ChartsRecord, Float> BPM_MIN = createField("bpm_min", org.jooq.impl.SQLDataType.REAL, this, "");
+
+    /**
+     * The column <code>charts.bpm_max</code>.
+     */
+    public final TableField<ChartsRecord, Float> BPM_MAX = createField("bpm_max", org.jooq.impl.SQLDataType.REAL, this, "");
+
     /**
      * Create a <code>charts</code> table reference
      */
@@ -50,7 +50,7 @@ import java.util.List;
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
 public class Songs extends TableImpl<SongsRecord> {
 
-    private static final long serialVersionUID = 2076949533;
+    private static final long serialVersionUID = -1471297310;
 
     /**
      * The reference instance of <code>songs</code>
@@ -145,6 +145,16 @@ public class Songs extends TableImpl<SongsRecord> {
      */
     public final TableField<SongsRecord, Float> SAMPLE_LENGTH = createField("sample_length", org.jooq.impl.SQLDataType.REAL, this, "");
 
+    /**
+     * The column <code>songs.file_size</code>.
+     */
+    public final TableField<SongsRecord, Long> FILE_SIZE = createField("file_size", org.jooq.impl.SQLDataType.BIGINT, this, "");
+
+    /**
+     * The column <code>songs.last_modified</code>.
+     */
+    public final TableField<SongsRecord, Long> LAST_MODIFIED = createField("last_modified", org.jooq.impl.SQLDataType.BIGINT, this, "");
+
     /**
      * Create a <code>songs</code> table reference
      */
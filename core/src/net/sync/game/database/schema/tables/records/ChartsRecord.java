@@ -29,8 +29,8 @@ package net.sync.game.database.schema.tables.records;
 import net.sync.game.database.schema.tables.Charts;
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record9;
-import org.jooq.Row9;
+import org.jooq.Record12;
+import org.jooq.Row12;
 import org.jooq.impl.UpdatableRecordImpl;
 
 import javax.annotation.Generated;
@@ -47,9 +47,9 @@ import javax.annotation.Generated;
     comments = "This class is generated by jOOQ"
 )
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
-public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements Record9<String, Integer, String, String, Integer, String, String, String, String> {
+public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements Record12<String, Integer, String, String, Integer, String, String, String, String, String, Float, Float> {
 
-    private static final long serialVersionUID = -2067797639;
+    private static final long serialVersionUID = -1219347651;
 
     /**
      * Setter for <code>charts.id</code>.
@@ -177,6 +177,48 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
         return (String) get(8);
     }
 
+    /**
+     * Setter for <code>charts.chart_type</code>.
+     */
+    public void setChartType(String value) {
+        set(9, value);
+    }
+
+    /**
+     * Getter for <code>charts.chart_type</code>.
+     */
+    public String getChartType() {
+        return (String) get(9);
+    }
+
+    /**
+     * Setter for <code>charts.bpm_min</code>.
+     */
+    public void setBpmMin(Float value) {
+        set(10, value);
+    }
+
+    /**
+     * Getter for <code>charts.bpm_min</code>.
+     */
+    public Float getBpmMin() {
+        return (Float) get(10);
+    }
+
+    /**
+     * Setter for <code>charts.bpm_max</code>.
+     */
+    public void setBpmMax(Float value) {
+        set(11, value);
+    }
+
+    /**
+     * Getter for <code>charts.bpm_max</code>.
+     */
+    public Float getBpmMax() {
+        return (Float) get(11);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -185,28 +227,28 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
      * {@inheritDoc}
      */
     @Override
-    public Record1<String> key() {
+    public Record1<Integer> key() {
         return (Record1) super.key();
     }
 
     // -------------------------------------------------------------------------
-    // Record9 type implementation
+    // Record12 type implementation
     // -------------------------------------------------------------------------
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Row9<String, Integer, String, String, Integer, String, String, String, String> fieldsRow() {
-        return (Row9) super.fieldsRow();
+    public Row12<String, Integer, String, String, Integer, String, String, String, String, String, Float, Float> fieldsRow() {
+        return (Row12) super.fieldsRow();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Row9<String, Integer, String, String, Integer, String, String, String, String> valuesRow() {
-        return (Row9) super.valuesRow();
+    public Row12<String, Integer, String, String, Integer, String, String, String, String, String, Float, Float> valuesRow() {
+        return (Row12) super.valuesRow();
     }
 
     /**
@@ -281,6 +323,30 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
         return Charts.CHARTS.CREDIT;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Field<String> field10() {
+        return Charts.CHARTS.CHART_TYPE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Field<Float> field11() {
+        return Charts.CHARTS.BPM_MIN;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Field<Float> field12() {
+        return Charts.CHARTS.BPM_MAX;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -353,6 +419,30 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
         return getCredit();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String value10() {
+        return getChartType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Float value11() {
+        return getBpmMin();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Float value12() {
+        return getBpmMax();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -438,7 +528,34 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
      * {@inheritDoc}
      */
     @Override
-    public ChartsRecord values(String value1, Integer value2, String value3, String value4, Integer value5, String value6, String value7, String value8, String value9) {
+    public ChartsRecord value10(String value) {
+        setChartType(value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChartsRecord value11(Float value) {
+        setBpmMin(value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChartsRecord value12(Float value) {
+        setBpmMax(value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChartsRecord values(String value1, Integer value2, String value3, String value4, Integer value5, String value6, String value7, String value8, String value9, String value10, Float value11, Float value12) {
         value1(value1);
         value2(value2);
         value3(value3);
@@ -448,6 +565,9 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
         value7(value7);
         value8(value8);
         value9(value9);
+        value10(value10);
+        value11(value11);
+        value12(value12);
         return this;
     }
 
@@ -465,7 +585,7 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
     /**
      * Create a detached, initialised ChartsRecord
      */
-    public ChartsRecord(String id, Integer songId, String hash, String difficultyClass, Integer difficultyMeter, String displayBpm, String name, String description, String credit) {
+    public ChartsRecord(String id, Integer songId, String hash, String difficultyClass, Integer difficultyMeter, String displayBpm, String name, String description, String credit, String chartType, Float bpmMin, Float bpmMax) {
         super(Charts.CHARTS);
 
         set(0, id);
@@ -477,5 +597,8 @@ public class ChartsRecord extends UpdatableRecordImpl<ChartsRecord> implements R
         set(6, name);
         set(7, description);
         set(8, credit);
+        set(9, chartType);
+        set(10, bpmMin);
+        set(11, bpmMax);
     }
 }
@@ -29,8 +29,8 @@ package net.sync.game.database.schema.tables.records;
 import net.sync.game.database.schema.tables.Songs;
 import org.jooq.Field;
 import org.jooq.Record1;
-import org.jooq.Record16;
-import org.jooq.Row16;
+import org.jooq.Record18;
+import org.jooq.Row18;
 import org.jooq.impl.UpdatableRecordImpl;
 
 import javax.annotation.Generated;
@@ -47,9 +47,9 @@ import javax.annotation.Generated;
     comments = "This class is generated by jOOQ"
 )
 @SuppressWarnings({ "all", "unchecked", "rawtypes" })
-public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Record16<Integer, String, String, String, String, String, String, String, String, String, String, String, String, String, Float, Float> {
+public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Record18<Integer, String, String, String, String, String, String, String, String, String, String, String, String, String, Float, Float, Long, Long> {
 
-    private static final long serialVersionUID = 701971143;
+    private static final long serialVersionUID = 1386416590;
 
     /**
      * Setter for <code>songs.id</code>.
@@ -275,6 +275,34 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
         return (Float) get(15);
     }
 
+    /**
+     * Setter for <code>songs.file_size</code>.
+     */
+    public void setFileSize(Long value) {
+        set(16, value);
+    }
+
+    /**
+     * Getter for <code>songs.file_size</code>.
+     */
+    public Long getFileSize() {
+        return (Long) get(16);
+    }
+
+    /**
+     * Setter for <code>songs.last_modified</code>.
+     */
+    public void setLastModified(Long value) {
+        set(17, value);
+    }
+
+    /**
+     * Getter for <code>songs.last_modified</code>.
+     */
+    public Long getLastModified() {
+        return (Long) get(17);
+    }
+
     // -------------------------------------------------------------------------
     // Primary key information
     // -------------------------------------------------------------------------
@@ -288,23 +316,23 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
     }
 
     // -------------------------------------------------------------------------
-    // Record16 type implementation
+    // Record18 type implementation
     // -------------------------------------------------------------------------
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Row16<Integer, String, String, String, String, String, String, String, String, String, String, String, String, String, Float, Float> fieldsRow() {
-        return (Row16) super.fieldsRow();
+    public Row18<Integer, String, String, String, String, String, String, String, String, String, String, String, String, String, Float, Float, Long, Long> fieldsRow() {
+        return (Row18) super.fieldsRow();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Row16<Integer, String, String, String, String, String, String, String, String, String, String, String, String, String, Float, Float> valuesRow() {
-        return (Row16) super.valuesRow();
+    public Row18<Integer, String, String, String, String, String, String, String, String, String, String, String, String, String, Float, Float, Long, Long> valuesRow() {
+        return (Row18) super.valuesRow();
     }
 
     /**
@@ -435,6 +463,22 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
         return Songs.SONGS.SAMPLE_LENGTH;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Field<Long> field17() {
+        return Songs.SONGS.FILE_SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Field<Long> field18() {
+        return Songs.SONGS.LAST_MODIFIED;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -563,6 +607,22 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
         return getSampleLength();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long value17() {
+        return getFileSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long value18() {
+        return getLastModified();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -711,7 +771,25 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
      * {@inheritDoc}
      */
     @Override
-    public SongsRecord values(Integer value1, String value2, String value3, String value4, String value5, String value6, String value7, String value8, String value9, String value10, String value11, String value12, String value13, String value14, Float value15, Float value16) {
+    public SongsRecord value17(Long value) {
+        setFileSize(value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SongsRecord value18(Long value) {
+        setLastModified(value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SongsRecord values(Integer value1, String value2, String value3, String value4, String value5, String value6, String value7, String value8, String value9, String value10, String value11, String value12, String value13, String value14, Float value15, Float value16, Long value17, Long value18) {
         value1(value1);
         value2(value2);
         value3(value3);
@@ -728,6 +806,8 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
         value14(value14);
         value15(value15);
         value16(value16);
+        value17(value17);
+        value18(value18);
         return this;
     }
 
@@ -745,7 +825,7 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
     /**
      * Create a detached, initialised SongsRecord
      */
-    public SongsRecord(Integer id, String pack, String directory, String hash, String simPath, String format, String title, String subtitle, String artist, String genre, String bannerPath, String backgroundPath, String album, String musicPath, Float sampleStart, Float sampleLength) {
+    public SongsRecord(Integer id, String pack, String directory, String hash, String simPath, String format, String title, String subtitle, String artist, String genre, String bannerPath, String backgroundPath, String album, String musicPath, Float sampleStart, Float sampleLength, Long fileSize, Long lastModified) {
         super(Songs.SONGS);
 
         set(0, id);
@@ -764,5 +844,7 @@ public class SongsRecord extends UpdatableRecordImpl<SongsRecord> implements Rec
         set(13, musicPath);
         set(14, sampleStart);
         set(15, sampleLength);
+        set(16, fileSize);
+        set(17, lastModified);
     }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.resource;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Packs textures into a texture atlas, so drawables from different textures share the same GL texture
+ * and can be drawn by a batch without flushing.
+ */
+public interface AtlasPacker {
+    /**
+     * Packs the given textures into pages written together with the atlas file, named as the atlas
+     * with the ".atlas" extension. Regions are named as the textures and are never rotated nor stripped,
+     * so a texture is found inside its page by offsetting its coordinates. Textures that don't fit into
+     * a page are left out of the atlas. Textures are packed without padding, as theme textures are packed
+     * only when drawn with nearest filtering.
+     * @param textures the texture files mapped by region name.
+     * @param outputDir the directory where the atlas and its pages are written, must exist.
+     * @param atlasName the atlas name.
+     * @param pageSize the max width and height of the pages.
+     * @throws IOException if a texture cannot be read or the atlas cannot be written.
+     */
+    void pack(Map<String, FileHandle> textures, FileHandle outputDir, String atlasName, int pageSize) throws IOException;
+}
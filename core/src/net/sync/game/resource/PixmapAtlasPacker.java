@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.resource;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * An atlas packer based on {@link PixmapPacker}, available on every platform. Packing is slower and
+ * less dense than with the desktop texture packer, so its result should be cached.
+ */
+public class PixmapAtlasPacker implements AtlasPacker {
+    @Override
+    public void pack(Map<String, FileHandle> textures, FileHandle outputDir, String atlasName, int pageSize) throws IOException {
+        PixmapPacker packer = new PixmapPacker(pageSize, pageSize, Pixmap.Format.RGBA8888, 0, false);
+        try {
+            for(Map.Entry<String, FileHandle> texture : textures.entrySet()) {
+                Pixmap pixmap = new Pixmap(texture.getValue());
+                try {
+                    if(pixmap.getWidth() <= pageSize && pixmap.getHeight() <= pageSize) {
+                        packer.pack(texture.getKey(), pixmap);
+                    }
+                } finally {
+                    pixmap.dispose();
+                }
+            }
+            writeAtlas(packer, outputDir, atlasName);
+        } catch(GdxRuntimeException e) {
+            throw new IOException("Cannot pack the atlas " + atlasName, e);
+        } finally {
+            packer.dispose();
+        }
+    }
+
+    /**
+     * Writes the pages and the atlas file, in the format read by {@link com.badlogic.gdx.graphics.g2d.TextureAtlas}.
+     * Pages are cut to the smallest power of two size containing their textures.
+     */
+    private static void writeAtlas(PixmapPacker packer, FileHandle outputDir, String atlasName) {
+        StringBuilder atlas = new StringBuilder();
+        Array<PixmapPacker.Page> pages = packer.getPages();
+        for(int i = 0; i < pages.size; i++) {
+            PixmapPacker.Page page = pages.get(i);
+            OrderedMap<String, PixmapPacker.PixmapPackerRectangle> rects = page.getRects();
+            if(rects.size == 0) continue;
+
+            int width = 1;
+            int height = 1;
+            for(Rectangle rect : rects.values()) {
+                width = Math.max(width, (int) (rect.x + rect.width));
+                height = Math.max(height, (int) (rect.y + rect.height));
+            }
+            width = MathUtils.nextPowerOfTwo(width);
+            height = MathUtils.nextPowerOfTwo(height);
+
+            String pageName = atlasName + (i > 0 ? i + 1 : "") + ".png";
+            Pixmap pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+            try {
+                pixmap.setBlending(Pixmap.Blending.None);
+                pixmap.drawPixmap(page.getPixmap(), 0, 0, 0, 0, width, height);
+                PixmapIO.writePNG(outputDir.child(pageName), pixmap);
+            } finally {
+                pixmap.dispose();
+            }
+
+            atlas.append('\n').append(pageName).append('\n');
+            atlas.append("size: ").append(width).append(',').append(height).append('\n');
+            atlas.append("format: RGBA8888\nfilter: Nearest,Nearest\nrepeat: none\n");
+            for(ObjectMap.Entry<String, PixmapPacker.PixmapPackerRectangle> entry : rects) {
+                Rectangle rect = entry.value;
+                int rectWidth = (int) rect.width;
+                int rectHeight = (int) rect.height;
+                atlas.append(entry.key).append('\n');
+                atlas.append("  rotate: false\n");
+                atlas.append("  xy: ").append((int) rect.x).append(", ").append((int) rect.y).append('\n');
+                atlas.append("  size: ").append(rectWidth).append(", ").append(rectHeight).append('\n');
+                atlas.append("  orig: ").append(rectWidth).append(", ").append(rectHeight).append('\n');
+                atlas.append("  offset: 0, 0\n");
+                atlas.append("  index: -1\n");
+            }
+        }
+        outputDir.child(atlasName + ".atlas").writeString(atlas.toString(), false, "UTF-8");
+    }
+}
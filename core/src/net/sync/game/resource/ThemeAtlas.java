@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.resource;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The textures of a theme packed into an atlas, so drawables from different textures can be drawn by
+ * a batch without switching texture. The atlas is packed once and cached inside a directory, it's packed
+ * again only when the packed texture files change.
+ */
+public class ThemeAtlas {
+    /** The max width and height of the atlas pages **/
+    public static final int PAGE_SIZE = 2048;
+    /** Increased when the packing changes, so atlases packed by previous versions are packed again **/
+    public static final int VERSION = 1;
+    private static final String ATLAS_NAME = "drawables";
+
+    private final Map<String, TextureAtlasData.Region> regions = new HashMap<>();
+
+    private ThemeAtlas(TextureAtlasData data) {
+        for(TextureAtlasData.Region region : data.getRegions()) {
+            regions.put(region.name, region);
+        }
+    }
+
+    /**
+     * Loads the atlas cached inside the given directory, packing the textures first if the directory
+     * doesn't contain an atlas of the same texture files.
+     * @param textures the texture files mapped by name.
+     * @param directory the directory of the cached atlas, its content is replaced when packing.
+     * @param packer the packer used when the cached atlas is missing or outdated.
+     * @return the atlas.
+     * @throws IOException if the textures cannot be packed or the atlas cannot be read.
+     */
+    public static ThemeAtlas load(Map<String, FileHandle> textures, FileHandle directory, AtlasPacker packer) throws IOException {
+        String stamp = getStamp(textures);
+        FileHandle atlasFile = directory.child(ATLAS_NAME + ".atlas");
+        FileHandle stampFile = directory.child(ATLAS_NAME + ".stamp");
+
+        //The stamp is written last, a pack that didn't complete is done again
+        if(!atlasFile.exists() || !stampFile.exists() || !stampFile.readString("UTF-8").equals(stamp)) {
+            directory.deleteDirectory();
+            directory.mkdirs();
+            packer.pack(textures, directory, ATLAS_NAME, PAGE_SIZE);
+            stampFile.writeString(stamp, false, "UTF-8");
+        }
+
+        try {
+            return new ThemeAtlas(new TextureAtlasData(atlasFile, directory, false));
+        } catch(GdxRuntimeException e) {
+            throw new IOException("Cannot read the atlas " + atlasFile.path(), e);
+        }
+    }
+
+    /**
+     * Finds the region of a packed texture.
+     * @param name the texture name.
+     * @return the region, or null if the texture isn't inside the atlas.
+     */
+    public TextureAtlasData.Region findRegion(String name) {
+        return regions.get(name);
+    }
+
+    /**
+     * Describes the packed texture files, so the atlas is packed again when a file changes.
+     */
+    private static String getStamp(Map<String, FileHandle> textures) {
+        StringBuilder stamp = new StringBuilder();
+        stamp.append(VERSION).append(' ').append(PAGE_SIZE);
+        for(String name : new TreeSet<>(textures.keySet())) {
+            FileHandle file = textures.get(name);
+            stamp.append('\n').append(name).append(' ').append(file.path())
+                    .append(' ').append(file.length()).append(' ').append(file.lastModified());
+        }
+        return stamp.toString();
+    }
+}
@@ -53,13 +53,16 @@ public class RegionResource extends TextureResource {
         TextureRegionDrawable drawable = super.get();
         if(drawable == null) return null;
 
+        //Region coordinates are relative to the texture, that can be packed inside an atlas page
         TextureRegion region = drawable.getRegion();
-        region.setRegionX(x);
-        region.setRegionY(y);
-        if(width > 0)
-            region.setRegionWidth(width);
-        if(height > 0)
-            region.setRegionHeight(height);
+        int regionWidth = width > 0 ? width : path.getWidth();
+        int regionHeight = height > 0 ? height : path.getHeight();
+        region.setRegionX(path.getX() + x);
+        region.setRegionY(path.getY() + y);
+        if(regionWidth > 0)
+            region.setRegionWidth(regionWidth);
+        if(regionHeight > 0)
+            region.setRegionHeight(regionHeight);
         drawable.setMinWidth(region.getRegionWidth());
         drawable.setMinHeight(region.getRegionHeight());
         return drawable;
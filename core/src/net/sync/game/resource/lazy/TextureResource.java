@@ -26,6 +26,7 @@ import com.badlogic.gdx.assets.AssetDescriptor;
 import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.loaders.TextureLoader;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import net.sync.game.util.ui.TexturePath;
 
@@ -52,7 +53,12 @@ public class TextureResource extends DrawableResource {
     @Override
     public synchronized TextureRegionDrawable get() {
         if(isAvailable()) {
-            return assets().get(assetId);
+            //The texture can be packed inside an atlas page, only its bounds are drawn
+            Texture texture = assets().get(assetId);
+            TextureRegion region = path.getWidth() > 0 && path.getHeight() > 0
+                    ? new TextureRegion(texture, path.getX(), path.getY(), path.getWidth(), path.getHeight())
+                    : new TextureRegion(texture);
+            return new TextureRegionDrawable(region);
         }
         throw new IllegalStateException("Resource not loaded");
     }
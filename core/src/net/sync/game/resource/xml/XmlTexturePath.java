@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.resource.xml;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import net.sync.game.resource.ThemeAtlas;
+import net.sync.game.util.ui.TexturePath;
+
+/**
+ * The path of a texture declared by a theme. When the theme textures have been packed into the theme atlas,
+ * the path locates the texture inside its atlas page, otherwise it's the texture file.
+ */
+public class XmlTexturePath implements TexturePath {
+    private final XmlTheme theme;
+    private final String name;
+    private final FileHandle file;
+
+    /**
+     * Creates a texture path.
+     * @param theme the theme containing the texture file, null if the file doesn't belong to a theme.
+     * @param name the texture name, as declared by the theme.
+     * @param file the texture file.
+     */
+    public XmlTexturePath(XmlTheme theme, String name, FileHandle file) {
+        this.theme = theme;
+        this.name = name;
+        this.file = file;
+    }
+
+    @Override
+    public FileHandle getFile() {
+        TextureAtlasData.Region region = getRegion();
+        return region != null ? region.page.textureFile : file;
+    }
+
+    @Override
+    public int getX() {
+        TextureAtlasData.Region region = getRegion();
+        return region != null ? region.left : 0;
+    }
+
+    @Override
+    public int getY() {
+        TextureAtlasData.Region region = getRegion();
+        return region != null ? region.top : 0;
+    }
+
+    @Override
+    public int getWidth() {
+        TextureAtlasData.Region region = getRegion();
+        return region != null ? region.width : 0;
+    }
+
+    @Override
+    public int getHeight() {
+        TextureAtlasData.Region region = getRegion();
+        return region != null ? region.height : 0;
+    }
+
+    /**
+     * Gets the theme containing the texture file.
+     * @return the theme, null if the file doesn't belong to a theme.
+     */
+    public XmlTheme getTheme() {
+        return theme;
+    }
+
+    /**
+     * Gets the texture name, as declared by the theme.
+     * @return the texture name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the texture file, even if the texture has been packed.
+     * @return the texture file.
+     */
+    public FileHandle getTextureFile() {
+        return file;
+    }
+
+    private TextureAtlasData.Region getRegion() {
+        ThemeAtlas atlas = theme != null ? theme.getAtlas() : null;
+        return atlas != null ? atlas.findRegion(name) : null;
+    }
+}
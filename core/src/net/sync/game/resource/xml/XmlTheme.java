@@ -65,6 +65,9 @@ public class XmlTheme implements Theme {
     /* Supported languages */
     private List<Locale> langs;
 
+    /* Atlas of the theme textures, null if textures are not packed */
+    private ThemeAtlas atlas;
+
     /* Resource groups */
     private int groupId = 0;
 
@@ -246,13 +249,12 @@ public class XmlTheme implements Theme {
                     return getFallbackTheme().getTexturePath(path);
                 } else {
                     //Return absolute texture path
-                    return () -> Gdx.files.absolute(path);
+                    return new XmlTexturePath(null, path, Gdx.files.absolute(path));
                 }
             }
         }
 
-        final FileHandle f = textureFile;
-        return () -> f;
+        return new XmlTexturePath(this, path, textureFile);
     }
 
     @Override
@@ -269,6 +271,15 @@ public class XmlTheme implements Theme {
         return manifest;
     }
 
+    /**
+     * Gets the atlas of the theme textures. Texture paths returned by {@link #getTexturePath(String)}
+     * locate packed textures inside the atlas pages.
+     * @return the atlas, or null if the theme textures are not packed.
+     */
+    public ThemeAtlas getAtlas() {
+        return atlas;
+    }
+
     @Override
     public List<Locale> getLanguages() {
         return langs;
@@ -319,6 +330,10 @@ public class XmlTheme implements Theme {
         this.values = values;
     }
 
+    public void setAtlas(ThemeAtlas atlas) {
+        this.atlas = atlas;
+    }
+
     public void setManifest(XmlThemeManifest manifest) {
         this.manifest = manifest;
     }
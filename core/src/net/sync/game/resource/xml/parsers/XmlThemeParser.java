@@ -22,7 +22,14 @@
 
 package net.sync.game.resource.xml.parsers;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import net.sync.game.resource.ThemeAtlas;
+import net.sync.game.resource.lazy.Resource;
+import net.sync.game.resource.lazy.TextureResource;
+import net.sync.game.resource.xml.XmlTexturePath;
 import net.sync.game.resource.xml.XmlTheme;
 import net.sync.game.resource.xml.XmlThemeManifest;
 import net.sync.game.resource.xml.resolvers.XmlIntegerResolver;
@@ -30,10 +37,15 @@ import net.sync.game.util.xml.XmlParseException;
 import net.sync.game.util.xml.XmlParser;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
+import static net.sync.game.Game.backend;
 import static net.sync.game.Game.settings;
 
 public class XmlThemeParser extends XmlResourceParser<XmlTheme> {
@@ -177,10 +189,47 @@ public class XmlThemeParser extends XmlResourceParser<XmlTheme> {
     private void parseDrawables(XmlTheme theme) throws Exception {
         FileHandle drawablesFile = getResourceFile().sibling("drawables.xml");
         if(drawablesFile.exists()) {
-            theme.setDrawables(new XmlDrawablesParser(drawablesFile, theme).parse());
+            Map<String, Resource<Drawable>> drawables = new XmlDrawablesParser(drawablesFile, theme).parse();
+            packDrawables(theme, drawables); //Before resources get decorated
+            theme.setDrawables(drawables);
         }
     }
 
+    private void packDrawables(XmlTheme theme, Map<String, Resource<Drawable>> drawables) {
+        //Pack the theme textures, except the ones loaded with specific parameters
+        Map<String, FileHandle> textures = new HashMap<>();
+        Set<String> excluded = new HashSet<>();
+        for(Resource<Drawable> drawable : drawables.values()) {
+            if(!(drawable instanceof TextureResource)) continue;
+            TextureResource texture = (TextureResource) drawable;
+            if(!(texture.path instanceof XmlTexturePath)) continue;
+            XmlTexturePath path = (XmlTexturePath) texture.path;
+            if(path.getTheme() != theme) continue;
+
+            if(hasDefaultParameters(texture)) {
+                textures.put(path.getName(), path.getTextureFile());
+            } else {
+                excluded.add(path.getName());
+            }
+        }
+        textures.keySet().removeAll(excluded);
+        if(textures.isEmpty()) return;
+
+        FileHandle atlasDir = Gdx.files.local("cache/atlases").child(getResourceFile().parent().name());
+        try {
+            theme.setAtlas(ThemeAtlas.load(textures, atlasDir, backend().createAtlasPacker()));
+        } catch(IOException | GdxRuntimeException e) {
+            //Textures will be loaded separately
+            Gdx.app.error("Theme Atlas", "Cannot pack the theme textures", e);
+        }
+    }
+
+    private static boolean hasDefaultParameters(TextureResource texture) {
+        return texture.minFilter == null && texture.magFilter == null
+                && texture.uWrap == null && texture.vWrap == null
+                && texture.format == null && !texture.useMipMaps;
+    }
+
     private FileHandle getStringsFile(Locale locale) {
         return getResourceFile()
                 .sibling("strings")
@@ -24,23 +24,54 @@ package net.sync.game.round;
 
 import com.badlogic.gdx.audio.Music;
 
+import static net.sync.game.Game.settings;
+
 /**
- * Wraps a {@link Music} and provides a more accurate position by
- * syncing {@link System#nanoTime()} to {@link Music#getPosition()}.
+ * <p>Wraps a {@link Music} and provides a more accurate position by
+ * syncing {@link System#nanoTime()} to {@link Music#getPosition()}.</p>
+ * <p>The position reported by the music is updated in coarse steps. Every time it changes a
+ * sample binding it to the nano time is stored, and a line is fitted over the last samples
+ * with a least squares regression. The position is then interpolated from the fitted line with
+ * sub-millisecond resolution. The slope of the line (the clock rate) is kept close to 1 so
+ * a single noisy sample can only move the clock slightly. If the reported position moves too
+ * far away from the clock (e.g. after a seek) the clock is resynced to it.</p>
+ * <p>The audio output latency is subtracted from the returned positions.</p>
  */
 public class MusicPosition {
+    /** Default clock error in seconds that forces a resync **/
+    public static final double DEFAULT_RESYNC_THRESHOLD = 0.050D;
+    /* Count of samples used for the regression */
+    private static final int SAMPLE_CAPACITY = 16;
+    /* Max clock rate deviation from 1 */
+    private static final double MAX_RATE_ERROR = 0.005D;
+
     private Music music;
+    private double latency;
+    private double resyncThreshold = DEFAULT_RESYNC_THRESHOLD;
+
+    /* Samples binding system nano time to music position, stored in a ring buffer */
+    private final long[] sampleNanoTimes = new long[SAMPLE_CAPACITY];
+    private final double[] samplePositions = new double[SAMPLE_CAPACITY];
+    private int sampleCount;
+    private int sampleHead;
+    private double lastMusicPos = Double.NaN;
+
+    /* Clock position is basePos + rate * (nanoTime - baseNanoTime) */
+    private double basePos;
+    private long baseNanoTime;
+    private double rate;
 
-    /* Bind music position to system nano time */
-    private double lastMusicPos;
-    private long lastNanoTime;
+    /* Stats */
+    private double drift;
+    private int resyncCount;
 
     /**
-     * Construct a position provider.
+     * Construct a position provider. The latency is initialized from the game settings.
      * @param music the music.
      */
     public MusicPosition(Music music) {
         this.music = music;
+        this.latency = settings().getAudioLatency();
     }
 
     /**
@@ -57,12 +88,7 @@ public class MusicPosition {
      * @return the music position at the given nano time in seconds.
      */
     public double getPositionAt(long nanoTime) {
-        long nanoDelta = nanoTime - lastNanoTime;
-        if(nanoDelta < 0) {
-            return lastMusicPos;
-        } else {
-            return lastMusicPos + (double) (nanoDelta / 1_000_000) / 1000D;
-        }
+        return getClockAt(nanoTime) - latency;
     }
 
     /**
@@ -77,14 +103,133 @@ public class MusicPosition {
      * Must be called to sync nano time to music position.
      */
     public void update() {
-        double position = getPosition();
+        long nanoTime = System.nanoTime();
         double musicPos = music.getPosition();
 
-        //Check if difference is greater than 20ms
-        if(Math.abs(musicPos - position) > 0.020) {
-            //Sync nano time with music position
-            lastMusicPos = music.getPosition();
-            lastNanoTime = System.nanoTime();
+        if(!music.isPlaying()) {
+            //Music paused or stopped, freeze the clock
+            reset(musicPos, nanoTime, 0.0D);
+            return;
+        }
+
+        if(musicPos == lastMusicPos) {
+            //Music position not updated yet
+            return;
         }
+        lastMusicPos = musicPos;
+        drift = musicPos - getClockAt(nanoTime);
+
+        if(sampleCount == 0 || Math.abs(drift) > resyncThreshold) {
+            //Clock not started or too far from music position
+            if(sampleCount > 0) {
+                resyncCount++;
+            }
+            reset(musicPos, nanoTime, 1.0D);
+        }
+        addSample(nanoTime, musicPos);
+        fit();
+    }
+
+    /**
+     * Gets the audio output latency in seconds subtracted from the music position.
+     * @return the latency in seconds.
+     */
+    public double getLatency() {
+        return latency;
+    }
+
+    /**
+     * Sets the audio output latency in seconds subtracted from the music position.
+     * @param latency the latency in seconds.
+     */
+    public void setLatency(double latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Gets the max difference in seconds between the clock and the music position before the clock is resynced.
+     * @return the resync threshold in seconds.
+     */
+    public double getResyncThreshold() {
+        return resyncThreshold;
+    }
+
+    /**
+     * Sets the max difference in seconds between the clock and the music position before the clock is resynced.
+     * @param resyncThreshold the resync threshold in seconds.
+     */
+    public void setResyncThreshold(double resyncThreshold) {
+        this.resyncThreshold = resyncThreshold;
+    }
+
+    /**
+     * Gets the difference in seconds between the music position and the clock, measured at the last sample.
+     * @return the drift in seconds, positive if the clock is behind the music.
+     */
+    public double getDrift() {
+        return drift;
+    }
+
+    /**
+     * Gets how many times the clock has been resynced because the drift exceeded the resync threshold.
+     * @return the resync count.
+     */
+    public int getResyncCount() {
+        return resyncCount;
+    }
+
+    /**
+     * Gets the clock rate, the music seconds elapsed for each second of system time.
+     * @return the clock rate, 0 if the music isn't playing.
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    private double getClockAt(long nanoTime) {
+        return basePos + rate * ((nanoTime - baseNanoTime) / 1_000_000_000D);
+    }
+
+    private void reset(double musicPos, long nanoTime, double rate) {
+        this.basePos = musicPos;
+        this.baseNanoTime = nanoTime;
+        this.rate = rate;
+        this.sampleCount = 0;
+        this.sampleHead = 0;
+        this.lastMusicPos = musicPos;
+    }
+
+    private void addSample(long nanoTime, double musicPos) {
+        sampleNanoTimes[sampleHead] = nanoTime;
+        samplePositions[sampleHead] = musicPos;
+        sampleHead = (sampleHead + 1) % SAMPLE_CAPACITY;
+        sampleCount = Math.min(sampleCount + 1, SAMPLE_CAPACITY);
+    }
+
+    /**
+     * Fits the clock line over the stored samples.
+     */
+    private void fit() {
+        //Sample times are relative to the base nano time to keep precision
+        double meanX = 0.0D;
+        double meanY = 0.0D;
+        for(int i = 0; i < sampleCount; i++) {
+            meanX += (sampleNanoTimes[i] - baseNanoTime) / 1_000_000_000D;
+            meanY += samplePositions[i];
+        }
+        meanX /= sampleCount;
+        meanY /= sampleCount;
+
+        double sxx = 0.0D;
+        double sxy = 0.0D;
+        for(int i = 0; i < sampleCount; i++) {
+            double dx = (sampleNanoTimes[i] - baseNanoTime) / 1_000_000_000D - meanX;
+            sxx += dx * dx;
+            sxy += dx * (samplePositions[i] - meanY);
+        }
+
+        double slope = sxx > 0.0D ? sxy / sxx : 1.0D;
+        rate = Math.max(1.0D - MAX_RATE_ERROR, Math.min(1.0D + MAX_RATE_ERROR, slope));
+        basePos = meanY - rate * meanX;
     }
 }
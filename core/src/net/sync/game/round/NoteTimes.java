@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.round;
+
+import com.badlogic.gdx.utils.IntMap;
+import net.sync.game.song.Beatmap;
+import net.sync.game.song.Timing;
+import net.sync.game.song.note.LengthyNote;
+import net.sync.game.song.note.Note;
+
+/**
+ * Head and tail times of the notes of a chart, converted once from beats when the round starts.
+ * Times are indexed by panel and by note index inside the panel, as in the {@link Beatmap}.
+ */
+public class NoteTimes {
+    /* The map key is the note panel and the value contains the note times */
+    private final IntMap<double[]> headTimes = new IntMap<>();
+    private final IntMap<double[]> tailTimes = new IntMap<>();
+
+    /**
+     * Computes note times on the calling thread.
+     * @param beatmap the beatmap
+     * @param timing the chart timing
+     * @param panels the panels to compute times for
+     */
+    public NoteTimes(Beatmap beatmap, Timing timing, int[] panels) {
+        for(int panel : panels) {
+            int count = beatmap.countNotes(panel);
+            headTimes.put(panel, new double[count]);
+            tailTimes.put(panel, new double[count]);
+            computePanel(beatmap, timing, panel);
+        }
+    }
+
+    private void computePanel(Beatmap beatmap, Timing timing, int panel) {
+        double[] heads = headTimes.get(panel);
+        double[] tails = tailTimes.get(panel);
+        for(int i = 0; i < heads.length; i++) {
+            double beat = beatmap.getBeatAt(panel, i);
+            heads[i] = timing.getTimeAt(beat);
+            Note note = beatmap.getNoteAt(panel, i);
+            tails[i] = note instanceof LengthyNote ? timing.getTimeAt(beat + ((LengthyNote) note).getLength()) : heads[i];
+        }
+    }
+
+    /**
+     * Gets the time of the note head.
+     * @param panel the note panel
+     * @param index the note index inside the panel
+     * @return the head time in seconds relative to the start of the music track
+     */
+    public double getHeadTime(int panel, int index) {
+        return headTimes.get(panel)[index];
+    }
+
+    /**
+     * Gets the time of the note tail. For notes that aren't lengthy it is the same as the head time.
+     * @param panel the note panel
+     * @param index the note index inside the panel
+     * @return the tail time in seconds relative to the start of the music track
+     */
+    public double getTailTime(int panel, int index) {
+        return tailTimes.get(panel)[index];
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.round;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A bounded lock-free queue of timestamped panel state changes, backed by preallocated
+ * primitive arrays. Input backends push events with {@link #offer(int, double, boolean)} and
+ * the round drains them into its {@link PanelState} with {@link #drain(PanelState)} on the game
+ * thread, so judging always happens on the same thread and in the order events were produced.</p>
+ * <p>The queue is safe for a single producer thread and a single consumer thread. Offering
+ * and draining never allocate.</p>
+ */
+public class PanelEventQueue {
+    /** Default queue capacity **/
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int mask;
+    private final int[] panels;
+    private final double[] times;
+    private final boolean[] states;
+
+    /* Next slot to read, written by the consumer only */
+    private final AtomicLong head = new AtomicLong();
+    /* Next slot to write, written by the producer only */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates a queue with the {@link #DEFAULT_CAPACITY default capacity}.
+     */
+    public PanelEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a queue.
+     * @param capacity the max count of pending events, must be a positive power of two.
+     * @throws IllegalArgumentException if the capacity is not a positive power of two.
+     */
+    public PanelEventQueue(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && (capacity & (capacity - 1)) == 0,
+                "Capacity must be a positive power of two!");
+        this.mask = capacity - 1;
+        this.panels = new int[capacity];
+        this.times = new double[capacity];
+        this.states = new boolean[capacity];
+    }
+
+    /**
+     * Pushes a panel state change. Must be called by the producer thread only.
+     * @param panel the panel
+     * @param time the time in seconds when the change occurred
+     * @param pressed the state, true if pressed, false if released
+     * @return true if the event has been queued, false if the queue is full.
+     */
+    public boolean offer(int panel, double time, boolean pressed) {
+        long t = tail.get();
+        if(t - head.get() > mask) {
+            //Queue full
+            return false;
+        }
+        int slot = (int) t & mask;
+        panels[slot] = panel;
+        times[slot] = time;
+        states[slot] = pressed;
+        //Publish the event
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Sets all pending events on the given panel state, in the order they have been pushed.
+     * Must be called by the consumer thread only.
+     * @param panelState the panel state to update
+     * @return the count of drained events
+     */
+    public int drain(PanelState panelState) {
+        long h = head.get();
+        long t = tail.get();
+        for(long i = h; i < t; i++) {
+            int slot = (int) i & mask;
+            panelState.setState(panels[slot], times[slot], states[slot]);
+        }
+        //Release drained slots to the producer
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /**
+     * Gets the count of pending events.
+     * @return the count of events pushed but not yet drained.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
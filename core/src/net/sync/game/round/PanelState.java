@@ -24,45 +24,81 @@ package net.sync.game.round;
 
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.IntMap;
+import com.google.common.base.Preconditions;
 
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
- * Contains panels states over time. Released is the default initial state.
+ * <p>Contains panels states over time. Released is the default initial state.</p>
+ * <p>For each panel only the times of the state changes are stored, inside a ring buffer.
+ * States alternate starting from pressed, so the state of a change is derived from its position.
+ * The ring buffer grows only while its oldest change is inside the retention window, otherwise
+ * the oldest change is overwritten. Queries about times before the oldest retained change
+ * return the default values, unless the full history is kept (e.g. for replays).</p>
  */
 public class PanelState {
-    private IntMap<TreeMap<Double, Boolean>> panelStates = new IntMap<>();
+    /** Default retention window in seconds **/
+    public static final double DEFAULT_RETENTION = 10.0D;
+
+    private IntMap<History> histories = new IntMap<>();
     private Array<PanelStateListener> listeners = new Array<>();
+    private final double retention;
+    private final boolean keepFullHistory;
+
+    /**
+     * Creates a panel state that retains changes inside the {@link #DEFAULT_RETENTION default retention window}.
+     */
+    public PanelState() {
+        this(DEFAULT_RETENTION, false);
+    }
+
+    /**
+     * Creates a panel state.
+     * @param retention the retention window in seconds. Changes older than the latest change minus the
+     *                  retention window can be discarded.
+     * @param keepFullHistory true to move discarded changes to an unbounded history, so all changes
+     *                        can be queried (e.g. for replays).
+     * @throws IllegalArgumentException if the retention window is negative.
+     */
+    public PanelState(double retention, boolean keepFullHistory) {
+        Preconditions.checkArgument(retention >= 0.0D, "Retention window cannot be negative!");
+        this.retention = retention;
+        this.keepFullHistory = keepFullHistory;
+    }
 
     /**
      * Set the panel state at the given time. If the panel
      * state at the given time is the same as the one that is being set
      * it will be ignored. Listeners will be notified only
-     * if the state actually change.
+     * if the state actually change. State changes are expected in time order,
+     * a change older than the last one is moved to the time of the last one.
      * @param panel the panel
      * @param time the time in seconds
      * @param pressed the state to set
      */
     public void setState(int panel, double time, boolean pressed) {
-        //Get the map containing the states at each time or create it if necessary
-        TreeMap<Double, Boolean> states = panelStates.get(panel);
-        if(states == null) {
-            states = new TreeMap<>();
-            panelStates.put(panel, states);
+        //Get the panel history or create it if necessary
+        History history = histories.get(panel);
+        if(history == null) {
+            history = new History(retention, keepFullHistory);
+            histories.put(panel, history);
         }
 
-        if(states.isEmpty() && !pressed) {
+        long end = history.end();
+        if(end == 0 && !pressed) {
             //By default the initial state is released.
             //Ignore setting release state when panel has never been pressed.
             return;
         }
 
-        //Check if the state actually change
-        Map.Entry<Double, Boolean> floorEntry = states.floorEntry(time);
-        if(floorEntry == null || floorEntry.getValue() != pressed) {
+        //Check if the state actually change. Changes can only be appended,
+        //a change older than the last one is moved to the last change time.
+        if(end == 0 || History.isPressed(end - 1) != pressed) {
             //State changes
-            states.put(time, pressed);
+            if(end > 0) {
+                time = Math.max(time, history.timeAt(end - 1));
+            }
+            history.add(time);
 
             //Notify listeners
             for(PanelStateListener listener : listeners) {
@@ -98,10 +134,10 @@ public class PanelState {
      * @return true if the panel is pressed at the given time
      */
     public boolean isPressedAt(int panel, double time) {
-        TreeMap<Double, Boolean> states = panelStates.get(panel);
-        if(states != null) {
-            Map.Entry<Double, Boolean> entry = states.floorEntry(time);
-            return entry != null && entry.getValue();
+        History history = histories.get(panel);
+        if(history != null) {
+            long seq = history.floor(time);
+            return seq >= 0 && History.isPressed(seq);
         }
         return false;
     }
@@ -124,11 +160,11 @@ public class PanelState {
      * <li> {@link Double#MIN_VALUE} if a pressed state never occurred </li>
      */
     public double getLowerTimeState(int panel, double time) {
-        TreeMap<Double, Boolean> states = panelStates.get(panel);
-        if(states != null && !states.isEmpty()) {
-            Map.Entry<Double, Boolean> state = states.lowerEntry(time);
-            if(state != null) {
-                return state.getKey();
+        History history = histories.get(panel);
+        if(history != null) {
+            long seq = history.lower(time);
+            if(history.isRetained(seq)) {
+                return history.timeAt(seq);
             }
         }
         return Double.MIN_VALUE;
@@ -144,19 +180,16 @@ public class PanelState {
      * <li> {@link Double#MIN_VALUE} if checking for released state and a pressed state never occurred </li>
      */
     public double getLowerTimeState(int panel, double time, boolean pressed) {
-        TreeMap<Double, Boolean> states = panelStates.get(panel);
-            if(states != null && !states.isEmpty()) {
-                Map.Entry<Double, Boolean> state = states.lowerEntry(time);
-                if(state != null) {
-                    if(state.getValue() == pressed) {
-                        return state.getKey();
-                    } else {
-                        state = states.lowerEntry(state.getKey());
-                        if(state != null) {
-                            return state.getKey();
-                        }
-                    }
-                }
+        History history = histories.get(panel);
+        if(history != null) {
+            long seq = history.lower(time);
+            if(seq >= 0 && History.isPressed(seq) != pressed) {
+                //States alternate, the previous change has the requested state
+                seq--;
+            }
+            if(history.isRetained(seq)) {
+                return history.timeAt(seq);
+            }
         }
         return pressed ? Double.MAX_VALUE : Double.MIN_VALUE;
     }
@@ -191,11 +224,11 @@ public class PanelState {
      * <li> {@link Double#MIN_VALUE} if a pressed state never occurred </li>
      */
     public double getFloorTimeState(int panel, double time) {
-        TreeMap<Double, Boolean> states = panelStates.get(panel);
-        if(states != null && !states.isEmpty()) {
-            Map.Entry<Double, Boolean> state = states.lowerEntry(time);
-            if(state != null) {
-                return state.getKey();
+        History history = histories.get(panel);
+        if(history != null) {
+            long seq = history.lower(time);
+            if(history.isRetained(seq)) {
+                return history.timeAt(seq);
             }
         }
         return Double.MIN_VALUE;
@@ -211,18 +244,15 @@ public class PanelState {
      * <li> {@link Double#MIN_VALUE} if checking for released state and a pressed state never occurred </li>
      */
     public double getFloorTimeState(int panel, double time, boolean pressed) {
-        TreeMap<Double, Boolean> states = panelStates.get(panel);
-        if(states != null && !states.isEmpty()) {
-            Map.Entry<Double, Boolean> state = states.floorEntry(time);
-            if(state != null) {
-                if(state.getValue() == pressed) {
-                    return state.getKey();
-                } else {
-                    state = states.lowerEntry(state.getKey());
-                    if(state != null) {
-                        return state.getKey();
-                    }
-                }
+        History history = histories.get(panel);
+        if(history != null) {
+            long seq = history.floor(time);
+            if(seq >= 0 && History.isPressed(seq) != pressed) {
+                //States alternate, the previous change has the requested state
+                seq--;
+            }
+            if(history.isRetained(seq)) {
+                return history.timeAt(seq);
             }
         }
         return pressed ? Double.MAX_VALUE : Double.MIN_VALUE;
@@ -279,6 +309,114 @@ public class PanelState {
         listeners.clear();
     }
 
+    /**
+     * State change times of a single panel. Each change has a sequence number, starting from 0
+     * for the first change. Even sequence numbers are presses and odd ones are releases.
+     */
+    private static class History {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final double retention;
+        /* Changes discarded from the ring buffer, null if the full history is not kept */
+        private double[] spill;
+        private double[] times = new double[INITIAL_CAPACITY];
+        private int start;
+        private int size;
+        /* Sequence number of the oldest change inside the ring buffer */
+        private long first;
+
+        History(double retention, boolean keepFullHistory) {
+            this.retention = retention;
+            this.spill = keepFullHistory ? new double[INITIAL_CAPACITY] : null;
+        }
+
+        static boolean isPressed(long seq) {
+            return (seq & 1) == 0;
+        }
+
+        /**
+         * @return the sequence number following the latest change.
+         */
+        long end() {
+            return first + size;
+        }
+
+        boolean isRetained(long seq) {
+            return seq >= (spill != null ? 0 : first) && seq < end();
+        }
+
+        double timeAt(long seq) {
+            if(seq < first) {
+                return spill[(int) seq];
+            }
+            return times[(start + (int) (seq - first)) & (times.length - 1)];
+        }
+
+        void add(double time) {
+            if(size == times.length) {
+                if(timeAt(first) < time - retention) {
+                    //Oldest change outside retention window, discard it
+                    if(spill != null) {
+                        if(first == spill.length) {
+                            spill = Arrays.copyOf(spill, spill.length * 2);
+                        }
+                        spill[(int) first] = times[start];
+                    }
+                    start = (start + 1) & (times.length - 1);
+                    first++;
+                    size--;
+                } else {
+                    //Grow
+                    double[] grown = new double[times.length * 2];
+                    for(int i = 0; i < size; i++) {
+                        grown[i] = times[(start + i) & (times.length - 1)];
+                    }
+                    times = grown;
+                    start = 0;
+                }
+            }
+            times[(start + size) & (times.length - 1)] = time;
+            size++;
+        }
+
+        /**
+         * @return the greatest sequence number of a change with a time less or equal to the given time,
+         * or -1 if there is no such change.
+         */
+        long floor(double time) {
+            return search(time, true) - 1;
+        }
+
+        /**
+         * @return the greatest sequence number of a change with a time strictly less than the given time,
+         * or -1 if there is no such change.
+         */
+        long lower(double time) {
+            return search(time, false) - 1;
+        }
+
+        /**
+         * Binary search over retained changes. Changes older than the retained ones are
+         * assumed to be before the given time.
+         * @return the sequence number of the first change with a time greater than (or equal if not inclusive)
+         * the given time.
+         */
+        private long search(double time, boolean inclusive) {
+            long low = spill != null ? 0 : first;
+            long high = end();
+            while(low < high) {
+                long mid = (low + high) >>> 1;
+                double t = timeAt(mid);
+                if(t < time || inclusive && t == time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
     public interface PanelStateListener {
         /**
          * Called when the given panel change state at the given time.
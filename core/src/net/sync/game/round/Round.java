@@ -31,29 +31,41 @@ import net.sync.game.round.modifier.MultiplySpeedModifier;
 import net.sync.game.song.Chart;
 import net.sync.game.song.Song;
 import net.sync.game.song.Timing;
+import net.sync.game.song.note.NotePanel;
 
 import static net.sync.game.Game.backend;
+import static net.sync.game.Game.settings;
 
 public class Round {
     private Song song;
     private Chart chart;
     private Timing timing;
+    private NoteTimes noteTimes;
     private Score score;
     private Life life;
     private Music music;
     private MusicPosition musicPosition;
     private Judge judge;
     private PanelState panelState;
+    private PanelEventQueue inputQueue;
     private Modifiers modifiers;
 
+    /**
+     * Creates a round.
+     * @param song the song
+     * @param chart the chart to play, its beatmap must be loaded
+     * @param music the song music
+     */
     public Round(Song song, Chart chart, Music music) {
         this.song = song;
         this.chart = chart;
         this.music = music;
         this.musicPosition = new MusicPosition(music);
         this.timing = new Timing(chart.timingData);
+        this.noteTimes = new NoteTimes(chart.beatmap, timing, NotePanel.getModePanels(settings().getGameMode()));
         this.modifiers = new Modifiers();
         this.panelState = new PanelState();
+        this.inputQueue = new PanelEventQueue();
         this.judge = new Judge( this, new JudgeCriteria());
         this.panelState.addListener(this.judge);
 
@@ -87,6 +99,10 @@ public class Round {
         return timing;
     }
 
+    public NoteTimes getNoteTimes() {
+        return noteTimes;
+    }
+
     public Judge getJudge() {
         return judge;
     }
@@ -95,12 +111,22 @@ public class Round {
         return panelState;
     }
 
+    /**
+     * Gets the queue where input backends push panel state changes. Events are
+     * applied to the {@link #getPanelState() panel state} when the round is updated.
+     * @return the input event queue.
+     */
+    public PanelEventQueue getInputQueue() {
+        return inputQueue;
+    }
+
     public Modifiers getModifiers() {
         return modifiers;
     }
 
     public void update() {
         musicPosition.update();
+        inputQueue.drain(panelState);
         judge.update(musicPosition.getPosition());
     }
 }
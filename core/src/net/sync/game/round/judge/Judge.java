@@ -32,6 +32,7 @@ import net.sync.game.song.note.*;
 
 import static net.sync.game.Game.settings;
 import static net.sync.game.round.judge.JudgmentClass.*;
+import static net.sync.game.song.note.NoteCategory.JUDGEABLE;
 
 /**
  * <p>Generates judgments for a round following the given set of {@link JudgeCriteria criterias}.
@@ -51,9 +52,9 @@ public class Judge implements PanelState.PanelStateListener {
     private Round round;
     private JudgeCriteria criteria;
 
-    /* Map a beat to a given panel. All notes on a panel with a beat less
-     * or equal to this one will be considered judged and skipped. */
-    private IntMap<Double> evaluatedBeats;
+    /* Map a cursor to a given panel. All notes on a panel with a beat less
+     * or equal to the cursor evaluated beat will be considered judged and skipped. */
+    private IntMap<PanelCursor> cursors;
     /* Represents the processed time. Unjudged notes will be updated only
      * if the time passed to update(...) is greater than this value. */
     private double evaluatedTime;
@@ -82,12 +83,12 @@ public class Judge implements PanelState.PanelStateListener {
         this.criteria = criteria;
         this.panels = NotePanel.getModePanels(settings().getGameMode());
 
-        //Init evaluated beats and time
-        this.evaluatedBeats = new IntMap<>();
+        //Init panel cursors and evaluated time
+        this.cursors = new IntMap<>();
         this.evaluatedTime = Double.MIN_VALUE;
         GameMode mode = settings().getGameMode();
         for(int panel : NotePanel.getModePanels(mode)) {
-            this.evaluatedBeats.put(panel, 0.0D);
+            this.cursors.put(panel, new PanelCursor(panel));
         }
 
         //Init note judges
@@ -111,13 +112,13 @@ public class Judge implements PanelState.PanelStateListener {
             double beat = timing.getBeatAt(time);
 
             for(int panel : panels) {
-                //Update all notes from last evaluated beat to current beat
-                double evalBeat = getEvaluatedBeat(panel);
-                JudgeableNote note = (JudgeableNote) beatmap.higherNote(panel, evalBeat, n -> n instanceof JudgeableNote);
-                while (note != null && note.getBeat() < beat) {
+                //Update all notes from the first unjudged note to current beat
+                int index = cursors.get(panel).index;
+                while (index != -1 && beatmap.getBeatAt(panel, index) < beat) {
+                    JudgeableNote note = (JudgeableNote) beatmap.getNoteAt(panel, index);
                     NoteJudge judge = getNoteJudge(note);
-                    judge.update(panel, time, beat, note);
-                    note = (JudgeableNote) beatmap.higherNote(panel, note.getBeat(), n -> n instanceof JudgeableNote);
+                    judge.update(panel, index, time, beat, note);
+                    index = beatmap.nextIndex(panel, index, JUDGEABLE);
                 }
             }
             evaluatedTime = time;
@@ -140,26 +141,28 @@ public class Judge implements PanelState.PanelStateListener {
         Timing timing = getTiming();
         Beatmap beatmap = getBeatmap();
         double eventBeat = timing.getBeatAt(time);
-        double evalBeat = getEvaluatedBeat(panel);
+        PanelCursor cursor = cursors.get(panel);
+        double evalBeat = cursor.evaluatedBeat;
 
         //Find next note to judge
-        JudgeableNote note;
+        int index;
         if(eventBeat < evalBeat) {
             //Judge note after eval beat
-            note = (JudgeableNote) beatmap.higherNote(panel, evalBeat, n -> n instanceof JudgeableNote);
+            index = cursor.index;
         } else {
-            JudgeableNote floorNote = (JudgeableNote) beatmap.floorNote(panel, eventBeat, n -> n instanceof JudgeableNote);
-            if(floorNote != null && floorNote.getBeat() > evalBeat) {
+            int floorIndex = beatmap.floorIndex(panel, eventBeat, JUDGEABLE);
+            if(floorIndex != -1 && beatmap.getBeatAt(panel, floorIndex) > evalBeat) {
                 //Judge floor note
-                note = floorNote;
+                index = floorIndex;
             } else {
                 //Judge higher note
-                note = (JudgeableNote) beatmap.higherNote(panel, eventBeat, n -> n instanceof JudgeableNote);
+                index = beatmap.higherIndex(panel, eventBeat, JUDGEABLE);
             }
         }
 
-        if(note != null) {
-            getNoteJudge(note).onPanelStateChange(panel, time, pressed, note);
+        if(index != -1) {
+            JudgeableNote note = (JudgeableNote) beatmap.getNoteAt(panel, index);
+            getNoteJudge(note).onPanelStateChange(panel, index, time, pressed, note);
         }
     }
 
@@ -178,11 +181,21 @@ public class Judge implements PanelState.PanelStateListener {
     }
 
     private void setEvaluatedBeat(int panel, double beat) {
-        evaluatedBeats.put(panel, beat);
+        PanelCursor cursor = cursors.get(panel);
+        cursor.evaluatedBeat = beat;
+        cursor.index = getBeatmap().higherIndex(panel, beat, JUDGEABLE);
     }
 
     private double getEvaluatedBeat(int panel) {
-        return evaluatedBeats.get(panel);
+        return cursors.get(panel).evaluatedBeat;
+    }
+
+    private double getNoteTime(int panel, int index) {
+        return getRound().getNoteTimes().getHeadTime(panel, index);
+    }
+
+    private double getTailTime(int panel, int index) {
+        return getRound().getNoteTimes().getTailTime(panel, index);
     }
 
     /**
@@ -213,23 +226,40 @@ public class Judge implements PanelState.PanelStateListener {
         return getRound().getPanelState();
     }
 
+    /**
+     * Tracks the first unjudged note of a panel.
+     */
+    private class PanelCursor {
+        /* Notes with a beat less or equal to this one are considered judged */
+        double evaluatedBeat;
+        /* Index of the first judgeable note after the evaluated beat, -1 if there is no such note */
+        int index;
+
+        PanelCursor(int panel) {
+            evaluatedBeat = 0.0D;
+            index = getBeatmap().higherIndex(panel, evaluatedBeat, JUDGEABLE);
+        }
+    }
+
     private abstract class NoteJudge {
         /**
          * Update unjudged note status.
          * @param panel the panel.
+         * @param index the note index inside the panel.
          * @param time the time in seconds relative to the start of the music track.
          * @param beat the beat.
          * @param note the unjudged note.
          */
-        public abstract void update(int panel, double time, double beat, JudgeableNote note);
+        public abstract void update(int panel, int index, double time, double beat, JudgeableNote note);
 
         /**
          * Called when a panel changes state and update unjudged note status.
          * @param panel the panel.
+         * @param index the note index inside the panel.
          * @param time the time in seconds relative to the start of the music track.
          * @param note the unjudged note.
          */
-        public abstract void onPanelStateChange(int panel, double time, boolean pressed, JudgeableNote note);
+        public abstract void onPanelStateChange(int panel, int index, double time, boolean pressed, JudgeableNote note);
 
         /**
          * Called when the judge emit a judgment.
@@ -249,17 +279,16 @@ public class Judge implements PanelState.PanelStateListener {
 
     private class TapNoteJudge extends NoteJudge {
         @Override
-        public void update(int panel, double time, double beat, JudgeableNote note) {
+        public void update(int panel, int index, double time, double beat, JudgeableNote note) {
             Beatmap beatmap = getBeatmap();
-            Timing timing = getTiming();
-            double noteTime = timing.getTimeAt(note.getBeat());
+            double noteTime = getNoteTime(panel, index);
             double timingError = noteTime - time;
             double worstWindow = criteria.getWorstTapWindow();
-            Note higherNote = beatmap.higherNote(panel, note.getBeat(), n -> n instanceof JudgeableNote);
+            int higherIndex = beatmap.nextIndex(panel, index, JUDGEABLE);
 
-            if(higherNote != null && higherNote.getBeat() < beat) {
+            if(higherIndex != -1 && beatmap.getBeatAt(panel, higherIndex) < beat) {
                 //Next note surpassed current note
-                double higherNoteTime = timing.getTimeAt(higherNote.getBeat());
+                double higherNoteTime = getNoteTime(panel, higherIndex);
                 timingError = Math.max(noteTime - higherNoteTime, -worstWindow);
                 emitJudgment(panel, note, new TapJudgment(noteTime - timingError, timingError, MISS));
             } else if(timingError < -worstWindow) {
@@ -269,10 +298,9 @@ public class Judge implements PanelState.PanelStateListener {
         }
 
         @Override
-        public void onPanelStateChange(int panel, double time, boolean pressed, JudgeableNote note) {
+        public void onPanelStateChange(int panel, int index, double time, boolean pressed, JudgeableNote note) {
             if(pressed) {
-                Timing timing = getTiming();
-                double noteTime = timing.getTimeAt(note.getBeat());
+                double noteTime = getNoteTime(panel, index);
                 double timingError = noteTime - time;
                 JudgmentClass judgmentClass = getJudgmentClass(timingError);
                 if(judgmentClass != MISS) {
@@ -302,30 +330,30 @@ public class Judge implements PanelState.PanelStateListener {
 
     private abstract class LengthyNoteJudge extends TapNoteJudge {
         @Override
-        public void update(int panel, double time, double beat, JudgeableNote note) {
+        public void update(int panel, int index, double time, double beat, JudgeableNote note) {
             if (!note.hasJudgment()) {
                 //Update head
-                super.update(panel, time, beat, note);
+                super.update(panel, index, time, beat, note);
             } else {
                 //Update trail
-                updateTrail(panel, time, beat, (JudgeableLengthyNote) note);
+                updateTrail(panel, index, time, beat, (JudgeableLengthyNote) note);
             }
         }
 
         @Override
-        public void onPanelStateChange(int panel, double time, boolean pressed, JudgeableNote note) {
+        public void onPanelStateChange(int panel, int index, double time, boolean pressed, JudgeableNote note) {
             if(!note.hasJudgment()) {
                 //Handle state change on head
-                super.onPanelStateChange(panel, time, pressed, note);
+                super.onPanelStateChange(panel, index, time, pressed, note);
             } else {
                 //Handle state change on trail
-                onPanelStateChangeTrail(panel, time, pressed, (JudgeableLengthyNote) note);
+                onPanelStateChangeTrail(panel, index, time, pressed, (JudgeableLengthyNote) note);
             }
         }
 
-        public void updateTrail(int panel, double time, double beat, JudgeableLengthyNote note) {}
+        public void updateTrail(int panel, int index, double time, double beat, JudgeableLengthyNote note) {}
 
-        public void onPanelStateChangeTrail(int panel, double time, boolean pressed, JudgeableLengthyNote note) {}
+        public void onPanelStateChangeTrail(int panel, int index, double time, boolean pressed, JudgeableLengthyNote note) {}
 
         @Override
         public void emitJudgment(int panel, JudgeableNote note, Judgment judgment) {
@@ -357,10 +385,9 @@ public class Judge implements PanelState.PanelStateListener {
 
     private class HoldNoteJudge extends LengthyNoteJudge {
         @Override
-        public void updateTrail(int panel, double time, double beat, JudgeableLengthyNote note) {
+        public void updateTrail(int panel, int index, double time, double beat, JudgeableLengthyNote note) {
             PanelState states = getPanelState();
-            Timing timing = getTiming();
-            double tailTime = timing.getTimeAt(note.getBeat() + note.getLength());
+            double tailTime = getTailTime(panel, index);
             boolean insideTrail = time < tailTime;
 
             if(states.isReleasedAt(panel, time)) {
@@ -385,10 +412,9 @@ public class Judge implements PanelState.PanelStateListener {
 
     private class RollNoteJudge extends LengthyNoteJudge {
         @Override
-        public void updateTrail(int panel, double time, double beat, JudgeableLengthyNote note) {
+        public void updateTrail(int panel, int index, double time, double beat, JudgeableLengthyNote note) {
             PanelState states = getPanelState();
-            Timing timing = getTiming();
-            double tailTime = timing.getTimeAt(note.getBeat() + note.getLength());
+            double tailTime = getTailTime(panel, index);
             double lowerTimePressed = states.getLowerTimePressed(panel, time);
             double refTime = Math.min(time, tailTime);
 
@@ -404,17 +430,17 @@ public class Judge implements PanelState.PanelStateListener {
 
     private class MineNoteJudge extends NoteJudge {
         @Override
-        public void update(int panel, double time, double beat, JudgeableNote note) {
+        public void update(int panel, int index, double time, double beat, JudgeableNote note) {
             //Check if previous note has been judged
-            JudgeableNote prevNote = (JudgeableNote) getBeatmap().lowerNote(panel, note.getBeat(), n -> n instanceof JudgeableNote);
-            if(prevNote != null && prevNote.getBeat() < getEvaluatedBeat(panel)) {
+            Beatmap beatmap = getBeatmap();
+            int prevIndex = beatmap.previousIndex(panel, index, JUDGEABLE);
+            if(prevIndex != -1 && beatmap.getBeatAt(panel, prevIndex) < getEvaluatedBeat(panel)) {
                 //Prev note not judged yet
                 return;
             }
 
             PanelState states = getPanelState();
-            Timing timing = getTiming();
-            double mineWindowEnd = timing.getTimeAt(note.getBeat());
+            double mineWindowEnd = getNoteTime(panel, index);
             double mineWindowStart = mineWindowEnd - criteria.getMineWindow();
 
             if(time > mineWindowStart) {
@@ -437,17 +463,17 @@ public class Judge implements PanelState.PanelStateListener {
         }
 
         @Override
-        public void onPanelStateChange(int panel, double time, boolean pressed, JudgeableNote note) {}
+        public void onPanelStateChange(int panel, int index, double time, boolean pressed, JudgeableNote note) {}
     }
 
     private class LiftNoteJudge extends NoteJudge {
         @Override
-        public void update(int panel, double time, double beat, JudgeableNote note) {
+        public void update(int panel, int index, double time, double beat, JudgeableNote note) {
             //TODO
         }
 
         @Override
-        public void onPanelStateChange(int panel, double time, boolean pressed, JudgeableNote note) {
+        public void onPanelStateChange(int panel, int index, double time, boolean pressed, JudgeableNote note) {
             //TODO
         }
     }
@@ -27,17 +27,29 @@ import com.badlogic.gdx.utils.IntMap;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import net.sync.game.song.note.ChordNote;
+import net.sync.game.song.note.LengthyNote;
 import net.sync.game.song.note.Note;
+import net.sync.game.song.note.NoteCategory;
+import net.sync.game.song.note.NoteType;
 
-import java.util.Map;
-import java.util.TreeMap;
-
+/**
+ * <p>An immutable collection of notes grouped by panel. Use {@link Builder} to create a beatmap.</p>
+ * <p>Notes of each panel are stored in column oriented arrays sorted by beat (beats, note types,
+ * lengths and notes), so each note can be addressed by its index inside the panel. Index based
+ * methods (e.g. {@link #ceilingIndex(int, double)}, {@link #nextIndex(int, int)}) don't allocate
+ * and should be preferred on hot paths; they return -1 when there is no such note.</p>
+ * <p>Each panel also keeps a secondary index for every {@link NoteCategory}, so notes of a given
+ * category can be reached in a single step without walking over notes of other categories.</p>
+ */
 //TODO implement comparator with tolerance
 //TODO Define tolerance in game settings?
 public class Beatmap {
-    /* The map key is the note panel and the value is a TreeMap containing notes.
-     * TreeMap key is the note beat and value is the note. */
-    private IntMap<TreeMap<Double, Note>> panels = new IntMap<>();
+    /* The map key is the note panel and the value is the panel column */
+    private final IntMap<Column> columns;
+
+    private Beatmap(IntMap<Column> columns) {
+        this.columns = columns;
+    }
 
     /**
      * Gets the note at the given beat on the given panel.
@@ -46,8 +58,8 @@ public class Beatmap {
      * @return the note at the given beat, or null if there is no note at the given beat.
      */
     public Note getNote(int panel, double beat) {
-        TreeMap<Double, Note> notes = panels.get(panel);
-        return notes != null ? notes.get(beat) : null;
+        int index = indexOf(panel, beat);
+        return index >= 0 ? columns.get(panel).notes[index] : null;
     }
 
     /**
@@ -58,7 +70,7 @@ public class Beatmap {
      */
     public Array<Note> getNotes(double beat, Predicate<Note> predicate) {
         Array<Note> notes = new Array<>();
-        IntMap.Keys keys = panels.keys();
+        IntMap.Keys keys = columns.keys();
         while(keys.hasNext) {
             int panel = keys.next();
             Note note = getNote(panel, beat);
@@ -87,19 +99,7 @@ public class Beatmap {
      * @return a note with the greatest beat less than or equal to the given beat, or null if there is no such note
      */
     public Note floorNote(int panel, double beat, Predicate<Note> predicate) {
-        Note note;
-        TreeMap<Double, Note> notes = panels.get(panel);
-        if(notes != null) {
-            Map.Entry<Double, Note> entry = notes.floorEntry(beat);
-            while(entry != null) {
-                note = entry.getValue();
-                if(predicate.apply(note)) {
-                    return note;
-                }
-                entry = notes.lowerEntry(entry.getKey());
-            }
-        }
-        return null;
+        return getValidNote(panel, floorIndex(panel, beat), -1, predicate);
     }
 
     /**
@@ -110,7 +110,7 @@ public class Beatmap {
      * @return a note with the greatest beat less than or equal to the given beat, or null if there is no such note
      */
     public Note floorNote(int panel, double beat) {
-        return floorNote(panel, beat, Predicates.alwaysTrue());
+        return getNoteAt(panel, floorIndex(panel, beat));
     }
 
     /**
@@ -122,19 +122,7 @@ public class Beatmap {
      * @return a note with the least beat greater than or equal to beat, or null if there is no such note.
      */
     public Note ceilingNote(int panel, double beat, Predicate<Note> predicate) {
-        Note note;
-        TreeMap<Double, Note> notes = panels.get(panel);
-        if(notes != null) {
-            Map.Entry<Double, Note> entry = notes.ceilingEntry(beat);
-            while(entry != null) {
-                note = entry.getValue();
-                if(predicate.apply(note)) {
-                    return note;
-                }
-                entry = notes.higherEntry(entry.getKey());
-            }
-        }
-        return null;
+        return getValidNote(panel, ceilingIndex(panel, beat), 1, predicate);
     }
 
     /**
@@ -145,7 +133,7 @@ public class Beatmap {
      * @return a note with the least beat greater than or equal to beat, or null if there is no such note.
      */
     public Note ceilingNote(int panel, double beat) {
-        return ceilingNote(panel, beat, Predicates.alwaysTrue());
+        return getNoteAt(panel, ceilingIndex(panel, beat));
     }
 
     /**
@@ -157,19 +145,7 @@ public class Beatmap {
      * @return a note with the least beat greater than beat, or null if there is no such note
      */
     public Note higherNote(int panel, double beat, Predicate<Note> predicate) {
-        Note note;
-        TreeMap<Double, Note> notes = panels.get(panel);
-        if(notes != null) {
-            Map.Entry<Double, Note> entry = notes.higherEntry(beat);
-            while(entry != null) {
-                note = entry.getValue();
-                if(predicate.apply(note)) {
-                    return note;
-                }
-                entry = notes.higherEntry(entry.getKey());
-            }
-        }
-        return null;
+        return getValidNote(panel, higherIndex(panel, beat), 1, predicate);
     }
 
     /**
@@ -180,7 +156,7 @@ public class Beatmap {
      * @return a note with the least beat greater than beat, or null if there is no such note
      */
     public Note higherNote(int panel, double beat) {
-        return higherNote(panel, beat, Predicates.alwaysTrue());
+        return getNoteAt(panel, higherIndex(panel, beat));
     }
 
     /**
@@ -192,20 +168,7 @@ public class Beatmap {
      * @return a note with the greatest beat less than given beat, or null if there is no such note
      */
     public Note lowerNote(int panel, double beat, Predicate<Note> predicate) {
-        Note note = null;
-        TreeMap<Double, Note> notes = panels.get(panel);
-        if(notes != null) {
-            Map.Entry<Double, Note> entry = notes.lowerEntry(beat);
-            while(entry != null) {
-                note = entry.getValue();
-                if(predicate.apply(note)) {
-                    return note;
-                }
-                entry = notes.lowerEntry(entry.getKey());
-            }
-        }
-
-        return note;
+        return getValidNote(panel, lowerIndex(panel, beat), -1, predicate);
     }
 
     /**
@@ -216,7 +179,7 @@ public class Beatmap {
      * @return a note with the greatest beat less than given beat, or null if there is no such note
      */
     public Note lowerNote(int panel, double beat) {
-        return lowerNote(panel, beat, Predicates.alwaysTrue());
+        return getNoteAt(panel, lowerIndex(panel, beat));
     }
 
     /**
@@ -225,8 +188,7 @@ public class Beatmap {
      * @return a note with the least beat, or null if this map is empty
      */
     public Note firstNote(int panel) {
-        TreeMap<Double, Note> notes = panels.get(panel);
-        return notes != null && !notes.isEmpty() ? notes.firstEntry().getValue() : null;
+        return getNoteAt(panel, hasNotes(panel) ? 0 : -1);
     }
 
     /**
@@ -235,8 +197,15 @@ public class Beatmap {
      * @return a note with the greatest beat, or null if this map is empty
      */
     public Note lastNote(int panel) {
-        TreeMap<Double, Note> notes = panels.get(panel);
-        return notes != null && !notes.isEmpty() ? notes.lastEntry().getValue() : null;
+        return getNoteAt(panel, countNotes(panel) - 1);
+    }
+
+    /**
+     * Gets the panels that have notes.
+     * @return the note panels, in no particular order.
+     */
+    public int[] getPanels() {
+        return columns.keys().toArray().toArray();
     }
 
     /**
@@ -245,8 +214,8 @@ public class Beatmap {
      * @return the notes count
      */
     public int countNotes(int panel) {
-        Map notes = panels.get(panel);
-        return notes != null ? notes.size() : 0;
+        Column column = columns.get(panel);
+        return column != null ? column.beats.length : 0;
     }
 
     /**
@@ -264,7 +233,7 @@ public class Beatmap {
 
     public int getChordSize(double beat) {
         int count = 0;
-        IntMap.Keys keys = panels.keys();
+        IntMap.Keys keys = columns.keys();
         while(keys.hasNext) {
             int panel = keys.next();
             Note note = getNote(panel, beat);
@@ -276,19 +245,406 @@ public class Beatmap {
     }
 
     /**
-     * Put note inside the beatmap.
+     * Gets the note at the given index.
+     * @param panel the note panel
+     * @param index the note index inside the panel
+     * @return the note, or null if the index is negative.
+     * @throws IndexOutOfBoundsException if the index is greater than or equal to the count of notes
+     */
+    public Note getNoteAt(int panel, int index) {
+        return index >= 0 ? columns.get(panel).notes[index] : null;
+    }
+
+    /**
+     * Gets the beat of the note at the given index.
+     * @param panel the note panel
+     * @param index the note index inside the panel, must be valid
+     * @return the note beat
+     */
+    public double getBeatAt(int panel, int index) {
+        return columns.get(panel).beats[index];
+    }
+
+    /**
+     * Gets the type of the note at the given index.
+     * @param panel the note panel
+     * @param index the note index inside the panel, must be valid
+     * @return the note type, one of the {@link NoteType} values
+     */
+    public byte getNoteTypeAt(int panel, int index) {
+        return columns.get(panel).types[index];
+    }
+
+    /**
+     * Gets the length of the note at the given index.
+     * @param panel the note panel
+     * @param index the note index inside the panel, must be valid
+     * @return the note length in beats, 0 if the note isn't a {@link LengthyNote}
+     */
+    public float getLengthAt(int panel, int index) {
+        return columns.get(panel).lengths[index];
+    }
+
+    /**
+     * Gets the index of the note at the given beat.
      * @param panel the note panel
-     * @param note the note
-     */
-    public void putNote(int panel, Note note) {
-        //Get notes and init map if necessary
-        TreeMap<Double, Note> notes = panels.get(panel);
-        if(notes == null) {
-            notes = new TreeMap<>();
-            panels.put(panel, notes);
+     * @param beat the beat
+     * @return the note index, or -1 if there is no note at the given beat
+     */
+    public int indexOf(int panel, double beat) {
+        int index = floorIndex(panel, beat);
+        return index >= 0 && Double.compare(columns.get(panel).beats[index], beat) == 0 ? index : -1;
+    }
+
+    /**
+     * Gets the index of the note with the greatest beat less than or equal to the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @return the note index, or -1 if there is no such note
+     */
+    public int floorIndex(int panel, double beat) {
+        Column column = columns.get(panel);
+        return column != null ? column.search(beat, true) - 1 : -1;
+    }
+
+    /**
+     * Gets the index of the note with the greatest beat strictly less than the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @return the note index, or -1 if there is no such note
+     */
+    public int lowerIndex(int panel, double beat) {
+        Column column = columns.get(panel);
+        return column != null ? column.search(beat, false) - 1 : -1;
+    }
+
+    /**
+     * Gets the index of the note with the least beat greater than or equal to the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @return the note index, or -1 if there is no such note
+     */
+    public int ceilingIndex(int panel, double beat) {
+        Column column = columns.get(panel);
+        if(column != null) {
+            int index = column.search(beat, false);
+            return index < column.beats.length ? index : -1;
         }
+        return -1;
+    }
 
-        //Associate the note to its beat
-        notes.put(note.getBeat(), note);
+    /**
+     * Gets the index of the note with the least beat strictly greater than the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @return the note index, or -1 if there is no such note
+     */
+    public int higherIndex(int panel, double beat) {
+        Column column = columns.get(panel);
+        if(column != null) {
+            int index = column.search(beat, true);
+            return index < column.beats.length ? index : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the index of the first note that ends at or after the given beat, considering lengthy notes
+     * ending at their tail. All the notes preceding the returned index end before the given beat,
+     * while the following notes may end either before or after it.
+     * @param panel the note panel
+     * @param beat the beat
+     * @return the note index, or -1 if all the notes end before the given beat
+     */
+    public int ceilingEndIndex(int panel, double beat) {
+        Column column = columns.get(panel);
+        if(column != null) {
+            int index = column.searchEnd(beat);
+            return index < column.beats.length ? index : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the index of the note that follows the note at the given index.
+     * @param panel the note panel
+     * @param index the note index
+     * @return the next note index, or -1 if the given index is the last one
+     */
+    public int nextIndex(int panel, int index) {
+        return index >= 0 && index + 1 < countNotes(panel) ? index + 1 : -1;
+    }
+
+    /**
+     * Gets the index of the note that precedes the note at the given index.
+     * @param panel the note panel
+     * @param index the note index
+     * @return the previous note index, or -1 if the given index is the first one
+     */
+    public int previousIndex(int panel, int index) {
+        return index > 0 ? index - 1 : -1;
+    }
+
+    /**
+     * Checks if the note at the given index belongs to the given category.
+     * @param panel the note panel
+     * @param index the note index inside the panel, must be valid
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return true if the note belongs to the category, false otherwise
+     */
+    public boolean isCategoryAt(int panel, int index, int category) {
+        return columns.get(panel).previous[category][index + 1] == index;
+    }
+
+    /**
+     * Gets the index of the first note of the given category that follows the note at the given index.
+     * @param panel the note panel
+     * @param index the note index, the note doesn't need to belong to the category
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return the next note index, or -1 if there is no such note
+     */
+    public int nextIndex(int panel, int index, int category) {
+        return index >= 0 ? columns.get(panel).next[category][index + 1] : -1;
+    }
+
+    /**
+     * Gets the index of the last note of the given category that precedes the note at the given index.
+     * @param panel the note panel
+     * @param index the note index, the note doesn't need to belong to the category
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return the previous note index, or -1 if there is no such note
+     */
+    public int previousIndex(int panel, int index, int category) {
+        return index > 0 ? columns.get(panel).previous[category][index] : -1;
+    }
+
+    /**
+     * Gets the index of the note of the given category with the greatest beat less than or equal to the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return the note index, or -1 if there is no such note
+     */
+    public int floorIndex(int panel, double beat, int category) {
+        Column column = columns.get(panel);
+        return column != null ? column.previous[category][column.search(beat, true)] : -1;
+    }
+
+    /**
+     * Gets the index of the note of the given category with the greatest beat strictly less than the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return the note index, or -1 if there is no such note
+     */
+    public int lowerIndex(int panel, double beat, int category) {
+        Column column = columns.get(panel);
+        return column != null ? column.previous[category][column.search(beat, false)] : -1;
+    }
+
+    /**
+     * Gets the index of the note of the given category with the least beat greater than or equal to the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return the note index, or -1 if there is no such note
+     */
+    public int ceilingIndex(int panel, double beat, int category) {
+        Column column = columns.get(panel);
+        return column != null ? column.next[category][column.search(beat, false)] : -1;
+    }
+
+    /**
+     * Gets the index of the note of the given category with the least beat strictly greater than the given beat.
+     * @param panel the note panel
+     * @param beat the beat
+     * @param category the category, one of the {@link NoteCategory} values
+     * @return the note index, or -1 if there is no such note
+     */
+    public int higherIndex(int panel, double beat, int category) {
+        Column column = columns.get(panel);
+        return column != null ? column.next[category][column.search(beat, true)] : -1;
+    }
+
+    /**
+     * Walks the panel notes starting from the given index and returns the first note valid for the predicate.
+     * @param panel the note panel
+     * @param index the start index, -1 if there is no start note
+     * @param step 1 to walk forward, -1 to walk backward
+     * @param predicate a predicate that checks if the note is valid, never null.
+     * @return the first valid note, or null if there is no valid note
+     */
+    private Note getValidNote(int panel, int index, int step, Predicate<Note> predicate) {
+        if(index >= 0) {
+            Note[] notes = columns.get(panel).notes;
+            for(int i = index; i >= 0 && i < notes.length; i += step) {
+                if(predicate.apply(notes[i])) {
+                    return notes[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Notes of a single panel sorted by beat.
+     */
+    private static class Column {
+        final double[] beats;
+        final byte[] types;
+        final float[] lengths;
+        final Note[] notes;
+        /* Secondary indexes, one for each note category. Given a position p between 0 and
+         * the count of notes, next[c][p] is the index of the first note of category c with
+         * index >= p and previous[c][p] is the index of the last note of category c with
+         * index < p, or -1 if there is no such note. */
+        final int[][] next;
+        final int[][] previous;
+        /* Greatest end beat of the notes up to each index, the end beat of a lengthy note is its tail beat */
+        final double[] maxEndBeats;
+
+        Column(Array<Note> panelNotes) {
+            int size = panelNotes.size;
+            beats = new double[size];
+            types = new byte[size];
+            lengths = new float[size];
+            notes = new Note[size];
+            maxEndBeats = new double[size];
+            for(int i = 0; i < size; i++) {
+                Note note = panelNotes.get(i);
+                beats[i] = note.getBeat();
+                types[i] = NoteType.valueOf(note);
+                lengths[i] = note instanceof LengthyNote ? (float) ((LengthyNote) note).getLength() : 0.0f;
+                notes[i] = note;
+                maxEndBeats[i] = beats[i] + lengths[i];
+                if(i > 0 && maxEndBeats[i - 1] > maxEndBeats[i]) {
+                    maxEndBeats[i] = maxEndBeats[i - 1];
+                }
+            }
+
+            //Build category indexes
+            next = new int[NoteCategory.COUNT][size + 1];
+            previous = new int[NoteCategory.COUNT][size + 1];
+            for(int c = 0; c < NoteCategory.COUNT; c++) {
+                next[c][size] = -1;
+                for(int i = size - 1; i >= 0; i--) {
+                    next[c][i] = NoteCategory.contains(notes[i], c) ? i : next[c][i + 1];
+                }
+                previous[c][0] = -1;
+                for(int i = 0; i < size; i++) {
+                    previous[c][i + 1] = NoteCategory.contains(notes[i], c) ? i : previous[c][i];
+                }
+            }
+        }
+
+        /**
+         * Binary search.
+         * @param beat the beat
+         * @param inclusive true to include notes at the given beat
+         * @return the count of notes with a beat less than (or equal if inclusive) the given beat.
+         */
+        int search(double beat, boolean inclusive) {
+            int low = 0;
+            int high = beats.length;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Double.compare(beats[mid], beat);
+                if(cmp < 0 || inclusive && cmp == 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Binary search over the greatest end beats.
+         * @param beat the beat
+         * @return the count of leading notes that end before the given beat.
+         */
+        int searchEnd(double beat) {
+            int low = 0;
+            int high = maxEndBeats.length;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                if(maxEndBeats[mid] < beat) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Collects notes and builds a {@link Beatmap}. Notes are expected to be put in ascending beat
+     * order, as sim parsers do, but any order is accepted.
+     */
+    public static class Builder {
+        private IntMap<Array<Note>> panels = new IntMap<>();
+
+        /**
+         * Puts the note inside the beatmap. A note already present on the panel at the same beat is replaced.
+         * @param panel the note panel
+         * @param note the note
+         * @return this builder
+         */
+        public Builder putNote(int panel, Note note) {
+            //Get notes and init array if necessary
+            Array<Note> notes = panels.get(panel);
+            if(notes == null) {
+                notes = new Array<>(Note.class);
+                panels.put(panel, notes);
+            }
+
+            //Notes usually come in order, append or replace the last one without searching
+            int cmp = notes.size > 0 ? Double.compare(note.getBeat(), notes.peek().getBeat()) : 1;
+            if(cmp > 0) {
+                notes.add(note);
+            } else if(cmp == 0) {
+                notes.set(notes.size - 1, note);
+            } else {
+                int low = 0;
+                int high = notes.size - 1;
+                while(low < high) {
+                    int mid = (low + high) >>> 1;
+                    if(Double.compare(notes.get(mid).getBeat(), note.getBeat()) < 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                if(Double.compare(notes.get(low).getBeat(), note.getBeat()) == 0) {
+                    notes.set(low, note);
+                } else {
+                    notes.insert(low, note);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Returns the note associated with the greatest beat on the given panel.
+         * @param panel the note panel.
+         * @return a note with the greatest beat, or null if there are no notes on the given panel
+         */
+        public Note lastNote(int panel) {
+            Array<Note> notes = panels.get(panel);
+            return notes != null && notes.size > 0 ? notes.peek() : null;
+        }
+
+        /**
+         * Builds the beatmap.
+         * @return the beatmap containing all the notes put so far.
+         */
+        public Beatmap build() {
+            IntMap<Column> columns = new IntMap<>(panels.size);
+            for(IntMap.Entry<Array<Note>> entry : panels.entries()) {
+                columns.put(entry.key, new Column(entry.value));
+            }
+            return new Beatmap(columns);
+        }
     }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.google.common.hash.Hashing;
+import net.sync.game.song.note.LengthyNote;
+import net.sync.game.song.note.Note;
+import net.sync.game.song.note.NoteType;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>Caches the timing data and the beatmap of charts inside a directory, in a compact binary format, so
+ * a chart can be loaded without parsing its sim file.</p>
+ * <p>Entries are keyed by the sim file path and the chart hash, since the same chart can be found inside
+ * different songs that don't share their timing data. Because timing data can be defined by the song rather
+ * than by the chart, each entry also stores the length and the last modified time of the sim file it has been
+ * created from, and it is ignored when they don't match anymore.</p>
+ * <p>An entry is made only of fixed width values and arrays, with the notes of each panel stored as
+ * columns like inside {@link Beatmap}, so it is read with bulk copies and can be memory mapped. The
+ * layout is the following (big endian):</p>
+ * <pre>
+ * int magic, int version, long sim file length, long sim file last modified
+ * double offset
+ * bpms, stops, delays, warps: int count, double[count] beats, double[count] values
+ * int panels
+ * for each panel: int panel, int count, double[count] beats, double[count] lengths, byte[count] types
+ * </pre>
+ */
+public class ChartCache {
+    /** The entries format version, must be increased when the layout changes **/
+    public static final int VERSION = 1;
+    private static final int MAGIC = 0x53594E43; //SYNC
+    private static final String EXTENSION = ".chart";
+
+    private final FileHandle directory;
+
+    /**
+     * Creates a chart cache.
+     * @param directory the directory that contains the entries, created when the first entry is written.
+     */
+    public ChartCache(FileHandle directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the timing data and the beatmap of the given chart.
+     * @param chart the chart, its hash and its song sim file must be set.
+     * @return true if the chart has been read, false if there's no valid entry for the chart.
+     * @throws IOException if the entry exists but cannot be read.
+     */
+    public boolean read(Chart chart) throws IOException {
+        File file = getFile(chart);
+        if(!file.isFile()) return false;
+
+        ByteBuffer buffer;
+        try(FileChannel channel = new FileInputStream(file).getChannel()) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while(buffer.hasRemaining()) {
+                if(channel.read(buffer) < 0) return false;
+            }
+            buffer.flip();
+        }
+
+        try {
+            //Check format and sim file
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return false;
+            FileHandle simFile = chart.song.simFile.getFile();
+            if(buffer.getLong() != simFile.length() || buffer.getLong() != simFile.lastModified()) return false;
+
+            //Timing data
+            TimingData timingData = new TimingData();
+            timingData.offset = buffer.getDouble();
+            timingData.bpms = getTimingMap(buffer);
+            timingData.stops = getTimingMap(buffer);
+            timingData.delays = getTimingMap(buffer);
+            timingData.warps = getTimingMap(buffer);
+
+            //Beatmap, notes are sorted by beat so the builder only appends them
+            Beatmap.Builder builder = new Beatmap.Builder();
+            int panels = buffer.getInt();
+            for(int p = 0; p < panels; p++) {
+                int panel = buffer.getInt();
+                int count = buffer.getInt();
+                double[] beats = getDoubles(buffer, count);
+                double[] lengths = getDoubles(buffer, count);
+                byte[] types = new byte[count];
+                buffer.get(types);
+                for(int i = 0; i < count; i++) {
+                    builder.putNote(panel, NoteType.newNote(types[i], beats[i], lengths[i]));
+                }
+            }
+
+            chart.timingData = timingData;
+            chart.beatmap = builder.build();
+            return true;
+        } catch(BufferUnderflowException | IllegalArgumentException e) {
+            //Truncated or corrupted entry
+            return false;
+        }
+    }
+
+    /**
+     * Writes the timing data and the beatmap of the given chart, replacing any previous entry.
+     * @param chart the chart, its hash, song sim file, timing data and beatmap must be set.
+     * @return true if the chart has been written, false if it contains notes that cannot be cached.
+     * @throws IOException if the entry cannot be written.
+     */
+    public boolean write(Chart chart) throws IOException {
+        checkArgument(chart.beatmap != null, "The chart beatmap must be loaded");
+        TimingData timingData = chart.timingData;
+        Beatmap beatmap = chart.beatmap;
+        int[] panels = beatmap.getPanels();
+
+        //Compute the entry size
+        int size = 4 + 4 + 8 + 8 + 8;
+        size += getTimingMapSize(timingData.bpms) + getTimingMapSize(timingData.stops);
+        size += getTimingMapSize(timingData.delays) + getTimingMapSize(timingData.warps);
+        size += 4;
+        for(int panel : panels) {
+            size += 4 + 4 + beatmap.countNotes(panel) * (8 + 8 + 1);
+        }
+
+        //Fill the entry
+        FileHandle simFile = chart.song.simFile.getFile();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(simFile.length()).putLong(simFile.lastModified());
+        buffer.putDouble(timingData.offset);
+        putTimingMap(buffer, timingData.bpms);
+        putTimingMap(buffer, timingData.stops);
+        putTimingMap(buffer, timingData.delays);
+        putTimingMap(buffer, timingData.warps);
+        buffer.putInt(panels.length);
+        for(int panel : panels) {
+            int count = beatmap.countNotes(panel);
+            buffer.putInt(panel).putInt(count);
+            for(int i = 0; i < count; i++) {
+                buffer.putDouble(beatmap.getBeatAt(panel, i));
+            }
+            for(int i = 0; i < count; i++) {
+                Note note = beatmap.getNoteAt(panel, i);
+                buffer.putDouble(note instanceof LengthyNote ? ((LengthyNote) note).getLength() : 0.0D);
+            }
+            for(int i = 0; i < count; i++) {
+                byte type = beatmap.getNoteTypeAt(panel, i);
+                if(type == NoteType.UNKNOWN) return false;
+                buffer.put(type);
+            }
+        }
+        buffer.flip();
+
+        //Write a temporary file first, so a partially written entry is never read
+        File dir = directory.file();
+        if(!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create chart cache directory " + dir);
+        }
+        File file = getFile(chart);
+        File temp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try(FileChannel channel = new FileOutputStream(temp).getChannel()) {
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            //Renaming doesn't replace existing files on every platform
+            if(!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                throw new IOException("Cannot write chart cache entry " + file);
+            }
+        } finally {
+            if(temp.exists()) temp.delete();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the entry of the given chart, if any.
+     * @param chart the chart, its hash and its song sim file must be set.
+     */
+    public void remove(Chart chart) {
+        getFile(chart).delete();
+    }
+
+    /**
+     * Gets the entry file of the given chart. The file is named after a hash of the sim file path and
+     * the chart hash, so it's a valid file name on every platform.
+     */
+    private File getFile(Chart chart) {
+        String key = chart.song.simFile.getFile().file().getAbsolutePath() + '\n' + chart.hash;
+        return directory.child(Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + EXTENSION).file();
+    }
+
+    private static int getTimingMapSize(TreeMap<Double, Double> map) {
+        return 4 + (map != null ? map.size() * (8 + 8) : 0);
+    }
+
+    private static void putTimingMap(ByteBuffer buffer, TreeMap<Double, Double> map) {
+        if(map == null) {
+            buffer.putInt(0);
+            return;
+        }
+        buffer.putInt(map.size());
+        for(Double beat : map.keySet()) {
+            buffer.putDouble(beat);
+        }
+        for(Double value : map.values()) {
+            buffer.putDouble(value);
+        }
+    }
+
+    private static TreeMap<Double, Double> getTimingMap(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if(count == 0) return null;
+        double[] beats = getDoubles(buffer, count);
+        double[] values = getDoubles(buffer, count);
+        TreeMap<Double, Double> map = new TreeMap<>();
+        for(int i = 0; i < count; i++) {
+            map.put(beats[i], values[i]);
+        }
+        return map;
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, int count) {
+        if(count < 0 || count > buffer.remaining() / 8) throw new BufferUnderflowException();
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * 8);
+        return values;
+    }
+}
@@ -66,6 +66,13 @@ public interface DisplayBPM {
         public int getBpmToShow() {
             return value;
         }
+
+        /**
+         * @return the bpm value.
+         */
+        public int getValue() {
+            return value;
+        }
     }
 
     /**
@@ -134,6 +141,20 @@ public interface DisplayBPM {
         protected void onTransitionEnd() {
             nextIsMax = !nextIsMax;
         }
+
+        /**
+         * @return the range left bound (minimum BPM value).
+         */
+        public int getMin() {
+            return min;
+        }
+
+        /**
+         * @return the range right bound (maximum BPM value).
+         */
+        public int getMax() {
+            return max;
+        }
     }
 
     /**
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.sync.game.song.SongIndexer.Change;
+import net.sync.game.song.SongIndexer.ChangeType;
+import net.sync.game.song.SongIndexer.IndexEntry;
+import net.sync.game.util.concurrent.ExecutorManager;
+import org.jooq.Condition;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static net.sync.game.database.schema.tables.Songs.SONGS;
+
+/**
+ * Indexes a whole song library in parallel. The library is made of pack directories, each one
+ * containing song directories.
+ * <ul>
+ *     <li>Song directories are discovered on the calling thread.</li>
+ *     <li>Each song directory is scanned (hashing and parsing) by a {@link SongIndexer} on a fixed pool
+ *     of workers.</li>
+ *     <li>The resulting changes are written by a single writer that groups them in batches, writing
+ *     each batch inside a single transaction. The connection is held while changes keep coming, and
+ *     released as soon as the queue is empty.</li>
+ * </ul>
+ * Songs in the index whose directory doesn't exist anymore are removed. A whole library can be indexed, or only
+ * some of its pack and song directories (e.g. the ones reported by a {@link LibraryWatcher}). Executors are
+ * registered with the {@link ExecutorManager} while indexing.
+ */
+public class LibraryIndexer {
+    /** The default maximum number of changes written in a single transaction **/
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    /** Changes that can be queued for each worker before workers wait for the writer **/
+    private static final int QUEUED_CHANGES_PER_WORKER = 16;
+    /** Time producers wait for space in the changes queue before checking that the writer is still running **/
+    private static final long QUEUE_TIMEOUT_MILLIS = 100;
+    /** Time the writer waits for more changes to fill a batch before writing it **/
+    private static final long BATCH_TIMEOUT_MILLIS = 50;
+    /** Marks the end of the changes queue **/
+    private static final Change END = new Change(ChangeType.NONE, null, null, null, null, 0L, 0L, null);
+
+    private DSLContext database;
+    private ExecutorManager executors;
+    private int workers;
+    private int batchSize;
+
+    /**
+     * Creates a library indexer that uses a worker for each available processor.
+     * @param database the database context.
+     * @param executors the executor manager the indexing executors are registered with.
+     */
+    public LibraryIndexer(DSLContext database, ExecutorManager executors) {
+        this(database, executors, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a library indexer.
+     * @param database the database context.
+     * @param executors the executor manager the indexing executors are registered with.
+     * @param workers the number of threads scanning song directories.
+     * @param batchSize the maximum number of changes written in a single transaction.
+     */
+    public LibraryIndexer(DSLContext database, ExecutorManager executors, int workers, int batchSize) {
+        checkArgument(workers > 0, "workers must be positive");
+        checkArgument(batchSize > 0, "batchSize must be positive");
+        this.database = database;
+        this.executors = executors;
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Indexes the songs inside the given library directory. Blocks until the index is up to date.
+     * @param root the library directory.
+     * @return the number of songs found inside the library.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public int index(FileHandle root) throws InterruptedException {
+        checkArgument(root.isDirectory(), "root parameter must be a directory!");
+        return index(root, getIndexEntries(DSL.trueCondition()), Arrays.asList(root.list(File::isDirectory)),
+                Collections.emptyList(), pack -> true);
+    }
+
+    /**
+     * Indexes only the given pack and song directories of a library. Directories that don't exist anymore
+     * are removed from the index. Blocks until the index is up to date.
+     * @param root the library directory.
+     * @param directories the pack or song directories to index, children of the library directory.
+     * @return the number of songs found inside the given directories.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public int update(FileHandle root, Collection<FileHandle> directories) throws InterruptedException {
+        String rootPath = root.file().getAbsolutePath();
+        List<FileHandle> packDirectories = new ArrayList<>();
+        List<FileHandle> songDirectories = new ArrayList<>();
+        Set<String> packs = new HashSet<>();
+        Set<String> updatedPacks = new HashSet<>();
+        for(FileHandle directory : directories) {
+            File parent = directory.file().getAbsoluteFile().getParentFile();
+            checkArgument(parent != null, "%s is not inside the library", directory);
+            if(parent.getPath().equals(rootPath)) {
+                packDirectories.add(directory);
+                updatedPacks.add(directory.name());
+                packs.add(directory.name());
+            } else {
+                checkArgument(parent.getParent() != null && parent.getParent().equals(rootPath),
+                        "%s is not a pack or a song directory", directory);
+                songDirectories.add(directory);
+                packs.add(parent.getName());
+            }
+        }
+        if(packs.isEmpty()) return 0;
+        return index(root, getIndexEntries(SONGS.PACK.in(packs)), packDirectories, songDirectories, updatedPacks::contains);
+    }
+
+    /**
+     * Indexes the songs inside the given directories.
+     * @param root the library directory.
+     * @param entries the index entries of the songs that could be inside the given directories.
+     * @param packDirectories pack directories whose song directories are all indexed.
+     * @param songDirectories song directories to index.
+     * @param removeStale tells whether entries of the given pack that have not been scanned must be removed.
+     * @return the number of songs found.
+     */
+    private int index(FileHandle root, Map<String, IndexEntry> entries, Iterable<FileHandle> packDirectories,
+                      Iterable<FileHandle> songDirectories, Predicate<String> removeStale) throws InterruptedException {
+        BlockingQueue<Change> changes = new ArrayBlockingQueue<>(workers * QUEUED_CHANGES_PER_WORKER);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers,
+                new ThreadFactoryBuilder().setNameFormat("Song Indexer %d").setDaemon(true).build());
+        ExecutorService writer = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("Song Index Writer").setDaemon(true).build());
+        int poolId = executors.generateId();
+        int writerId = executors.generateId();
+        executors.putExecutor(poolId, pool);
+        executors.putExecutor(writerId, writer);
+
+        try {
+            Future<Integer> writing = writer.submit(() -> write(changes));
+
+            //Discover song directories and scan them on the pool
+            List<Future<Boolean>> scans = new ArrayList<>();
+            Set<String> scanned = new HashSet<>();
+            for(FileHandle packDirectory : packDirectories) {
+                for(FileHandle songDirectory : packDirectory.list(File::isDirectory)) {
+                    scans.add(scan(pool, packDirectory.name(), songDirectory, entries, scanned, changes, writing));
+                }
+            }
+            for(FileHandle songDirectory : songDirectories) {
+                String pack = songDirectory.parent().name();
+                if(scanned.contains(key(pack, songDirectory.name()))) continue;
+                if(songDirectory.isDirectory()) {
+                    scans.add(scan(pool, pack, songDirectory, entries, scanned, changes, writing));
+                } else if(entries.remove(key(pack, songDirectory.name())) != null) {
+                    put(changes, new Change(ChangeType.REMOVE, pack, songDirectory, null, null, 0L, 0L, null), writing);
+                }
+            }
+
+            //Remaining cached songs have no directory anymore
+            for(Map.Entry<String, IndexEntry> entry : entries.entrySet()) {
+                String key = entry.getKey();
+                String pack = key.substring(0, key.indexOf('/'));
+                if(!removeStale.apply(pack)) continue;
+                FileHandle songDirectory = root.child(pack).child(key.substring(pack.length() + 1));
+                put(changes, new Change(ChangeType.REMOVE, pack, songDirectory, null, null, 0L, 0L, null), writing);
+            }
+
+            int songs = 0;
+            for(Future<Boolean> scan : scans) {
+                if(get(scan)) songs++;
+            }
+            put(changes, END, writing);
+            get(writing);
+            return songs;
+        } finally {
+            executors.removeExecutor(poolId);
+            executors.removeExecutor(writerId);
+        }
+    }
+
+    /**
+     * Submits the scan of a song directory to the pool.
+     */
+    private Future<Boolean> scan(ExecutorService pool, String pack, FileHandle songDirectory,
+                                 Map<String, IndexEntry> entries, Set<String> scanned,
+                                 BlockingQueue<Change> changes, Future<Integer> writing) {
+        String key = key(pack, songDirectory.name());
+        IndexEntry entry = entries.remove(key);
+        scanned.add(key);
+        return pool.submit(() -> scan(pack, songDirectory, entry, changes, writing));
+    }
+
+    /**
+     * Scans a song directory and queues the resulting change.
+     * @return true if a song has been found inside the directory.
+     */
+    private boolean scan(String pack, FileHandle songDirectory, IndexEntry entry, BlockingQueue<Change> changes,
+                         Future<Integer> writing) throws InterruptedException {
+        Change change;
+        try {
+            change = new SongIndexer(pack, songDirectory).scan(entry);
+        } catch(Exception e) {
+            Gdx.app.error("Song Indexer", String.format("Cannot index song %s/%s", pack, songDirectory.name()), e);
+            //Keep the cached version of the song, if any
+            return entry != null;
+        }
+        if(change.type != ChangeType.NONE) {
+            put(changes, change, writing);
+        }
+        return change.type != ChangeType.REMOVE;
+    }
+
+    /**
+     * Queues a change for the writer, waiting for space in the queue while the writer is running. Nobody
+     * drains the queue once the writer has stopped, so the writer failure is thrown instead of waiting forever.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private static void put(BlockingQueue<Change> changes, Change change, Future<Integer> writing)
+            throws InterruptedException {
+        while(!changes.offer(change, QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if(writing.isDone()) {
+                get(writing);
+                throw new IllegalStateException("The index writer stopped before the end of the changes");
+            }
+        }
+    }
+
+    /**
+     * Writes the queued changes in batches until the end of the queue is reached. The connection and the writer
+     * statements are kept while there are queued changes, and released once the queue is empty so other users
+     * of the database are not locked out between bursts of changes.
+     * @return the number of changes written.
+     */
+    private int write(BlockingQueue<Change> changes) throws InterruptedException {
+        List<Change> batch = new ArrayList<>(batchSize);
+        int written = 0;
+        boolean end = false;
+
+        while(!end) {
+            //Wait for a change before acquiring the connection
+            Change change = changes.take();
+            if(change == END) break;
+
+            ConnectionProvider connectionProvider = database.configuration().connectionProvider();
+            Connection connection = connectionProvider.acquire();
+            try {
+                DSLContext writerDatabase = DSL.using(connection, database.dialect());
+                try(SongIndexer.Writer writer = new SongIndexer.Writer(writerDatabase)) {
+                    while(!end && change != null) {
+                        batch.add(change);
+                        end = fill(changes, batch);
+                        written += writeBatch(writerDatabase, writer, batch);
+                        batch.clear();
+                        if(!end) {
+                            //Keep the connection only while there are queued changes
+                            change = changes.poll();
+                            end = change == END;
+                        }
+                    }
+                }
+            } finally {
+                connectionProvider.release(connection);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Fills a batch with the queued changes, waiting a short time for the changes still being scanned.
+     * @param changes the changes queue.
+     * @param batch the batch to fill, not empty.
+     * @return true if the end of the queue has been reached.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    private boolean fill(BlockingQueue<Change> changes, List<Change> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_TIMEOUT_MILLIS);
+        while(batch.size() < batchSize) {
+            Change change = changes.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if(change == null) return false;
+            if(change == END) return true;
+            batch.add(change);
+        }
+        return false;
+    }
+
+    /**
+     * Writes a batch of changes inside a single transaction.
+     * @param writerDatabase the database context of the writer connection.
+     * @param writer the writer.
+     * @param batch the changes to write.
+     * @return the number of changes written, zero if the transaction failed.
+     */
+    private static int writeBatch(DSLContext writerDatabase, SongIndexer.Writer writer, List<Change> batch) {
+        try {
+            writerDatabase.transaction(configuration -> writer.write(batch));
+            return batch.size();
+        } catch(RuntimeException e) {
+            Gdx.app.error("Song Indexer", "Cannot write songs to the index", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the index entries of the songs matching the given condition.
+     * @param condition the condition on the songs table.
+     * @return a map where the keys are made of pack and directory name, and values are the entries.
+     */
+    private Map<String, IndexEntry> getIndexEntries(Condition condition) {
+        Map<String, IndexEntry> entries = new HashMap<>();
+        for(Record record : database.select(SONGS.PACK, SONGS.DIRECTORY).select(IndexEntry.FIELDS).from(SONGS).where(condition).fetch()) {
+            entries.put(key(record.get(SONGS.PACK), record.get(SONGS.DIRECTORY)), new IndexEntry(record));
+        }
+        return entries;
+    }
+
+    private static String key(String pack, String directory) {
+        return pack + '/' + directory;
+    }
+
+    /**
+     * Waits for the given future, rethrowing unchecked exceptions.
+     */
+    private static <T> T get(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if(cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Watches a song library for changes. Changed files are mapped to the pack or song directory that contains them,
+ * changes are debounced and the affected directories are reported to a {@link Listener}, so that only those
+ * directories are indexed again. Subclasses detect the changes and report them with {@link #invalidate(FileHandle)}.
+ * <p>
+ * Listeners are called on the watcher thread, one call at a time. The watcher must be disposed when it is no
+ * longer required.
+ */
+public abstract class LibraryWatcher implements Disposable {
+    /** The default time to wait for further changes before reporting them, in milliseconds **/
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 1000;
+
+    protected final FileHandle root;
+    private final File rootFile;
+    private final Listener listener;
+    private final long debounceMillis;
+    private final ScheduledExecutorService executor;
+    private final Set<FileHandle> pending = new HashSet<>();
+    private ScheduledFuture<?> flush;
+
+    /**
+     * Creates a library watcher.
+     * @param root the library directory.
+     * @param listener the listener notified with the changed directories.
+     * @param debounceMillis the time to wait for further changes before reporting them, in milliseconds.
+     */
+    public LibraryWatcher(FileHandle root, Listener listener, long debounceMillis) {
+        checkArgument(debounceMillis >= 0, "debounceMillis cannot be negative");
+        this.root = checkNotNull(root);
+        this.rootFile = root.file().getAbsoluteFile();
+        this.listener = checkNotNull(listener);
+        this.debounceMillis = debounceMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("Library Watcher").setDaemon(true).build());
+    }
+
+    /**
+     * Starts watching the library.
+     */
+    public abstract void start();
+
+    /**
+     * Marks a file of the library as changed. The pack or song directory containing the file will be reported
+     * to the listener once no other change happens for the debounce time. Invalidating the library directory
+     * reports the whole library.
+     * @param file a file or directory inside the library.
+     */
+    public void invalidate(FileHandle file) {
+        FileHandle directory = getLibraryDirectory(file);
+        if(directory == null) return;
+
+        synchronized(pending) {
+            pending.add(directory);
+            if(flush != null) {
+                flush.cancel(false);
+            }
+            flush = executor.schedule(this::flush, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets the executor of the watcher. Tasks submitted to this executor are never executed while the
+     * listener is being notified.
+     * @return the watcher executor.
+     */
+    protected ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the directory to report when the given file changes.
+     * @param file a file or directory inside the library.
+     * @return the song directory, the pack directory, the library directory or null if the file is
+     * outside the library.
+     */
+    private FileHandle getLibraryDirectory(FileHandle file) {
+        File current = file.file().getAbsoluteFile();
+        File pack = null;
+        File song = null;
+        while(!current.equals(rootFile)) {
+            song = pack;
+            pack = current;
+            current = current.getParentFile();
+            if(current == null) return null;
+        }
+        if(pack == null) return root;
+        return new FileHandle(song != null ? song : pack);
+    }
+
+    /**
+     * Reports the pending directories to the listener.
+     */
+    private void flush() {
+        Set<FileHandle> directories;
+        synchronized(pending) {
+            if(pending.isEmpty()) return;
+            directories = new HashSet<>(pending);
+            pending.clear();
+        }
+        if(directories.contains(root)) {
+            directories = Collections.singleton(root);
+        }
+
+        try {
+            listener.onLibraryChanged(root, Collections.unmodifiableSet(directories));
+        } catch(RuntimeException e) {
+            Gdx.app.error("Library Watcher", "Cannot index changed directories", e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Notified when directories of the library change.
+     */
+    public interface Listener {
+        /**
+         * Called when directories of the library have changed.
+         * @param root the library directory.
+         * @param directories the changed pack and song directories. If the whole library must be indexed
+         *                    again it contains only the library directory.
+         */
+        void onLibraryChanged(FileHandle root, Set<FileHandle> directories);
+    }
+}
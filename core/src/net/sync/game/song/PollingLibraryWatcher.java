@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.song.sim.SimFormat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A library watcher that periodically lists the song directories of the library and compares the stats of
+ * their sim files with the previous listing. Used where native file system notifications are not available.
+ */
+public class PollingLibraryWatcher extends LibraryWatcher {
+    /** The default time between two listings of the library, in milliseconds **/
+    public static final long DEFAULT_INTERVAL_MILLIS = 10000;
+
+    private final long intervalMillis;
+    private Map<FileHandle, Long> stamps;
+
+    /**
+     * Creates a polling library watcher with the default interval and debounce time.
+     * @param root the library directory.
+     * @param listener the listener notified with the changed directories.
+     */
+    public PollingLibraryWatcher(FileHandle root, Listener listener) {
+        this(root, listener, DEFAULT_INTERVAL_MILLIS, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Creates a polling library watcher.
+     * @param root the library directory.
+     * @param listener the listener notified with the changed directories.
+     * @param intervalMillis the time between two listings of the library, in milliseconds.
+     * @param debounceMillis the time to wait for further changes before reporting them, in milliseconds.
+     */
+    public PollingLibraryWatcher(FileHandle root, Listener listener, long intervalMillis, long debounceMillis) {
+        super(root, listener, debounceMillis);
+        checkArgument(intervalMillis > 0, "intervalMillis must be positive");
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public void start() {
+        getExecutor().scheduleWithFixedDelay(this::poll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lists the library and invalidates song directories that have been added, removed or whose sim files
+     * have changed. The first listing is only stored.
+     */
+    private void poll() {
+        try {
+            Map<FileHandle, Long> current = list();
+            if(stamps == null) {
+                stamps = current;
+                return;
+            }
+            for(Map.Entry<FileHandle, Long> entry : current.entrySet()) {
+                if(!entry.getValue().equals(stamps.remove(entry.getKey()))) {
+                    invalidate(entry.getKey());
+                }
+            }
+            for(FileHandle removed : stamps.keySet()) {
+                invalidate(removed);
+            }
+            stamps = current;
+        } catch(RuntimeException e) {
+            Gdx.app.error("Library Watcher", "Cannot list library " + root, e);
+        }
+    }
+
+    /**
+     * Lists the song directories of the library.
+     * @return a map where keys are song directories and values are a stamp of their sim files stats.
+     */
+    private Map<FileHandle, Long> list() {
+        Map<FileHandle, Long> stamps = new HashMap<>();
+        for(FileHandle packDirectory : root.list(File::isDirectory)) {
+            for(FileHandle songDirectory : packDirectory.list(File::isDirectory)) {
+                long stamp = 1;
+                for(FileHandle file : songDirectory.list(File::isFile)) {
+                    if(SimFormat.valueFromExtension(file.extension()) != null) {
+                        stamp = 31 * stamp + file.name().hashCode();
+                        stamp = 31 * stamp + file.length();
+                        stamp = 31 * stamp + file.lastModified();
+                    }
+                }
+                stamps.put(songDirectory, stamp);
+            }
+        }
+        return stamps;
+    }
+}
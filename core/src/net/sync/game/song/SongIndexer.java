@@ -24,12 +24,28 @@ package net.sync.game.song;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import net.sync.game.database.schema.tables.records.ChartsRecord;
+import net.sync.game.database.schema.tables.records.SongsRecord;
 import net.sync.game.song.sim.SimFile;
+import net.sync.game.song.sim.SimHashFunction;
 import net.sync.game.util.concurrent.Task;
 import org.jooq.Configuration;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
 import org.jooq.impl.DSL;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -45,12 +61,30 @@ import static net.sync.game.database.schema.tables.Songs.SONGS;
  *     already present in the index</li>
  *     <li>Remove song: remove the song from the index (if present) if there is no sim file in the given
  *     directory </li>
- *     <li>Update song: update the song in the index if the sim file has changed. If updating the song is not
- *     feasible remove the song from the index and add the new version of the song </li>
+ *     <li>Update song: update the song in the index if the sim file has changed. Song columns are updated in
+ *     place and only the charts that have changed are replaced </li>
  * </ul>
  * The result of the task is a boolean that is true when a song has been found inside the given directory.
+ * <p>Indexing is split in two steps so that many directories can be indexed in parallel (see
+ * {@link LibraryIndexer}): {@link #scan(IndexEntry)} reads and parses the sim file without accessing the database,
+ * a {@link Writer} writes the resulting changes reusing its prepared statements.</p>
+ * <p>The sim file size and last modified time are stored in the index: when they are unchanged the song is
+ * considered up to date and the sim file is neither hashed nor parsed, unless the song has been hashed with
+ * another {@link SimHashFunction}: its chart hashes wouldn't match the ones computed when loading a chart.</p>
  */
 public class SongIndexer extends Task<Boolean> {
+    /** Fields set when inserting a song, in the order used by the batch insert **/
+    private static final Field<?>[] SONG_FIELDS = {
+            SONGS.ID, SONGS.PACK, SONGS.DIRECTORY, SONGS.HASH, SONGS.SIM_PATH, SONGS.FORMAT, SONGS.TITLE,
+            SONGS.SUBTITLE, SONGS.ARTIST, SONGS.GENRE, SONGS.BANNER_PATH, SONGS.BACKGROUND_PATH, SONGS.ALBUM,
+            SONGS.MUSIC_PATH, SONGS.SAMPLE_START, SONGS.SAMPLE_LENGTH, SONGS.FILE_SIZE, SONGS.LAST_MODIFIED
+    };
+    /** Fields set when inserting a chart, in the order used by the batch insert **/
+    private static final Field<?>[] CHART_FIELDS = {
+            CHARTS.ID, CHARTS.SONG_ID, CHARTS.HASH, CHARTS.DIFFICULTY_CLASS, CHARTS.DIFFICULTY_METER,
+            CHARTS.NAME, CHARTS.DESCRIPTION, CHARTS.CREDIT, CHARTS.CHART_TYPE, CHARTS.BPM_MIN, CHARTS.BPM_MAX
+    };
+
     private String pack;
     private FileHandle directory;
     private Configuration config;
@@ -62,115 +96,601 @@ public class SongIndexer extends Task<Boolean> {
         this.config = config;
     }
 
+    /**
+     * Creates an indexer that doesn't access the database. It can be used only to {@link #scan(IndexEntry)}
+     * the directory.
+     * @param pack the pack the song belongs to.
+     * @param directory the song directory.
+     */
+    public SongIndexer(String pack, FileHandle directory) {
+        this(pack, directory, null);
+    }
+
     @Override
     protected Boolean call() throws Exception {
         //Check if there is a song inside the given folder and delete, update or add it.
         //Will return true if a song exists in the given directory, false otherwise.
         DSLContext database = DSL.using(config);
+        Change change = scan(getIndexEntry(database));
+        database.connection(connection -> {
+            try(Writer writer = new Writer(DSL.using(connection, database.dialect()))) {
+                writer.write(Collections.singletonList(change));
+            }
+        });
+        return change.type != ChangeType.REMOVE;
+    }
+
+    /**
+     * Searches the song in the directory and computes the change to apply to the index. This method doesn't
+     * access the database and can be called from any thread.
+     * @param entry the index entry of the cached song, or null if the song is not cached.
+     * @return the change to apply to the index.
+     * @throws Exception if the song cannot be loaded.
+     */
+    public Change scan(IndexEntry entry) throws Exception {
         SimFile simFile = SimFile.searchSimFile(directory, format -> settings().getSimFormatPriority(format));
 
         if(simFile != null) {
             //The song directory contains a sim file
-            String cachedHash = getCachedHash(database);
+            FileHandle file = simFile.getFile();
+            long fileSize = file.length();
+            long lastModified = file.lastModified();
+
+            if(entry != null && entry.isUnchanged(file.name(), fileSize, lastModified)
+                    && entry.isHashedWith(settings().getSimHashFunction())) {
+                //Sim file stats are unchanged, skip hashing and parsing
+                return new Change(ChangeType.NONE, pack, directory, simFile, entry.hash, fileSize, lastModified, null);
+            }
+
             String hash = simFile.computeHash();
 
-            if(cachedHash == null) {
+            if(entry == null) {
                 //Song is not in the index. Add the song to the index
-                addSong(database, simFile, hash);
-            } else if(!cachedHash.equals(hash)) {
-                //Song is already in the index but the sim file has changed. Update if possible
-                updateSong(database, cachedHash);
+                return new Change(ChangeType.ADD, pack, directory, simFile, hash, fileSize, lastModified, loadSong(simFile));
+            } else if(!entry.hash.equals(hash)) {
+                //Song is already in the index but the sim file has changed. Update it
+                return new Change(ChangeType.UPDATE, pack, directory, simFile, hash, fileSize, lastModified, loadSong(simFile));
             }
-            return true;
+            //Sim file content is unchanged, store its new stats
+            return new Change(ChangeType.TOUCH, pack, directory, simFile, hash, fileSize, lastModified, null);
         } else {
             //The song directory doesn't contain a sim file. If there is a song in the index at this directory
             //it should be removed from the index because the sim file isn't available anymore.
-            removeSong(database);
-            return false;
+            return new Change(ChangeType.REMOVE, pack, directory, null, null, 0L, 0L, null);
         }
     }
 
     /**
-     * Adds the song to the index.
-     * @param database the database context.
-     * @param hash the sim file hash.
+     * Loads the song metadata only, the index doesn't store timing data.
+     * @param simFile the song sim file.
+     * @return the loaded song.
+     * @throws Exception if the song cannot be loaded.
      */
-    private void addSong(DSLContext database, SimFile simFile, String hash) throws Exception {
-        //Load the song
-        Song song = new SongLoader(pack, simFile).call();
-
-        //Insert the song into the database and get the song id
-        int songId = database.insertInto(SONGS)
-                .set(SONGS.PACK, song.pack)
-                .set(SONGS.DIRECTORY, song.directory.name())
-                .set(SONGS.HASH, hash)
-                .set(SONGS.SIM_PATH, simFile.getFile().name())
-                .set(SONGS.FORMAT, simFile.getFormat().name())
-                .set(SONGS.TITLE, song.title)
-                .set(SONGS.SUBTITLE, song.subtitle)
-                .set(SONGS.ARTIST, song.artist)
-                .set(SONGS.GENRE, song.genre)
-                .set(SONGS.BANNER_PATH, song.bannerPath)
-                .set(SONGS.BACKGROUND_PATH, song.backgroundPath)
-                .set(SONGS.ALBUM, song.album)
-                .set(SONGS.MUSIC_PATH, song.musicPath)
-                .set(SONGS.SAMPLE_START, song.sampleStart)
-                .set(SONGS.SAMPLE_LENGTH, song.sampleLength)
-                .returning(SONGS.ID)
-                .fetchOne()
-                .getValue(SONGS.ID);
-
-        //Insert each chart into the database
-        for(Chart chart : song.charts)
-            database.insertInto(CHARTS)
-                    .set(CHARTS.ID, UUID.randomUUID().toString()) //TODO compute unique
-                    .set(CHARTS.SONG_ID, songId)
-                    .set(CHARTS.HASH, chart.hash)
-                    .set(CHARTS.DIFFICULTY_CLASS, chart.difficultyClass.name())
-                    .set(CHARTS.DIFFICULTY_METER, chart.difficultyMeter)
-                    //TODO.set(CHARTS.DISPLAY_BPM, chart.displayBPM)
-                    .set(CHARTS.NAME, chart.name)
-                    .set(CHARTS.DESCRIPTION, chart.description)
-                    .set(CHARTS.CREDIT, chart.credit)
-                    .execute();
-
-        Gdx.app.log("Song Indexer", String.format("Add song %s/%s with hash %s", pack, directory.name(), hash));
+    private Song loadSong(SimFile simFile) throws Exception {
+        return new SongLoader(pack, simFile, true).call();
     }
 
     /**
-     * Removes the song from the index if present.
-     * @param database the database context.
+     * Gets the values of the {@link #SONG_FIELDS} for the given change.
+     * @param songId the song id.
+     * @param change an add or update change.
+     * @return the song values.
      */
-    private void removeSong(DSLContext database) {
-        database.deleteFrom(SONGS)
-                .where(SONGS.PACK.eq(pack).and(SONGS.DIRECTORY.eq(directory.name())))
-                .execute();
+    private static Object[] getSongValues(int songId, Change change) {
+        Song song = change.song;
+        return new Object[] {
+                songId,
+                song.pack,
+                song.directory.name(),
+                change.hash,
+                song.simFile.getFile().name(),
+                song.simFile.getFormat().name(),
+                song.title,
+                song.subtitle,
+                song.artist,
+                song.genre,
+                song.bannerPath,
+                song.backgroundPath,
+                song.album,
+                song.musicPath,
+                song.sampleStart,
+                song.sampleLength,
+                change.fileSize,
+                change.lastModified
+        };
+    }
+
+    /**
+     * Gets the BPM range of a chart: the display BPM when it is a static value or a range, the BPMs of the
+     * timing data otherwise.
+     * @param chart the chart.
+     * @return the minimum and maximum BPM, or null if they are unknown.
+     */
+    private static float[] getBpmRange(Chart chart) {
+        if(chart.displayBPM instanceof DisplayBPM.StaticDisplayBPM) {
+            int value = ((DisplayBPM.StaticDisplayBPM) chart.displayBPM).getValue();
+            return new float[] {value, value};
+        }
+        if(chart.displayBPM instanceof DisplayBPM.RangeDisplayBPM) {
+            DisplayBPM.RangeDisplayBPM range = (DisplayBPM.RangeDisplayBPM) chart.displayBPM;
+            return new float[] {
+                    Math.min(range.getMin(), range.getMax()),
+                    Math.max(range.getMin(), range.getMax())
+            };
+        }
+        if(chart.timingData == null || chart.timingData.bpms == null) return null;
 
-        Gdx.app.log("Song Indexer", String.format("Remove song %s/%s", pack, directory.name()));
+        float min = Float.MAX_VALUE;
+        float max = 0.0f;
+        for(double bpm : chart.timingData.bpms.values()) {
+            //Negative BPMs are used as warps
+            if(bpm > 0.0D) {
+                min = Math.min(min, (float) bpm);
+                max = Math.max(max, (float) bpm);
+            }
+        }
+        return max > 0.0f ? new float[] {min, max} : null;
     }
 
     /**
-     * Attempts to update the song in the index. If updating the song is not feasible
-     * deletes it and adds a new song.
-     * @param database the database context.
-     * @param hash the sim file hash.
+     * Gets the values of the {@link #CHART_FIELDS} of the given chart. The BPM range is derived from the song
+     * timing data when the chart doesn't have its own, so it can change while the chart hash doesn't.
+     * @param chartId the chart id.
+     * @param songId the song id.
+     * @param chart the chart.
+     * @return the values, in the order of the fields.
      */
-    private void updateSong(DSLContext database ,String hash) {
-        //TODO
+    private static Object[] getChartValues(String chartId, int songId, Chart chart) {
+        float[] bpms = getBpmRange(chart);
+        return new Object[] {
+                chartId,
+                songId,
+                chart.hash,
+                chart.difficultyClass != null ? chart.difficultyClass.name() : null,
+                chart.difficultyMeter,
+                chart.name,
+                chart.description,
+                chart.credit,
+                chart.type != null ? chart.type.name() : null,
+                bpms != null ? bpms[0] : null,
+                bpms != null ? bpms[1] : null
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setIfChanged(Record record, Field<T> field, Object value) {
+        if(!Objects.equals(record.get(field), value)) {
+            record.set(field, (T) value);
+        }
+    }
 
-        Gdx.app.log("Song Indexer", "Song updated");
+    /**
+     * Gets the id that will be assigned to the next inserted song. Song ids are autoincrement, so ids of deleted
+     * songs must not be reused: the next id follows the largest id ever assigned, that SQLite keeps in the
+     * sqlite_sequence table, rather than the largest id still in the songs table.
+     * @param database the database context.
+     * @return the next song id.
+     */
+    private static int nextSongId(DSLContext database) {
+        Integer lastId = database.select(DSL.field(DSL.name("seq"), Integer.class))
+                .from(DSL.table(DSL.name("sqlite_sequence")))
+                .where(DSL.field(DSL.name("name"), String.class).eq(SONGS.getName()))
+                .fetchOne(0, Integer.class);
+        return lastId == null ? 1 : lastId + 1;
     }
 
     /**
-     * Gets the hash of the sim file that generated the cached version of the song into the index.
+     * Gets the index entry of the cached version of the song.
      * @param database the database context.
-     * @return the hash of the cached song's sim file, or null if the song is not cached
+     * @return the index entry of the cached song, or null if the song is not cached
      */
-    private String getCachedHash(DSLContext database) {
-        return database
-                .select(SONGS.HASH)
+    private IndexEntry getIndexEntry(DSLContext database) {
+        Record record = database
+                .select(IndexEntry.FIELDS)
                 .from(SONGS)
                 .where(SONGS.PACK.eq(pack).and(SONGS.DIRECTORY.eq(directory.name())))
-                .fetchOne(SONGS.HASH);
+                .fetchOne();
+        return record != null ? new IndexEntry(record) : null;
+    }
+
+    /**
+     * Writes changes to the index. Statements are prepared when first needed and reused by the following writes
+     * until the writer is closed, so a writer should be used for all the changes written while holding a
+     * connection. A writer uses a single connection and must be used by one thread at a time.
+     */
+    public static class Writer implements AutoCloseable {
+        private final DSLContext database;
+        private final List<Query> statements = new ArrayList<>();
+        private int nextSongId;
+        private ResultQuery<SongsRecord> songSelect;
+        private ResultQuery<ChartsRecord> chartSelect;
+        private Query songInsert;
+        private Query songUpdate;
+        private Query songTouch;
+        private Query songDelete;
+        private Query chartInsert;
+        private Query chartUpdate;
+        private Query chartDelete;
+        private Query searchInsert;
+        private Query searchDelete;
+
+        /**
+         * Creates an index writer.
+         * @param database a database context bound to a single connection.
+         */
+        public Writer(DSLContext database) {
+            this.database = database;
+        }
+
+        /**
+         * Writes the given changes into the index. Updated songs are diffed with their cached version.
+         * @param changes the changes to write. They should be written inside a transaction.
+         */
+        public void write(List<Change> changes) {
+            //Songs could have been added since the previous write
+            nextSongId = -1;
+
+            for(Change change : changes) {
+                switch(change.type) {
+                    case ADD:
+                        addSong(change);
+                        break;
+                    case REMOVE:
+                        //Songs are removed from the search index before being deleted
+                        execute(searchDelete(), change.pack, change.directory.name());
+                        execute(songDelete(), change.pack, change.directory.name());
+                        Gdx.app.log("Song Indexer", String.format("Remove song %s/%s", change.pack, change.directory.name()));
+                        break;
+                    case TOUCH:
+                        execute(songTouch(), change.simFile.getFile().name(), change.simFile.getFormat().name(),
+                                change.fileSize, change.lastModified, change.pack, change.directory.name());
+                        break;
+                    case UPDATE:
+                        updateSong(change);
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Inserts the song and its charts.
+         * @param change the add change.
+         */
+        private void addSong(Change change) {
+            //Song ids are assigned here so that charts can be inserted without fetching the song id
+            if(nextSongId == -1) {
+                nextSongId = SongIndexer.nextSongId(database);
+            }
+            int songId = nextSongId++;
+            execute(songInsert(), getSongValues(songId, change));
+
+            for(Chart chart : change.song.charts)
+                insertChart(songId, chart);
+            execute(searchInsert(), songId, change.song.title, change.song.artist);
+
+            Gdx.app.log("Song Indexer", String.format("Add song %s/%s with hash %s", change.pack, change.directory.name(), change.hash));
+        }
+
+        /**
+         * Updates the song in the index. The song columns are updated in place, charts are matched with the
+         * cached ones by hash: only new charts are inserted and only charts that don't exist anymore are deleted.
+         * Matched charts are updated when their columns derived from the song, such as the BPM range, have changed.
+         * If the song is not in the index anymore it is added.
+         * @param change the update change.
+         */
+        private void updateSong(Change change) {
+            songSelect().bind(1, change.pack);
+            songSelect().bind(2, change.directory.name());
+            SongsRecord record = songSelect().fetchOne();
+            if(record == null) {
+                addSong(change);
+                return;
+            }
+
+            //Update changed song columns
+            int songId = record.getId();
+            Object[] values = getSongValues(songId, change);
+            for(int i = 0; i < SONG_FIELDS.length; i++) {
+                setIfChanged(record, SONG_FIELDS[i], values[i]);
+            }
+            if(record.changed(SONGS.TITLE) || record.changed(SONGS.ARTIST)) {
+                execute(searchInsert(), songId, change.song.title, change.song.artist);
+            }
+            if(record.changed()) {
+                //Values without the id, followed by the id
+                Object[] updateValues = Arrays.copyOfRange(values, 1, values.length + 1);
+                updateValues[values.length - 1] = songId;
+                execute(songUpdate(), updateValues);
+            }
+
+            //Charts with the same hash have the same notes, but columns derived from the song (e.g. the BPM range)
+            //can have changed
+            ListMultimap<String, ChartsRecord> cachedCharts = ArrayListMultimap.create();
+            chartSelect().bind(1, songId);
+            for(ChartsRecord chart : chartSelect().fetch()) {
+                cachedCharts.put(chart.getHash(), chart);
+            }
+            int added = 0;
+            int updated = 0;
+            for(Chart chart : change.song.charts) {
+                List<ChartsRecord> cached = cachedCharts.get(chart.hash);
+                if(cached.isEmpty()) {
+                    insertChart(songId, chart);
+                    added++;
+                } else if(updateChart(songId, cached.remove(cached.size() - 1), chart)) {
+                    updated++;
+                }
+            }
+            for(ChartsRecord chart : cachedCharts.values()) {
+                execute(chartDelete(), chart.getId());
+            }
+
+            Gdx.app.log("Song Indexer", String.format("Update song %s/%s with hash %s, %d charts added, %d updated, %d removed",
+                    change.pack, change.directory.name(), change.hash, added, updated, cachedCharts.size()));
+        }
+
+        private void insertChart(int songId, Chart chart) {
+            //TODO compute unique
+            execute(chartInsert(), getChartValues(UUID.randomUUID().toString(), songId, chart));
+        }
+
+        /**
+         * Updates the changed columns of a cached chart with the same hash of the given chart.
+         * @param songId the song id.
+         * @param record the cached chart.
+         * @param chart the chart.
+         * @return true if the cached chart has been updated.
+         */
+        private boolean updateChart(int songId, ChartsRecord record, Chart chart) {
+            Object[] values = getChartValues(record.getId(), songId, chart);
+            for(int i = 0; i < CHART_FIELDS.length; i++) {
+                setIfChanged(record, CHART_FIELDS[i], values[i]);
+            }
+            if(!record.changed()) return false;
+
+            //Values without the id, song id and hash, followed by the id
+            Object[] updateValues = Arrays.copyOfRange(values, 3, values.length + 1);
+            updateValues[updateValues.length - 1] = record.getId();
+            execute(chartUpdate(), updateValues);
+            return true;
+        }
+
+        private ResultQuery<SongsRecord> songSelect() {
+            if(songSelect == null) {
+                songSelect = keep(database.selectFrom(SONGS)
+                        .where(SONGS.PACK.eq(DSL.param("pack", String.class))
+                                .and(SONGS.DIRECTORY.eq(DSL.param("directory", String.class)))));
+            }
+            return songSelect;
+        }
+
+        private ResultQuery<ChartsRecord> chartSelect() {
+            if(chartSelect == null) {
+                chartSelect = keep(database.selectFrom(CHARTS)
+                        .where(CHARTS.SONG_ID.eq(DSL.param("songId", Integer.class))));
+            }
+            return chartSelect;
+        }
+
+        private Query songInsert() {
+            if(songInsert == null) {
+                songInsert = keep(database.insertInto(SONGS, SONG_FIELDS).values(new Object[SONG_FIELDS.length]));
+            }
+            return songInsert;
+        }
+
+        private Query songUpdate() {
+            if(songUpdate == null) {
+                Map<Field<?>, Object> values = new LinkedHashMap<>();
+                for(int i = 1; i < SONG_FIELDS.length; i++) {
+                    values.put(SONG_FIELDS[i], null);
+                }
+                songUpdate = keep(database.update(SONGS)
+                        .set(values)
+                        .where(SONGS.ID.eq(DSL.param("id", Integer.class))));
+            }
+            return songUpdate;
+        }
+
+        private Query songTouch() {
+            if(songTouch == null) {
+                songTouch = keep(database.update(SONGS)
+                        .set(SONGS.SIM_PATH, DSL.param("simPath", String.class))
+                        .set(SONGS.FORMAT, DSL.param("format", String.class))
+                        .set(SONGS.FILE_SIZE, DSL.param("fileSize", Long.class))
+                        .set(SONGS.LAST_MODIFIED, DSL.param("lastModified", Long.class))
+                        .where(SONGS.PACK.eq(DSL.param("pack", String.class))
+                                .and(SONGS.DIRECTORY.eq(DSL.param("directory", String.class)))));
+            }
+            return songTouch;
+        }
+
+        private Query songDelete() {
+            if(songDelete == null) {
+                songDelete = keep(database.deleteFrom(SONGS)
+                        .where(SONGS.PACK.eq(DSL.param("pack", String.class))
+                                .and(SONGS.DIRECTORY.eq(DSL.param("directory", String.class)))));
+            }
+            return songDelete;
+        }
+
+        private Query chartInsert() {
+            if(chartInsert == null) {
+                chartInsert = keep(database.insertInto(CHARTS, CHART_FIELDS).values(new Object[CHART_FIELDS.length]));
+            }
+            return chartInsert;
+        }
+
+        private Query chartUpdate() {
+            if(chartUpdate == null) {
+                Map<Field<?>, Object> values = new LinkedHashMap<>();
+                for(int i = 3; i < CHART_FIELDS.length; i++) {
+                    values.put(CHART_FIELDS[i], null);
+                }
+                chartUpdate = keep(database.update(CHARTS)
+                        .set(values)
+                        .where(CHARTS.ID.eq(DSL.param("id", String.class))));
+            }
+            return chartUpdate;
+        }
+
+        private Query chartDelete() {
+            if(chartDelete == null) {
+                chartDelete = keep(database.deleteFrom(CHARTS)
+                        .where(CHARTS.ID.eq(DSL.param("id", String.class))));
+            }
+            return chartDelete;
+        }
+
+        private Query searchInsert() {
+            if(searchInsert == null) {
+                //Replaces the row of updated songs
+                searchInsert = keep(database.query("INSERT OR REPLACE INTO songs_fts (rowid, title, artist) " +
+                        "VALUES (?, ?, ?)", new Object[3]));
+            }
+            return searchInsert;
+        }
+
+        private Query searchDelete() {
+            if(searchDelete == null) {
+                searchDelete = keep(database.deleteFrom(SongSearch.SONGS_FTS)
+                        .where(SongSearch.SONGS_FTS_ROWID.in(DSL.select(SONGS.ID)
+                                .from(SONGS)
+                                .where(SONGS.PACK.eq(DSL.param("pack", String.class))
+                                        .and(SONGS.DIRECTORY.eq(DSL.param("directory", String.class)))))));
+            }
+            return searchDelete;
+        }
+
+        /**
+         * Keeps the prepared statement of the given query open until the writer is closed.
+         */
+        private <Q extends Query> Q keep(Q query) {
+            query.keepStatement(true);
+            statements.add(query);
+            return query;
+        }
+
+        /**
+         * Binds the given values to a kept query, in order, and executes it.
+         */
+        private static void execute(Query query, Object... values) {
+            for(int i = 0; i < values.length; i++) {
+                query.bind(i + 1, values[i]);
+            }
+            query.execute();
+        }
+
+        /**
+         * Closes the prepared statements.
+         */
+        @Override
+        public void close() {
+            for(Query statement : statements) {
+                statement.close();
+            }
+            statements.clear();
+        }
+    }
+
+    /**
+     * The type of a change to the index.
+     */
+    public enum ChangeType {
+        /** The song is not in the index and must be added **/
+        ADD,
+        /** The song is in the index but its sim file has changed **/
+        UPDATE,
+        /** The song directory doesn't contain a sim file, the song must be removed from the index if present **/
+        REMOVE,
+        /** The sim file content is unchanged but its stats (or its name) have changed **/
+        TOUCH,
+        /** The song in the index is up to date **/
+        NONE
+    }
+
+    /**
+     * A change to the index, computed by {@link #scan(IndexEntry)} and written by a {@link Writer}.
+     */
+    public static class Change {
+        /** The change type **/
+        public final ChangeType type;
+        /** The pack the song belongs to **/
+        public final String pack;
+        /** The song directory **/
+        public final FileHandle directory;
+        /** The sim file, null for removals **/
+        public final SimFile simFile;
+        /** The sim file hash, null for removals **/
+        public final String hash;
+        /** The sim file size in bytes **/
+        public final long fileSize;
+        /** The sim file last modified time in milliseconds **/
+        public final long lastModified;
+        /** The loaded song, available only when adding or updating **/
+        public final Song song;
+
+        public Change(ChangeType type, String pack, FileHandle directory, SimFile simFile, String hash,
+                      long fileSize, long lastModified, Song song) {
+            this.type = type;
+            this.pack = pack;
+            this.directory = directory;
+            this.simFile = simFile;
+            this.hash = hash;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.song = song;
+        }
+    }
+
+    /**
+     * The data stored in the index that is used to detect changes of a song sim file.
+     */
+    public static class IndexEntry {
+        /** Fields to select to create an entry **/
+        public static final Field<?>[] FIELDS = {
+                SONGS.SIM_PATH, SONGS.HASH, SONGS.FILE_SIZE, SONGS.LAST_MODIFIED
+        };
+        /** The sim file name **/
+        public final String simPath;
+        /** The sim file hash **/
+        public final String hash;
+        /** The sim file size in bytes, null if unknown **/
+        public final Long fileSize;
+        /** The sim file last modified time in milliseconds, null if unknown **/
+        public final Long lastModified;
+
+        /**
+         * Creates an entry from a record containing the {@link #FIELDS}.
+         * @param record the record.
+         */
+        public IndexEntry(Record record) {
+            this.simPath = record.get(SONGS.SIM_PATH);
+            this.hash = record.get(SONGS.HASH);
+            this.fileSize = record.get(SONGS.FILE_SIZE);
+            this.lastModified = record.get(SONGS.LAST_MODIFIED);
+        }
+
+        /**
+         * Checks if the sim file is unchanged, comparing its name and stats with the ones in the index.
+         * @param simPath the sim file name.
+         * @param fileSize the sim file size.
+         * @param lastModified the sim file last modified time.
+         * @return true if the sim file is unchanged.
+         */
+        public boolean isUnchanged(String simPath, long fileSize, long lastModified) {
+            return this.simPath.equals(simPath)
+                    && this.fileSize != null && this.fileSize == fileSize
+                    && this.lastModified != null && this.lastModified == lastModified;
+        }
+
+        /**
+         * Checks if the song has been hashed with the given function.
+         * @param function the hash function.
+         * @return true if the sim file hash has been computed with the given function.
+         */
+        public boolean isHashedWith(SimHashFunction function) {
+            return function.isNamedHash(hash);
+        }
     }
 }
@@ -41,6 +41,7 @@ public class SongLoader extends Task<Song> {
     private static final long MAX_FILE_LENGTH = 10 * 1024 * 1024; //10 megabytes
     private String pack;
     private SimFile simFile;
+    private boolean headerOnly;
 
     /**
      * Creates a song loader from a given directory.
@@ -48,7 +49,18 @@ public class SongLoader extends Task<Song> {
      * @param directory the song directory.
      */
     public SongLoader(String pack, FileHandle directory) {
-        this(pack, SimFile.searchSimFile(directory, format -> settings().getSimFormatPriority(format)));
+        this(pack, directory, false);
+    }
+
+    /**
+     * Creates a song loader from a given directory.
+     * @param pack the pack the song belongs to
+     * @param directory the song directory.
+     * @param headerOnly true to load only the song data and the charts metadata and timing data, skipping the
+     *                   charts notes. See {@link SimParser#initHeader(SimFile)}.
+     */
+    public SongLoader(String pack, FileHandle directory, boolean headerOnly) {
+        this(pack, SimFile.searchSimFile(directory, format -> settings().getSimFormatPriority(format)), headerOnly);
     }
 
     /**
@@ -57,8 +69,20 @@ public class SongLoader extends Task<Song> {
      * @param simFile the song sim file.
      */
     public SongLoader(String pack, SimFile simFile) {
+        this(pack, simFile, false);
+    }
+
+    /**
+     * Creates a song loader from a given sim file.
+     * @param pack the pack the song belongs to.
+     * @param simFile the song sim file.
+     * @param headerOnly true to load only the song data and the charts metadata and timing data, skipping the
+     *                   charts notes. See {@link SimParser#initHeader(SimFile)}.
+     */
+    public SongLoader(String pack, SimFile simFile, boolean headerOnly) {
         this.pack = pack;
         this.simFile = simFile;
+        this.headerOnly = headerOnly;
     }
 
     @Override
@@ -75,7 +99,11 @@ public class SongLoader extends Task<Song> {
 
         //Get and initialize the parser
         SimParser parser = simFile.getFormat().newParser();
-        parser.init(simFile);
+        if(headerOnly) {
+            parser.initHeader(simFile);
+        } else {
+            parser.init(simFile);
+        }
 
         //Parse song
         Song song = new Song();
@@ -117,12 +145,14 @@ public class SongLoader extends Task<Song> {
                 chart.description = parseOrDefault(chartParser::parseDescription, null);
                 chart.credit = parseOrDefault(chartParser::parseCredit, null);
                 chart.displayBPM = parseOrDefault(chartParser::parseDisplayBPM, null);
-                chart.timingData = chartParser.parseTimingData();
 
                 //Validate chart
                 if(chart.type == null)
                     throw new SimParseException("Required chart type not specified");
-                if(chart.timingData.bpms.isEmpty())
+
+                //Timing data is made of header tags, it's parsed in header only mode too
+                chart.timingData = chartParser.parseTimingData();
+                if(chart.timingData.bpms == null || chart.timingData.bpms.isEmpty())
                     throw new SimParseException("Timing data incomplete. Required BPMS not specified");
 
                 song.charts.add(chart);
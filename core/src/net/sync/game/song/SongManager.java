@@ -22,39 +22,116 @@
 
 package net.sync.game.song;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.song.sim.SimChartParser;
+import net.sync.game.song.sim.SimParseException;
+import net.sync.game.song.sim.SimParser;
 import org.jooq.DSLContext;
 
-import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
+import static net.sync.game.Game.backend;
 import static net.sync.game.Game.database;
+import static net.sync.game.Game.disposer;
+import static net.sync.game.Game.executors;
 
 public class SongManager {
+    private FileHandle library;
+    private LibraryWatcher watcher;
+    private ChartCache chartCache = new ChartCache(Gdx.files.local("cache/charts"));
+
     //Start indexing the given folder (the songs folder)
     public void index(FileHandle dir) {
+        library = dir;
         //TODO Temp test
         long millis = System.currentTimeMillis();
-        for(FileHandle f : dir.list(File::isDirectory)) {
-            String pack = f.name();
-            try(DSLContext database = database().getDSL()) {
-                database.transaction(configuration -> {
-                    for(FileHandle songDir : f.list(File::isDirectory)) {
-                        SongIndexer indexer = new SongIndexer(pack, songDir, configuration);
-                        try {
-                            indexer.call();
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                });
-            }
+        try(DSLContext database = database().getWriteDSL()) {
+            new LibraryIndexer(database, executors()).index(dir);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         System.out.println(System.currentTimeMillis() - millis);
     }
 
-    //Find a set of song matching the given params
-    public void find(SongSearchParams params) {
+    /**
+     * Watches the given folder (the songs folder) keeping the index up to date while the game runs. The folder
+     * is indexed in background, then only the pack and song directories that change are indexed again.
+     * @param dir the songs folder.
+     */
+    public void watch(FileHandle dir) {
+        library = dir;
+        if(watcher != null) {
+            watcher.dispose();
+        } else {
+            disposer().manage(() -> {
+                if(watcher != null) watcher.dispose();
+            });
+        }
+        watcher = backend().createLibraryWatcher(dir, this::update);
+        watcher.start();
+        watcher.invalidate(dir);
+    }
+
+    /**
+     * Indexes the changed directories of the library. Called on the watcher thread.
+     */
+    private void update(FileHandle root, Set<FileHandle> directories) {
+        if(!root.isDirectory()) return;
+        try(DSLContext database = database().getWriteDSL()) {
+            LibraryIndexer indexer = new LibraryIndexer(database, executors());
+            if(directories.contains(root)) {
+                indexer.index(root);
+            } else {
+                indexer.update(root, directories);
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
+    /**
+     * Finds the songs of the library matching the given params. See {@link SongSearch}.
+     * @param params the search params.
+     * @return the matching songs, with their charts metadata. Empty if no library has been indexed.
+     */
+    public List<Song> find(SongSearchParams params) {
+        if(library == null) return Collections.emptyList();
+        try(DSLContext database = database().getDSL()) {
+            return new SongSearch(database, library).find(params);
+        }
+    }
+
+    /**
+     * Loads the timing data and the beatmap of the given chart. The chart is read from the chart cache when
+     * possible, otherwise it is parsed from the song sim file and then cached. See {@link ChartCache}.
+     * @param chart the chart, its hash and its song sim file must be set.
+     * @throws SimParseException if the chart cannot be parsed or the sim file doesn't contain it anymore.
+     */
+    public void loadChart(Chart chart) throws SimParseException {
+        try {
+            if(chartCache.read(chart)) return;
+        } catch(IOException e) {
+            Gdx.app.error("Chart Cache", "Cannot read chart " + chart.hash, e);
+        }
+
+        SimParser parser = chart.song.simFile.getFormat().newParser();
+        parser.init(chart.song.simFile);
+        SimChartParser chartParser = parser.getChartParser(chart.hash);
+        if(chartParser == null)
+            throw new SimParseException("Chart not found in sim file");
+        chartParser.init();
+        chart.timingData = chartParser.parseTimingData();
+        chart.beatmap = chartParser.parseBeatmap();
+
+        try {
+            chartCache.write(chart);
+        } catch(IOException e) {
+            Gdx.app.error("Chart Cache", "Cannot write chart " + chart.hash, e);
+        }
     }
 
     //From preview to view state
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.database.schema.tables.records.ChartsRecord;
+import net.sync.game.song.sim.SimFile;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Select;
+import org.jooq.SelectLimitStep;
+import org.jooq.SelectSelectStep;
+import org.jooq.SortField;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static net.sync.game.database.schema.tables.Charts.CHARTS;
+import static net.sync.game.database.schema.tables.Songs.SONGS;
+
+/**
+ * Searches songs inside the index. {@link SongSearchParams} are compiled to a single query over the songs:
+ * keywords are matched with the full text index of songs, substrings with LIKE and chart parameters select
+ * songs with at least one matching chart. Matching songs are returned with all their charts.
+ */
+public class SongSearch {
+    /** The full text index of song titles and artists, its rows have the same ids of the songs **/
+    static final Table<Record> SONGS_FTS = DSL.table(DSL.name("songs_fts"));
+    /** The id of a full text index row **/
+    static final Field<Integer> SONGS_FTS_ROWID = DSL.field(DSL.name("songs_fts", "rowid"), Integer.class);
+
+    private DSLContext database;
+    private FileHandle root;
+
+    /**
+     * Creates a song search.
+     * @param database the database context.
+     * @param root the library directory, used to resolve the song directories.
+     */
+    public SongSearch(DSLContext database, FileHandle root) {
+        this.database = database;
+        this.root = root;
+    }
+
+    /**
+     * Finds the songs matching the given parameters.
+     * @param params the search parameters.
+     * @return the matching songs in the requested order. Songs contain only the indexed data, charts
+     * don't have timing data.
+     */
+    public List<Song> find(SongSearchParams params) {
+        checkArgument(params.limit >= 0 && params.offset >= 0, "limit and offset cannot be negative");
+
+        //Fetch the songs
+        List<Song> songs = new ArrayList<>();
+        Map<Integer, Song> songsById = new HashMap<>();
+        for(Record record : compile(database.select(SONGS.fields()), params).fetch()) {
+            Song song = toSong(record);
+            songs.add(song);
+            songsById.put(record.get(SONGS.ID), song);
+        }
+        if(songs.isEmpty()) return songs;
+
+        //Fetch all the charts of the songs
+        for(ChartsRecord record : database.selectFrom(CHARTS)
+                .where(CHARTS.SONG_ID.in(compile(database.select(SONGS.ID), params)))
+                .orderBy(CHARTS.SONG_ID, CHARTS.DIFFICULTY_METER)
+                .fetch()) {
+            Song song = songsById.get(record.getSongId());
+            if(song != null) {
+                Chart chart = toChart(record);
+                chart.song = song;
+                song.charts.add(chart);
+            }
+        }
+        return songs;
+    }
+
+    /**
+     * Compiles the search parameters to a query.
+     * @param select the select step with the fields to fetch from the matching songs.
+     * @param params the search parameters.
+     * @return the query returning a record for each matching song.
+     */
+    <R extends Record> Select<R> compile(SelectSelectStep<R> select, SongSearchParams params) {
+        //Song conditions
+        Condition condition = DSL.trueCondition();
+        String match = toMatchExpression(params.keywords);
+        if(match != null) {
+            condition = condition.and(SONGS.ID.in(DSL.select(SONGS_FTS_ROWID)
+                    .from(SONGS_FTS)
+                    .where(DSL.condition("{0} MATCH {1}", SONGS_FTS, DSL.val(match)))));
+        }
+        if(params.title != null) {
+            condition = condition.and(SONGS.TITLE.like(toContainsPattern(params.title), '!'));
+        }
+        if(params.artist != null) {
+            condition = condition.and(SONGS.ARTIST.like(toContainsPattern(params.artist), '!'));
+        }
+        if(params.pack != null) {
+            condition = condition.and(SONGS.PACK.like(toContainsPattern(params.pack), '!'));
+        }
+
+        //Songs must have a chart matching all the chart conditions
+        Condition chartCondition = getChartCondition(params);
+        if(chartCondition != null) {
+            condition = condition.and(DSL.exists(DSL.selectOne()
+                    .from(CHARTS)
+                    .where(CHARTS.SONG_ID.eq(SONGS.ID).and(chartCondition))));
+        }
+
+        SelectLimitStep<R> query = select
+                .from(SONGS)
+                .where(condition)
+                .orderBy(getSortFields(params, chartCondition));
+        return params.limit > 0 ? query.limit(params.limit).offset(params.offset) : query;
+    }
+
+    /**
+     * Gets the condition on charts.
+     * @param params the search parameters.
+     * @return the condition, or null if there are no chart parameters.
+     */
+    private static Condition getChartCondition(SongSearchParams params) {
+        List<Condition> conditions = new ArrayList<>();
+        if(params.chartType != null) {
+            conditions.add(CHARTS.CHART_TYPE.eq(params.chartType.name()));
+        }
+        if(params.difficultyClass != null) {
+            conditions.add(CHARTS.DIFFICULTY_CLASS.eq(params.difficultyClass.name()));
+        }
+        if(params.minMeter != null) {
+            conditions.add(CHARTS.DIFFICULTY_METER.ge(params.minMeter));
+        }
+        if(params.maxMeter != null) {
+            conditions.add(CHARTS.DIFFICULTY_METER.le(params.maxMeter));
+        }
+        if(params.minBpm != null) {
+            conditions.add(CHARTS.BPM_MAX.ge(params.minBpm));
+        }
+        if(params.maxBpm != null) {
+            conditions.add(CHARTS.BPM_MIN.le(params.maxBpm));
+        }
+        return conditions.isEmpty() ? null : DSL.and(conditions);
+    }
+
+    private static SortField<?>[] getSortFields(SongSearchParams params, Condition chartCondition) {
+        Field<?> primary;
+        switch(params.sort) {
+            case ARTIST:
+                primary = DSL.lower(SONGS.ARTIST);
+                break;
+            case PACK:
+                primary = DSL.lower(SONGS.PACK);
+                break;
+            case BPM:
+                primary = getChartAggregate(DSL.max(CHARTS.BPM_MAX), chartCondition);
+                break;
+            case METER:
+                primary = getChartAggregate(DSL.min(CHARTS.DIFFICULTY_METER), chartCondition);
+                break;
+            default:
+                primary = DSL.lower(SONGS.TITLE);
+        }
+        SortField<?> order = params.descending ? primary.desc() : primary.asc();
+        if(params.sort == SongSearchParams.Sort.TITLE) {
+            return new SortField<?>[] {order, SONGS.ID.asc()};
+        }
+        return new SortField<?>[] {order, DSL.lower(SONGS.TITLE).asc(), SONGS.ID.asc()};
+    }
+
+    /**
+     * Gets an aggregate of the matching charts of each song.
+     */
+    private static <T> Field<T> getChartAggregate(Field<T> aggregate, Condition chartCondition) {
+        Condition condition = CHARTS.SONG_ID.eq(SONGS.ID);
+        if(chartCondition != null) {
+            condition = condition.and(chartCondition);
+        }
+        return DSL.field(DSL.select(aggregate).from(CHARTS).where(condition));
+    }
+
+    /**
+     * Converts keywords to a full text match expression, where each word is a prefix query.
+     * @param keywords the keywords, can be null.
+     * @return the match expression or null if there are no words.
+     */
+    static String toMatchExpression(String keywords) {
+        if(keywords == null) return null;
+        StringBuilder builder = new StringBuilder();
+        for(String word : keywords.split("[^\\p{L}\\p{N}]+")) {
+            if(word.isEmpty()) continue;
+            if(builder.length() > 0) builder.append(' ');
+            builder.append('"').append(word).append("\"*");
+        }
+        return builder.length() > 0 ? builder.toString() : null;
+    }
+
+    /**
+     * Converts a substring to a LIKE pattern, escaping wildcards with '!'.
+     */
+    private static String toContainsPattern(String value) {
+        return '%' + value.replace("!", "!!").replace("%", "!%").replace("_", "!_") + '%';
+    }
+
+    private Song toSong(Record record) {
+        Song song = new Song();
+        song.pack = record.get(SONGS.PACK);
+        song.directory = root.child(song.pack).child(record.get(SONGS.DIRECTORY));
+        song.simFile = new SimFile(song.directory.child(record.get(SONGS.SIM_PATH)));
+        song.title = record.get(SONGS.TITLE);
+        song.subtitle = record.get(SONGS.SUBTITLE);
+        song.artist = record.get(SONGS.ARTIST);
+        song.genre = record.get(SONGS.GENRE);
+        song.bannerPath = record.get(SONGS.BANNER_PATH);
+        song.backgroundPath = record.get(SONGS.BACKGROUND_PATH);
+        song.album = record.get(SONGS.ALBUM);
+        song.musicPath = record.get(SONGS.MUSIC_PATH);
+        Float sampleStart = record.get(SONGS.SAMPLE_START);
+        Float sampleLength = record.get(SONGS.SAMPLE_LENGTH);
+        if(sampleStart != null) song.sampleStart = sampleStart;
+        if(sampleLength != null) song.sampleLength = sampleLength;
+        song.charts = new ArrayList<>();
+        return song;
+    }
+
+    private static Chart toChart(ChartsRecord record) {
+        Chart chart = new Chart();
+        chart.id = record.getId();
+        chart.hash = record.getHash();
+        chart.type = record.getChartType() != null ? ChartType.valueOf(record.getChartType()) : null;
+        chart.difficultyClass = record.getDifficultyClass() != null
+                ? DifficultyClass.valueOf(record.getDifficultyClass()) : null;
+        chart.difficultyMeter = record.getDifficultyMeter() != null ? record.getDifficultyMeter() : -1;
+        chart.name = record.getName();
+        chart.description = record.getDescription();
+        chart.credit = record.getCredit();
+        Float bpmMin = record.getBpmMin();
+        Float bpmMax = record.getBpmMax();
+        if(bpmMin != null && bpmMax != null) {
+            chart.displayBPM = bpmMin.equals(bpmMax)
+                    ? new DisplayBPM.StaticDisplayBPM(Math.round(bpmMin))
+                    : new DisplayBPM.RangeDisplayBPM(Math.round(bpmMin), Math.round(bpmMax));
+        }
+        return chart;
+    }
+}
@@ -20,7 +20,54 @@
  * THE SOFTWARE.
  */
 
+
 package net.sync.game.song;
 
+/**
+ * Parameters of a song search, see {@link SongManager#find(SongSearchParams)}. Null parameters are ignored.
+ * Chart parameters select the songs that have at least one chart matching all of them.
+ */
 public class SongSearchParams {
+    /** Words matched against song titles and artists. Each word matches words starting with it, ignoring case
+     * and diacritics **/
+    public String keywords;
+    /** A substring of the song title **/
+    public String title;
+    /** A substring of the song artist **/
+    public String artist;
+    /** A substring of the song pack **/
+    public String pack;
+    /** The chart type **/
+    public ChartType chartType;
+    /** The chart difficulty class **/
+    public DifficultyClass difficultyClass;
+    /** The minimum chart difficulty meter, inclusive **/
+    public Integer minMeter;
+    /** The maximum chart difficulty meter, inclusive **/
+    public Integer maxMeter;
+    /** The minimum chart BPM, matched by charts whose BPM range reaches it **/
+    public Float minBpm;
+    /** The maximum chart BPM, matched by charts whose BPM range starts below it **/
+    public Float maxBpm;
+    /** The sort order of the results **/
+    public Sort sort = Sort.TITLE;
+    /** True to reverse the sort order **/
+    public boolean descending;
+    /** The maximum number of songs returned, 0 to return all the songs **/
+    public int limit;
+    /** The number of songs to skip, used only with a limit **/
+    public int offset;
+
+    /**
+     * The sort orders of the results. Songs with equal values are sorted by title.
+     */
+    public enum Sort {
+        TITLE,
+        ARTIST,
+        PACK,
+        /** The highest BPM of the matching charts **/
+        BPM,
+        /** The lowest difficulty meter of the matching charts **/
+        METER
+    }
 }
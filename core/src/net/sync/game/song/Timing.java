@@ -24,6 +24,7 @@ package net.sync.game.song;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ComparisonChain;
+import net.sync.game.util.math.CompiledLineGraph2D;
 import net.sync.game.util.math.Graph2D;
 import net.sync.game.util.math.Graph2DPoint;
 import net.sync.game.util.math.LineGraph2D;
@@ -42,6 +43,10 @@ public class Timing {
     private Graph2D beatGraph;
     /** time as a function of beat **/
     private Graph2D timeGraph;
+    /** compiled beat graph used for lookups **/
+    private CompiledLineGraph2D compiledBeatGraph;
+    /** compiled time graph used for lookups **/
+    private CompiledLineGraph2D compiledTimeGraph;
 
     public Timing(TimingData timingData) {
         Preconditions.checkNotNull(timingData, "Timing data cannot be null");
@@ -55,8 +60,12 @@ public class Timing {
          **/
 
         this.timingData = timingData;
-        this.beatGraph = TimingBeatGraphBuilder.build(timingData);
-        this.timeGraph = beatGraph.invert();
+        LineGraph2D beatGraph = TimingBeatGraphBuilder.build(timingData);
+        LineGraph2D timeGraph = beatGraph.invert();
+        this.beatGraph = beatGraph;
+        this.timeGraph = timeGraph;
+        this.compiledBeatGraph = new CompiledLineGraph2D(beatGraph);
+        this.compiledTimeGraph = new CompiledLineGraph2D(timeGraph);
     }
 
     /**
@@ -66,7 +75,7 @@ public class Timing {
      * @return the beat at given time.
      */
     public double getBeatAt(double time) {
-        return beatGraph.f(time);
+        return compiledBeatGraph.f(time);
     }
 
     /**
@@ -79,8 +88,8 @@ public class Timing {
      */
     public double getTimeAt(double beat) {
         Preconditions.checkArgument(Double.compare(beat, 0.0D) >= 0, "Beat cannot be less than 0.");
-        Double time = timeGraph.f(beat);
-        Preconditions.checkState(!time.isNaN(), "Invalid timing graph. Infinite pauses aren't allowed.");
+        double time = compiledTimeGraph.f(beat);
+        Preconditions.checkState(!Double.isNaN(time), "Invalid timing graph. Infinite pauses aren't allowed.");
         return time;
     }
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song.note;
+
+/**
+ * Note categories used by the {@link net.sync.game.song.Beatmap} to build per panel secondary
+ * indexes. A note can belong to more than one category, e.g. a hold note is both
+ * {@link #JUDGEABLE} and {@link #LENGTHY}.
+ */
+public class NoteCategory {
+    /** Notes implementing {@link JudgeableNote} **/
+    public static final int JUDGEABLE = 0;
+    /** Mine notes **/
+    public static final int MINE = 1;
+    /** Fake notes **/
+    public static final int FAKE = 2;
+    /** Notes implementing {@link LengthyNote} **/
+    public static final int LENGTHY = 3;
+
+    /** The count of categories **/
+    public static final int COUNT = 4;
+
+    /**
+     * Checks if the given note belongs to the given category.
+     * @param note the note.
+     * @param category the category, one of the {@link NoteCategory} values.
+     * @return true if the note belongs to the category, false otherwise.
+     */
+    public static boolean contains(Note note, int category) {
+        switch(category) {
+            case JUDGEABLE: return note instanceof JudgeableNote;
+            case MINE:      return note instanceof MineNote;
+            case FAKE:      return note instanceof FakeNote;
+            case LENGTHY:   return note instanceof LengthyNote;
+            default:        return false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song.note;
+
+/**
+ * Compact note type identifiers, used by the {@link net.sync.game.song.Beatmap} to store
+ * note types inside primitive arrays.
+ */
+public class NoteType {
+    public static final byte UNKNOWN = 0;
+    public static final byte TAP = 1;
+    public static final byte HOLD = 2;
+    public static final byte ROLL = 3;
+    public static final byte MINE = 4;
+    public static final byte LIFT = 5;
+    public static final byte FAKE = 6;
+    public static final byte AUTO_KEY_SOUND = 7;
+
+    /**
+     * Gets the type of the given note.
+     * @param note the note.
+     * @return the note type, or {@link #UNKNOWN} if the note type is not recognised.
+     */
+    public static byte valueOf(Note note) {
+        if(note instanceof TapNote)          return TAP;
+        if(note instanceof HoldNote)         return HOLD;
+        if(note instanceof RollNote)         return ROLL;
+        if(note instanceof MineNote)         return MINE;
+        if(note instanceof LiftNote)         return LIFT;
+        if(note instanceof FakeNote)         return FAKE;
+        if(note instanceof AutoKeySoundNote) return AUTO_KEY_SOUND;
+        return UNKNOWN;
+    }
+
+    /**
+     * Creates a note of the given type.
+     * @param type the note type, must not be {@link #UNKNOWN}.
+     * @param beat the note beat.
+     * @param length the note length measured in beats, used only by hold and roll notes.
+     * @return the note.
+     * @throws IllegalArgumentException if the note type is not recognised.
+     */
+    public static Note newNote(byte type, double beat, double length) {
+        switch(type) {
+            case TAP:            return new TapNote(beat);
+            case HOLD:           return new HoldNote(beat, length);
+            case ROLL:           return new RollNote(beat, length);
+            case MINE:           return new MineNote(beat);
+            case LIFT:           return new LiftNote(beat);
+            case FAKE:           return new FakeNote(beat);
+            case AUTO_KEY_SOUND: return new AutoKeySoundNote(beat);
+            default: throw new IllegalArgumentException("Unknown note type " + type);
+        }
+    }
+}
@@ -23,8 +23,6 @@
 package net.sync.game.song.sim;
 
 import com.badlogic.gdx.utils.IntSet;
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 import net.sync.game.song.Beatmap;
 import net.sync.game.song.ChartType;
 import net.sync.game.song.DifficultyClass;
@@ -54,13 +52,13 @@ public class DWIParser extends TagSimParser {
     private static Pattern BPM_STOP_PATTERN = Pattern.compile("([+-]?\\d+(\\.\\d+)?)\\s*=\\s*(\\+?\\d+(\\.\\d+)?)");
 
     @Override
-    protected DataSupplier createDataSupplier(String rawContent) throws SimParseException {
-        return new DWIDataSupplier(rawContent);
+    protected DataSupplier createDataSupplier(TagTokenizer tokenizer) throws SimParseException {
+        return new DWIDataSupplier(tokenizer);
     }
 
     @Override
-    protected SimChartParser createChartParser(String chartRawContent) {
-        return new DWIChartParser(chartRawContent);
+    protected SimChartParser createChartParser(RawChart chart) {
+        return new DWIChartParser(chart);
     }
 
     @Override
@@ -208,22 +206,19 @@ public class DWIParser extends TagSimParser {
     private static class DWIDataSupplier implements DataSupplier {
         /** Contains header tags where key is the tag name and value is the tag value **/
         private Map<String, String> headerTagsMap = new HashMap<>();
-        /** Contains charts data as string that are a result of the concatenation
-         * of tag name and tag value separated by a colon (tagname:tagvalue).
-         * In DWI format chart tag names is the style.**/
-        private List<String> chartTagsValues = new ArrayList<>();
+        /** Contains charts data spanning from the tag name to the end of the tag
+         * value (tagname:tagvalue). In DWI format chart tag names is the style.**/
+        private List<RawChart> charts = new ArrayList<>();
 
-        DWIDataSupplier(String rawContent) throws SimParseException {
+        DWIDataSupplier(TagTokenizer tokenizer) throws SimParseException {
             //Split the content into tags
-            Matcher matcher = TAG_PATTERN.matcher(rawContent);
-            while(matcher.find()) {
-                String tagName = matcher.group(1);
-                String tagValue = matcher.group(2);
+            while(tokenizer.next()) {
+                String tagName = tokenizer.name();
 
                 if(isChartTag(tagName)) {
-                    chartTagsValues.add(tagName + ":" + tagValue);
+                    charts.add(new RawChart(tokenizer, tokenizer.nameStart(), tokenizer.valueEnd()));
                 } else {
-                    headerTagsMap.put(tagName.toUpperCase(), tagValue);
+                    headerTagsMap.put(tagName.toUpperCase(), tokenizer.value());
                 }
             }
             if(headerTagsMap.isEmpty()){
@@ -236,8 +231,8 @@ public class DWIParser extends TagSimParser {
         }
 
         @Override
-        public List<String> getChartTagValues() {
-            return chartTagsValues;
+        public List<RawChart> getCharts() {
+            return charts;
         }
 
         private boolean isChartTag(String tagName) {
@@ -253,21 +248,20 @@ public class DWIParser extends TagSimParser {
     }
 
     protected class DWIChartParser implements SimChartParser {
+        /** Number of chart data parts that precede the note data **/
+        private static final int METADATA_PARTS = 3;
+        private RawChart chart;
         private String[] chartData;
-        private String hash;
-
-        public DWIChartParser(String chartRawData) {
-            //Compute the chart raw data hash
-            Hasher hasher = Hashing.sha256().newHasher();
-            hasher.putBytes(chartRawData.getBytes());
-            hash = hasher.hash().toString();
 
-            chartData = chartRawData.split("\\s*:\\s*");
+        public DWIChartParser(RawChart chart) {
+            this.chart = chart;
+            //In header only mode the note data parts are not read
+            chartData = headerOnly ? chart.split(':', METADATA_PARTS) : TagTokenizer.split(chart.text(), ':');
         }
 
         @Override
         public void init() throws SimParseException {
-            if(chartData.length < 4) { //Must be 4 (or 5 if double mode).
+            if(chartData.length < (headerOnly ? METADATA_PARTS : METADATA_PARTS + 1)) { //Must be 4 (or 5 if double mode).
                 throw new SimParseException("Invalid chart data.");
             }
         }
@@ -299,7 +293,14 @@ public class DWIParser extends TagSimParser {
 
         @Override
         public Beatmap parseBeatmap() throws SimParseException {
-            return new BeatmapParser(chartData[3]).parse();
+            if(chartData.length <= METADATA_PARTS) {
+                //Header only mode, read the whole chart data now
+                chartData = TagTokenizer.split(chart.text(), ':');
+                if(chartData.length <= METADATA_PARTS) {
+                    throw new SimParseException("Invalid chart data.");
+                }
+            }
+            return new BeatmapParser(chartData[METADATA_PARTS]).parse();
         }
 
         @Override
@@ -352,12 +353,12 @@ public class DWIParser extends TagSimParser {
 
         @Override
         public String getHash() {
-            return hash;
+            return chart.hash();
         }
     }
 
     private static class BeatmapParser {
-        private Beatmap beatmap = new Beatmap();
+        private Beatmap.Builder builder = new Beatmap.Builder();
         private String beatmapData;
         private NoteResolution resolution = NoteResolution.NOTE_8TH; //Default resolution
         private double currentBeat = 0.0D;
@@ -376,7 +377,7 @@ public class DWIParser extends TagSimParser {
             for(int i = 0; i < beatmapData.length(); i++) {
                 parseDataCharacter(beatmapData.charAt(i));
             }
-            return beatmap;
+            return builder.build();
         }
 
         /**
@@ -435,17 +436,17 @@ public class DWIParser extends TagSimParser {
             for(int panel : panels) {
                 if(holdingPanelSet.remove(panel)) {
                     //Parsing hold tail
-                    Note lastNote = beatmap.lastNote(panel);
+                    Note lastNote = builder.lastNote(panel);
                     if(lastNote instanceof TapNote) {
                         //Calculate hold note length
                         double length = currentBeat - lastNote.getBeat();
                         //Replace previous tap note with hold note
-                        beatmap.putNote(panel, new HoldNote(lastNote.getBeat(), length));
+                        builder.putNote(panel, new HoldNote(lastNote.getBeat(), length));
                     } else {
                         throw new SimParseException("Invalid beatmap data! Expecting tap note as last map value!");
                     }
                 } else {
-                    beatmap.putNote(panel, new TapNote(currentBeat));
+                    builder.putNote(panel, new TapNote(currentBeat));
                 }
             }
 
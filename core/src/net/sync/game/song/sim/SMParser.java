@@ -22,8 +22,6 @@
 
 package net.sync.game.song.sim;
 
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 import net.sync.game.song.Beatmap;
 import net.sync.game.song.ChartType;
 import net.sync.game.song.DifficultyClass;
@@ -58,13 +56,13 @@ public class SMParser extends TagSimParser {
     protected static Pattern TIMING_DATA_PATTERN = Pattern.compile("([+-]?\\d+(\\.\\d+)?)\\s*=\\s*(\\+?\\d+(\\.\\d+)?)");
 
     @Override
-    protected DataSupplier createDataSupplier(String rawContent) throws SimParseException {
-        return new SMDataSupplier(rawContent);
+    protected DataSupplier createDataSupplier(TagTokenizer tokenizer) throws SimParseException {
+        return new SMDataSupplier(tokenizer);
     }
 
     @Override
-    protected SimChartParser createChartParser(String chartRawContent) {
-        return new SMChartParser(chartRawContent);
+    protected SimChartParser createChartParser(RawChart chart) {
+        return new SMChartParser(chart);
     }
 
     @Override
@@ -234,20 +232,16 @@ public class SMParser extends TagSimParser {
     private static class SMDataSupplier implements DataSupplier {
         /** Contains header tags where key is the tag name and value is the tag value **/
         private Map<String, String> headerTagsMap = new HashMap<>();
-        /** Contains charts data as strings **/
-        private List<String> chartTagsValues = new ArrayList<>();
+        /** Contains charts data **/
+        private List<RawChart> charts = new ArrayList<>();
 
-        SMDataSupplier(String rawContent) throws SimParseException {
+        SMDataSupplier(TagTokenizer tokenizer) throws SimParseException {
             //Split the content into tags
-            Matcher matcher = TAG_PATTERN.matcher(rawContent);
-            while(matcher.find()) {
-                String tagName = matcher.group(1);
-                String tagValue = matcher.group(2);
-
-                if(tagName.equalsIgnoreCase("NOTES")) { //Chart tag
-                    chartTagsValues.add(tagValue);
+            while(tokenizer.next()) {
+                if(tokenizer.nameEquals("NOTES")) { //Chart tag
+                    charts.add(new RawChart(tokenizer, tokenizer.valueStart(), tokenizer.valueEnd()));
                 } else { //Header tag
-                    headerTagsMap.put(tagName.toUpperCase(), tagValue);
+                    headerTagsMap.put(tokenizer.name().toUpperCase(), tokenizer.value());
                 }
             }
 
@@ -262,28 +256,27 @@ public class SMParser extends TagSimParser {
         }
 
         @Override
-        public List<String> getChartTagValues() {
-            return chartTagsValues;
+        public List<RawChart> getCharts() {
+            return charts;
         }
 
     }
 
     protected class SMChartParser implements SimChartParser {
+        /** Number of chart data parts that precede the note data **/
+        private static final int METADATA_PARTS = 5;
+        private RawChart chart;
         private String[] chartData;
-        private String hash;
 
-        public SMChartParser(String chartRawData) {
-            //Compute the chart raw data hash
-            Hasher hasher = Hashing.sha256().newHasher();
-            hasher.putBytes(chartRawData.getBytes());
-            hash = hasher.hash().toString();
-
-            chartData = chartRawData.split("\\s*:\\s*");
+        public SMChartParser(RawChart chart) {
+            this.chart = chart;
+            //In header only mode the note data (last part) is not read
+            chartData = headerOnly ? chart.split(':', METADATA_PARTS) : TagTokenizer.split(chart.text(), ':');
         }
 
         @Override
         public void init() throws SimParseException {
-            if(chartData.length != 6) {
+            if(chartData.length != (headerOnly ? METADATA_PARTS : METADATA_PARTS + 1)) {
                 throw new SimParseException("Invalid chart data.");
             }
         }
@@ -318,11 +311,12 @@ public class SMParser extends TagSimParser {
         public Beatmap parseBeatmap() throws SimParseException {
             ChartType type = parseChartType();
             if(type != null) {
+                String beatmapData = parseBeatmapData();
                 switch(type) {
                     case DANCE_SINGLE:
-                        return new DanceSingleBeatmapParser(chartData[5]).parse();
+                        return new DanceSingleBeatmapParser(beatmapData).parse();
                     case PUMP_SINGLE:
-                        return new PumpSingleBeatmapParser(chartData[5]).parse();
+                        return new PumpSingleBeatmapParser(beatmapData).parse();
                     default:
                         throw new SimParseException("Unrecognised/Unsupported chart type: " + type);
                 }
@@ -330,6 +324,18 @@ public class SMParser extends TagSimParser {
             return null;
         }
 
+        private String parseBeatmapData() throws SimParseException {
+            if(chartData.length == METADATA_PARTS + 1) {
+                return chartData[METADATA_PARTS];
+            }
+            //Header only mode, read the whole chart data now
+            String[] data = TagTokenizer.split(chart.text(), ':');
+            if(data.length != METADATA_PARTS + 1) {
+                throw new SimParseException("Invalid chart data.");
+            }
+            return data[METADATA_PARTS];
+        }
+
         @Override
         public DisplayBPM parseDisplayBPM() throws SimParseException {
             String value = dataSupplier.getHeaderTagValue("DISPLAYBPM");
@@ -380,12 +386,12 @@ public class SMParser extends TagSimParser {
 
         @Override
         public String getHash() {
-            return hash;
+            return chart.hash();
         }
     }
 
     protected abstract static class BeatmapParser {
-        protected Beatmap beatmap = new Beatmap();
+        protected Beatmap.Builder builder = new Beatmap.Builder();
         private String[] measures;
 
         BeatmapParser(String beatmapData) {
@@ -429,7 +435,7 @@ public class SMParser extends TagSimParser {
                     currentBeat += resolution.noteDistance;
                 }
             }
-            return beatmap;
+            return builder.build();
         }
 
         /**
@@ -442,38 +448,38 @@ public class SMParser extends TagSimParser {
         public void parseNote(int panel, double beat, char c) throws SimParseException {
             switch(c) {
                 case '1':
-                    beatmap.putNote(panel, new TapNote(beat));
+                    builder.putNote(panel, new TapNote(beat));
                     break;
                 case '2':
-                    beatmap.putNote(panel, new HoldNote(beat));
+                    builder.putNote(panel, new HoldNote(beat));
                     break;
                 case '3':
-                    Note lastNote = beatmap.lastNote(panel);
+                    Note lastNote = builder.lastNote(panel);
                     //Last note in the map must be a HoldNote or RollNote otherwise beatmap data is invalid.
                     if(lastNote instanceof HoldNote) {
                         //Replace note with the properly sized one
-                        beatmap.putNote(panel, new HoldNote(lastNote.getBeat(), beat - lastNote.getBeat()));
+                        builder.putNote(panel, new HoldNote(lastNote.getBeat(), beat - lastNote.getBeat()));
                     } else if(lastNote instanceof RollNote) {
                         //Replace note with the properly sized one
-                        beatmap.putNote(panel, new RollNote(lastNote.getBeat(), beat - lastNote.getBeat()));
+                        builder.putNote(panel, new RollNote(lastNote.getBeat(), beat - lastNote.getBeat()));
                     } else {
                         throw new SimParseException("Cannot parse LengthyNote length!");
                     }
                     break;
                 case '4':
-                    beatmap.putNote(panel, new RollNote(beat));
+                    builder.putNote(panel, new RollNote(beat));
                     break;
                 case 'M':
-                    beatmap.putNote(panel, new MineNote(beat));
+                    builder.putNote(panel, new MineNote(beat));
                     break;
                 case 'K':
-                    beatmap.putNote(panel, new AutoKeySoundNote(beat));
+                    builder.putNote(panel, new AutoKeySoundNote(beat));
                     break;
                 case 'L':
-                    beatmap.putNote(panel, new LiftNote(beat));
+                    builder.putNote(panel, new LiftNote(beat));
                     break;
                 case 'F':
-                    beatmap.putNote(panel, new FakeNote(beat));
+                    builder.putNote(panel, new FakeNote(beat));
                     break;
             }
         }
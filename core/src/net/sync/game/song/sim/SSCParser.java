@@ -22,8 +22,6 @@
 
 package net.sync.game.song.sim;
 
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 import net.sync.game.song.Beatmap;
 import net.sync.game.song.ChartType;
 import net.sync.game.song.DifficultyClass;
@@ -42,13 +40,13 @@ import java.util.regex.Matcher;
  */
 public class SSCParser extends SMParser {
     @Override
-    protected DataSupplier createDataSupplier(String rawContent) throws SimParseException {
-        return new SSCDataSupplier(rawContent);
+    protected DataSupplier createDataSupplier(TagTokenizer tokenizer) throws SimParseException {
+        return new SSCDataSupplier(tokenizer);
     }
 
     @Override
-    protected SimChartParser createChartParser(String chartRawContent) {
-        return new SSCChartParser(chartRawContent);
+    protected SimChartParser createChartParser(RawChart chart) {
+        return new SSCChartParser(chart);
     }
 
     @Override
@@ -87,22 +85,21 @@ public class SSCParser extends SMParser {
     private static class SSCDataSupplier implements DataSupplier {
         /** Contains header tags where key is the tag name and value is the tag value **/
         Map<String, String> headerTagsMap = new HashMap<>();
-        /** Contains charts data as strings **/
-        List<String> chartTagsList = new ArrayList<>();
+        /** Contains charts data **/
+        List<RawChart> charts = new ArrayList<>();
 
-        SSCDataSupplier(String rawContent) throws SimParseException {
+        SSCDataSupplier(TagTokenizer tokenizer) throws SimParseException {
             boolean parsingHeader = true; //Go false when the chart data begins
-            Matcher matcher = TagSimParser.TAG_PATTERN.matcher(rawContent);
-            StringBuilder strBuilder = new StringBuilder();
-            while(matcher.find()) {
-                String tagName = matcher.group(1);
-                String tagValue = matcher.group(2);
-
-                if(tagName.equalsIgnoreCase("NOTEDATA")) {
+            int chartStart = -1; //Start of the current chart tags, -1 if there are none yet
+            int chartEnd = -1;
+            while(tokenizer.next()) {
+                if(tokenizer.nameEquals("NOTEDATA")) {
                     if(!parsingHeader) {
                         //Go to the next chart
-                        chartTagsList.add(strBuilder.toString());
-                        strBuilder = new StringBuilder(); //Reset to hold next chart data
+                        charts.add(chartStart == -1
+                                ? new RawChart(tokenizer, tokenizer.tagStart(), tokenizer.tagStart())
+                                : new RawChart(tokenizer, chartStart, chartEnd));
+                        chartStart = -1; //Reset to hold next chart data
                     } else {
                         parsingHeader = false; //Stop parsing header
                         if(headerTagsMap.size() == 0) {
@@ -112,14 +109,17 @@ public class SSCParser extends SMParser {
                     }
                 } else if(parsingHeader) {
                     //Header tag
-                    headerTagsMap.put(tagName.toUpperCase(), tagValue);
+                    headerTagsMap.put(tokenizer.name().toUpperCase(), tokenizer.value());
                 } else {
                     //Chart data tag
-                    strBuilder.append(matcher.group());
+                    if(chartStart == -1) {
+                        chartStart = tokenizer.tagStart();
+                    }
+                    chartEnd = tokenizer.tagEnd();
                 }
             }
-            if(!parsingHeader && strBuilder.length() > 0) { //Save last parsed chart
-                chartTagsList.add(strBuilder.toString());
+            if(!parsingHeader && chartStart != -1) { //Save last parsed chart
+                charts.add(new RawChart(tokenizer, chartStart, chartEnd));
             }
         }
 
@@ -129,27 +129,32 @@ public class SSCParser extends SMParser {
         }
 
         @Override
-        public List<String> getChartTagValues() {
-            return chartTagsList;
+        public List<RawChart> getCharts() {
+            return charts;
         }
     }
 
     protected class SSCChartParser implements SimChartParser {
+        private RawChart chart;
         private Map<String, String> tagsMap = new HashMap<>();
-        private String hash;
+        /** True if the note data tags values have been read **/
+        private boolean notesRead;
 
-        public SSCChartParser(String chartRawData) {
-            //Compute the chart raw data hash
-            Hasher hasher = Hashing.sha256().newHasher();
-            hasher.putBytes(chartRawData.getBytes());
-            hash = hasher.hash().toString();
+        public SSCChartParser(RawChart chart) {
+            this.chart = chart;
+            //In header only mode the note data tags values are not read
+            readTags(!headerOnly);
+        }
 
-            Matcher matcher = TagSimParser.TAG_PATTERN.matcher(chartRawData);
-            while(matcher.find()) {
-                String chartTagName = matcher.group(1);
-                String chartTagValue = matcher.group(2);
-                tagsMap.put(chartTagName.toUpperCase(), chartTagValue);
+        private void readTags(boolean readNotes) {
+            TagTokenizer tokenizer = new TagTokenizer(readNotes ? chart.text() : chart.content());
+            while(tokenizer.next()) {
+                String name = tokenizer.name().toUpperCase();
+                boolean notes = name.equals("NOTES") || name.equals("NOTES2");
+                //Note data tags are registered anyway, so that their presence can be checked
+                tagsMap.put(name, readNotes || !notes ? tokenizer.value() : null);
             }
+            notesRead = readNotes;
         }
 
         @Override
@@ -195,6 +200,9 @@ public class SSCParser extends SMParser {
 
         @Override
         public Beatmap parseBeatmap() throws SimParseException {
+            if(!notesRead) {
+                readTags(true);
+            }
             String beatmapData = tagsMap.get("NOTES");
             if(beatmapData == null) {
                 //Sometimes beatmap data is stored as NOTES2
@@ -250,7 +258,7 @@ public class SSCParser extends SMParser {
 
         @Override
         public String getHash() {
-            return hash;
+            return chart.hash();
         }
     }
 }
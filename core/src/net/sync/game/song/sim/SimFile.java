@@ -25,12 +25,11 @@ package net.sync.game.song.sim;
 import com.badlogic.gdx.files.FileHandle;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
 
 import java.io.File;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static net.sync.game.Game.settings;
 
 /**
  * A file handle that represents a sim file and provides utility methods.
@@ -54,13 +53,11 @@ public class SimFile {
     }
 
     /**
-     * Compute the sim file hash.
-     * @return the sim file hash.
+     * Compute the sim file hash, using the hash function selected in the game settings.
+     * @return the sim file hash, named after the hash function. See {@link SimHashFunction#namedHash(FileHandle)}.
      */
     public String computeHash() {
-        Hasher hasher = Hashing.sha256().newHasher();
-        hasher.putBytes(file.readBytes());
-        return hasher.hash().toString();
+        return settings().getSimHashFunction().namedHash(file);
     }
 
     /**
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song.sim;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Hash functions used to hash sim files and charts. Hashes are computed streaming the data through
+ * a buffer reused by each thread, so neither the file content nor the chart content is copied.
+ * <p>Hashes computed with different functions are different. Sim file hashes stored in the index are
+ * {@link #namedHash(FileHandle) named} after the function, so that songs hashed with another function
+ * are hashed again, together with their charts, when the function used by the game changes.</p>
+ */
+public enum SimHashFunction {
+    /** Cryptographic SHA-256 **/
+    SHA_256(Hashing.sha256()),
+    /** Non cryptographic 128 bit murmur3, much faster than SHA-256 **/
+    MURMUR3_128(Hashing.murmur3_128());
+
+    /** The size of the buffers used to stream the data **/
+    private static final int BUFFER_SIZE = 8192;
+    private static final ThreadLocal<byte[]> BYTES = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+    private static final ThreadLocal<ByteBuffer> ENCODED_BYTES = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    };
+    private static final ThreadLocal<CharsetEncoder> ENCODERS = new ThreadLocal<CharsetEncoder>() {
+        @Override
+        protected CharsetEncoder initialValue() {
+            return Charsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    };
+
+    private final HashFunction function;
+
+    SimHashFunction(HashFunction function) {
+        this.function = function;
+    }
+
+    /**
+     * Hashes the content of the given file, reading it in chunks.
+     * @param file the file.
+     * @return the hash as hexadecimal string.
+     * @throws GdxRuntimeException if the file cannot be read.
+     */
+    public String hash(FileHandle file) {
+        Hasher hasher = function.newHasher();
+        byte[] buffer = BYTES.get();
+        try(InputStream input = file.read()) {
+            int count;
+            while((count = input.read(buffer)) != -1) {
+                hasher.putBytes(buffer, 0, count);
+            }
+        } catch(IOException e) {
+            throw new GdxRuntimeException("Error reading file: " + file, e);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Hashes the content of the given file, prefixing the hash with the name of this function.
+     * @param file the file.
+     * @return the function name, followed by ':' and the hash as hexadecimal string.
+     * @throws GdxRuntimeException if the file cannot be read.
+     */
+    public String namedHash(FileHandle file) {
+        return name() + ':' + hash(file);
+    }
+
+    /**
+     * Checks if the given named hash has been computed with this function.
+     * @param namedHash a hash returned by {@link #namedHash(FileHandle)}.
+     * @return true if the hash is named after this function.
+     */
+    public boolean isNamedHash(String namedHash) {
+        return namedHash.length() > name().length()
+                && namedHash.startsWith(name())
+                && namedHash.charAt(name().length()) == ':';
+    }
+
+    /**
+     * Hashes the UTF-8 encoding of the given content, encoding it in chunks.
+     * @param content the content.
+     * @return the hash as hexadecimal string.
+     */
+    public String hash(CharSequence content) {
+        Hasher hasher = function.newHasher();
+        CharsetEncoder encoder = ENCODERS.get().reset();
+        ByteBuffer buffer = ENCODED_BYTES.get();
+        //Content decoded from the sim file is already a char buffer, that the encoder reads faster
+        CharBuffer chars = content instanceof CharBuffer ? ((CharBuffer) content).duplicate() : CharBuffer.wrap(content);
+
+        //Encode until the whole content has been consumed, emptying the buffer when it is full
+        CoderResult result;
+        do {
+            buffer.clear();
+            result = encoder.encode(chars, buffer, true);
+            buffer.flip();
+            hasher.putBytes(buffer);
+        } while(result.isOverflow());
+
+        buffer.clear();
+        encoder.flush(buffer);
+        buffer.flip();
+        hasher.putBytes(buffer);
+        return hasher.hash().toString();
+    }
+}
@@ -42,6 +42,16 @@ public interface SimParser {
      */
     void init(SimFile file) throws SimParseException;
 
+    /**
+     * Init the parser in header only mode, used when only the song data and the chart metadata
+     * are needed (e.g. when indexing songs). Note data is scanned only to find where each chart
+     * ends: chart hashes, timing data and beatmaps are computed only when requested, as a second
+     * optional pass over the chart content.
+     * @param file the sim file.
+     * @throws SimParseException if the sim file cannot be parsed correctly.
+     */
+    void initHeader(SimFile file) throws SimParseException;
+
     /**
      * It is an essential song data.
      * @return the primary title of the song.
@@ -26,16 +26,19 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import net.sync.game.song.DifficultyClass;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+
+import static net.sync.game.Game.settings;
 
 /**
  * A base for all the parser that use #TAG:VALUE; syntax to represent song data (e.g. DWI, SM, SSC)
  * <p>
  *
  *     This format supports comments. Every character after the following sequence // and before the end of the line
- *     will be ignored. This parser implementation removes every comment from the raw data before parsing it.
+ *     will be ignored. Comments are skipped by the {@link TagTokenizer} while the content is scanned.
  * </p>
  * @author Vincenzo Fortunato
  */
@@ -61,50 +64,126 @@ public abstract class TagSimParser implements SimParser {
         String getHeaderTagValue(String tagName);
 
         /**
-         * @return a list of strings where each string contains
+         * @return a list of raw charts where each one contains
          * data of a single chart. Each format must parse it according to its
          * syntax.
          */
-        List<String> getChartTagValues();
+        List<RawChart> getCharts();
     }
 
-    /** Pattern that matches the #TAG:VALUE; syntax **/
-    public static Pattern TAG_PATTERN = Pattern.compile("#\\s*([^:]+?)\\s*:\\s*([^;]*?)\\s*;");
+    /**
+     * The raw content of a single chart, as a span of the sim file content. The chart string is
+     * created only when it is needed, so the metadata of a chart can be read without copying
+     * its note data.
+     */
+    public static class RawChart {
+        private final TagTokenizer source;
+        private final int start;
+        private final int end;
+        private String text;
+        private String hash;
+
+        /**
+         * Creates a raw chart from a span of the tokenized content.
+         * @param source the tokenizer over the sim file content.
+         * @param start the chart start index.
+         * @param end the chart end index.
+         */
+        public RawChart(TagTokenizer source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Gets the chart content as string. The string is created on the first call.
+         * @return the chart content, without comments.
+         */
+        public String text() {
+            if(text == null) {
+                text = source.text(start, end);
+            }
+            return text;
+        }
+
+        /**
+         * Gets the chart content without creating a string. Comments are included.
+         * @return the chart content.
+         */
+        public CharSequence content() {
+            return source.content().subSequence(start, end);
+        }
+
+        /**
+         * Splits the leading parts of the chart content, without reading the rest of it.
+         * @param separator the separator.
+         * @param limit the maximum number of parts to read.
+         * @return at most limit parts.
+         * @see TagTokenizer#split(int, int, char, int)
+         */
+        public String[] split(char separator, int limit) {
+            return source.split(start, end, separator, limit);
+        }
+
+        /**
+         * Gets the chart content hash. The hash is computed on the first call, over the raw chart
+         * content (comments included) without creating the chart string.
+         * @return the hash of the chart content, computed with the hash function selected in the game settings.
+         */
+        public String hash() {
+            if(hash == null) {
+                hash = settings().getSimHashFunction().hash(content());
+            }
+            return hash;
+        }
+    }
 
     protected DataSupplier dataSupplier = null;
+    /** True if the parser has been initialized in header only mode **/
+    protected boolean headerOnly = false;
 
     @Override
     public void init(SimFile simFile) throws SimParseException {
+        init(simFile, false);
+    }
+
+    @Override
+    public void initHeader(SimFile simFile) throws SimParseException {
+        init(simFile, true);
+    }
+
+    private void init(SimFile simFile, boolean headerOnly) throws SimParseException {
         Preconditions.checkNotNull(simFile);
         Preconditions.checkState(dataSupplier == null, "Sim parser already initialized!");
+        this.headerOnly = headerOnly;
 
-        //Get sim file content
-        String content = simFile.getFile().readString(Charsets.UTF_8.name());
-        //Remove comments from the content and prepare the data supplier
-        dataSupplier = createDataSupplier(content.replaceAll("//.*", ""));
+        //Decode sim file content and prepare the data supplier
+        CharBuffer content = Charsets.UTF_8.decode(ByteBuffer.wrap(simFile.getFile().readBytes()));
+        dataSupplier = createDataSupplier(new TagTokenizer(content));
     }
 
     /**
      * Creates a data supplier that will be used by the parser.
-     * @param rawContent the sim file raw content without comments.
+     * @param tokenizer a tokenizer over the sim file content.
      * @return a data supplier.
      * @throws SimParseException if the data supplier cannot be created correctly.
      */
-    protected abstract DataSupplier createDataSupplier(String rawContent) throws SimParseException;
+    protected abstract DataSupplier createDataSupplier(TagTokenizer tokenizer) throws SimParseException;
 
     /**
-     * Creates a sim chart parser from the given raw chart raw content.
-     * @param chartRawContent the chart raw content.
+     * Creates a sim chart parser from the given raw chart. In header only mode the parser
+     * should read only the chart metadata until the note data is requested.
+     * @param chart the raw chart.
      * @return a sim chart parser.
      */
-    protected abstract SimChartParser createChartParser(String chartRawContent);
+    protected abstract SimChartParser createChartParser(RawChart chart);
 
     @Override
     public List<SimChartParser> getChartParsers() {
-        List<String> chartTagValues = dataSupplier.getChartTagValues();
-        List<SimChartParser> parsers = new ArrayList<>(chartTagValues.size());
-        for(String chartTagValue : chartTagValues) {
-            parsers.add(createChartParser(chartTagValue));
+        List<RawChart> charts = dataSupplier.getCharts();
+        List<SimChartParser> parsers = new ArrayList<>(charts.size());
+        for(RawChart chart : charts) {
+            parsers.add(createChartParser(chart));
         }
         return parsers;
     }
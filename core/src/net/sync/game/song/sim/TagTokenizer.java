@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song.sim;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Single pass tokenizer for the #TAG:VALUE; syntax. Scans the content once and exposes
+ * the name and value of each tag as spans of the content, so strings are created only
+ * for the tags that are actually read.</p>
+ * <p>Comments (every character after // and before the end of the line) are skipped inline
+ * while scanning. A tag name ends at the first colon and a tag value ends at the first
+ * semicolon after it. Names and values are trimmed of leading and trailing whitespaces.</p>
+ * <p>Usage:</p>
+ * <pre>
+ * TagTokenizer tokenizer = new TagTokenizer(content);
+ * while(tokenizer.next()) {
+ *     if(tokenizer.nameEquals("TITLE")) {
+ *         String title = tokenizer.value();
+ *     }
+ * }
+ * </pre>
+ */
+public class TagTokenizer {
+    private final CharSequence content;
+    private final int length;
+    /* Position where the scan of the next tag begins */
+    private int position;
+
+    /* Current tag spans. Name and value spans are trimmed. */
+    private int tagStart = -1;
+    private int tagEnd;
+    private int nameStart;
+    private int nameEnd;
+    private int valueStart;
+    private int valueLimit;
+    /* Computed on demand, trimming large values (e.g. note data) only when they are read */
+    private int valueEnd = -1;
+
+    /**
+     * Creates a tokenizer over the given content.
+     * @param content the content to tokenize, comments included.
+     */
+    public TagTokenizer(CharSequence content) {
+        this.content = Preconditions.checkNotNull(content);
+        this.length = content.length();
+    }
+
+    /**
+     * Moves to the next tag.
+     * @return true if there is a next tag, false if the end of the content has been reached.
+     */
+    public boolean next() {
+        while(true) {
+            int hash = find('#', position);
+            if(hash == -1) {
+                return end();
+            }
+            int colon = find(':', hash + 1);
+            if(colon == -1) {
+                return end();
+            }
+            int semicolon = find(';', colon + 1);
+            if(semicolon == -1) {
+                return end();
+            }
+
+            nameStart = trimStart(hash + 1, colon);
+            nameEnd = trimEnd(nameStart, colon);
+            if(nameStart == nameEnd) {
+                //Tags must have a name, try from the next character
+                position = hash + 1;
+                continue;
+            }
+            valueStart = trimStart(colon + 1, semicolon);
+            valueLimit = semicolon;
+            valueEnd = -1;
+            tagStart = hash;
+            tagEnd = semicolon + 1;
+            position = tagEnd;
+            return true;
+        }
+    }
+
+    /**
+     * Gets the current tag name.
+     * @return the tag name.
+     */
+    public String name() {
+        return text(nameStart, nameEnd);
+    }
+
+    /**
+     * Checks if the current tag name is equal to the given one, ignoring case. Doesn't create the name string.
+     * @param name the name to compare.
+     * @return true if the current tag has the given name.
+     */
+    public boolean nameEquals(String name) {
+        int nameLength = nameEnd - nameStart;
+        if(nameLength != name.length() || hasComment(nameStart, nameEnd)) {
+            return name.equalsIgnoreCase(name());
+        }
+        for(int i = 0; i < nameLength; i++) {
+            char a = Character.toUpperCase(content.charAt(nameStart + i));
+            char b = Character.toUpperCase(name.charAt(i));
+            if(a != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the current tag value.
+     * @return the tag value, without comments.
+     */
+    public String value() {
+        return text(valueStart, valueEnd());
+    }
+
+    /**
+     * Gets the index of the first character of the current tag value.
+     * @return the value start index.
+     */
+    public int valueStart() {
+        return valueStart;
+    }
+
+    /**
+     * Gets the index after the last character of the current tag value.
+     * @return the value end index.
+     */
+    public int valueEnd() {
+        if(valueEnd == -1) {
+            valueEnd = trimEnd(valueStart, valueLimit);
+        }
+        return valueEnd;
+    }
+
+    /**
+     * Gets the index of the first character of the current tag name.
+     * @return the name start index.
+     */
+    public int nameStart() {
+        return nameStart;
+    }
+
+    /**
+     * Gets the index of the # character that begins the current tag.
+     * @return the tag start index.
+     */
+    public int tagStart() {
+        return tagStart;
+    }
+
+    /**
+     * Gets the index after the ; character that ends the current tag.
+     * @return the tag end index.
+     */
+    public int tagEnd() {
+        return tagEnd;
+    }
+
+    /**
+     * Gets the tokenized content.
+     * @return the content, comments included.
+     */
+    public CharSequence content() {
+        return content;
+    }
+
+    /**
+     * Gets the whole current tag (#NAME:VALUE;) as it appears in the content.
+     * @return the tag, without comments.
+     */
+    public String tag() {
+        return text(tagStart, tagEnd);
+    }
+
+    /**
+     * Splits the given tag value into parts separated by the given separator. Whitespaces around
+     * separators are removed and trailing empty parts are discarded, as {@link String#split(String)} does.
+     * @param value the value to split.
+     * @param separator the separator.
+     * @return the value parts.
+     */
+    public static String[] split(String value, char separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int count = 0;
+        for(int i = 0; i <= value.length(); i++) {
+            if(i == value.length() || value.charAt(i) == separator) {
+                int partStart = start;
+                int partEnd = i;
+                if(start > 0) {
+                    while(partStart < partEnd && isWhitespace(value.charAt(partStart))) partStart++;
+                }
+                if(i < value.length()) {
+                    while(partEnd > partStart && isWhitespace(value.charAt(partEnd - 1))) partEnd--;
+                }
+                parts.add(value.substring(partStart, partEnd));
+                if(partEnd > partStart) {
+                    count = parts.size();
+                }
+                start = i + 1;
+            }
+        }
+        if(parts.size() == 1) {
+            //No separator found
+            return new String[] { value };
+        }
+        //Discard trailing empty parts
+        return parts.subList(0, count).toArray(new String[0]);
+    }
+
+    /**
+     * Splits the leading parts of the given span of the content, stopping after the given number of parts.
+     * The rest of the span is not read, so the first fields of a large value can be read without creating
+     * the whole value string. Parts are trimmed as in {@link #split(String, char)}; trailing empty parts are
+     * discarded only if the end of the span has been reached.
+     * @param start the span start index.
+     * @param end the span end index.
+     * @param separator the separator.
+     * @param limit the maximum number of parts to read.
+     * @return at most limit parts, without comments.
+     */
+    public String[] split(int start, int end, char separator, int limit) {
+        Preconditions.checkArgument(limit > 0, "limit must be positive");
+        List<String> parts = new ArrayList<>(limit);
+        int count = 0;
+        int partStart = start;
+        while(parts.size() < limit) {
+            int partEnd = find(separator, partStart, end);
+            if(partEnd == -1) {
+                //End of the span reached, discard trailing empty parts
+                int trimmedStart = trimStart(partStart, end);
+                String part = text(trimmedStart, trimEnd(trimmedStart, end));
+                parts.add(part);
+                if(!part.isEmpty()) {
+                    count = parts.size();
+                }
+                if(parts.size() == 1) {
+                    //No separator found
+                    return new String[] { parts.get(0) };
+                }
+                return parts.subList(0, count).toArray(new String[0]);
+            }
+            int trimmedStart = trimStart(partStart, partEnd);
+            String part = text(trimmedStart, trimEnd(trimmedStart, partEnd));
+            parts.add(part);
+            if(!part.isEmpty()) {
+                count = parts.size();
+            }
+            partStart = partEnd + 1;
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    private boolean end() {
+        tagStart = -1;
+        position = length;
+        return false;
+    }
+
+    /**
+     * Finds the given char, skipping comments.
+     * @return the char index or -1 if not found.
+     */
+    private int find(char c, int from) {
+        return find(c, from, length);
+    }
+
+    /**
+     * Finds the given char before the given index, skipping comments.
+     * @return the char index or -1 if not found.
+     */
+    private int find(char c, int from, int to) {
+        for(int i = from; i < to; i++) {
+            char current = content.charAt(i);
+            if(current == '/' && i + 1 < to && content.charAt(i + 1) == '/') {
+                i = skipComment(i) - 1;
+            } else if(current == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the end of the line that contains the comment beginning at the given index.
+     */
+    private int skipComment(int commentStart) {
+        int i = commentStart;
+        while(i < length && !isLineEnd(content.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int trimStart(int start, int end) {
+        int i = start;
+        while(i < end) {
+            char c = content.charAt(i);
+            if(c == '/' && i + 1 < end && content.charAt(i + 1) == '/') {
+                i = Math.min(skipComment(i), end);
+            } else if(isWhitespace(c)) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private int trimEnd(int start, int end) {
+        //Trailing comments can only be found scanning forward
+        int lastContent = start;
+        for(int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if(c == '/' && i + 1 < end && content.charAt(i + 1) == '/') {
+                i = Math.min(skipComment(i), end) - 1;
+            } else if(!isWhitespace(c)) {
+                lastContent = i + 1;
+            }
+        }
+        return lastContent;
+    }
+
+    private boolean hasComment(int start, int end) {
+        for(int i = start; i < end - 1; i++) {
+            if(content.charAt(i) == '/' && content.charAt(i + 1) == '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the string of the given span of the content, removing comments if there are any.
+     * @param start the span start index.
+     * @param end the span end index.
+     * @return the span text, without comments.
+     */
+    public String text(int start, int end) {
+        if(!hasComment(start, end)) {
+            return content.subSequence(start, end).toString();
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for(int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if(c == '/' && i + 1 < end && content.charAt(i + 1) == '/') {
+                i = Math.min(skipComment(i), end) - 1;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isLineEnd(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
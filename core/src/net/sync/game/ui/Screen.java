@@ -35,6 +35,8 @@ public interface Screen extends Disposable {
      * be loaded asynchronously.</p>
      * <p> The provided callback should be called when preparation completes.
      * It should be called on the rendering thread. </p>
+     * <p> The callback is called also when the preparation fails, then {@link #isPrepared()}
+     * returns false.</p>
      * @param doneCallback done callback. Must be called on the rendering thread when
      * preparation completes. (e.g. all resources have been loaded, and required
      * tasks have been terminated).
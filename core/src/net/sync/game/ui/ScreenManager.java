@@ -44,10 +44,19 @@ public class ScreenManager implements Disposable {
         Gdx.input.setInputProcessor(stage);
     }
 
+    /**
+     * Shows the given screen. If the screen isn't prepared it is prepared first, while the current screen keeps
+     * being updated and rendered. Screens usually prepare in background (see {@link Screen#prepare(Runnable)}),
+     * so the current screen acts as a transition.
+     * <p>If another screen is still preparing it is replaced by the given one: it is disposed and won't be shown.
+     * If the screen cannot be prepared the current screen stays shown.</p>
+     * @param screen the screen to show.
+     */
     public void show(Screen screen) {
         Preconditions.checkNotNull(screen, "Screen cannot be null!");
-        if(nextScreen != null) {
-            //TODO Is still loading? Block or dispose
+        if(nextScreen != null && nextScreen != screen && nextScreen != currentScreen) {
+            //Stop preparing the replaced screen
+            nextScreen.dispose();
         }
         nextScreen = screen;
 
@@ -55,8 +64,16 @@ public class ScreenManager implements Disposable {
             //Show the already prepared screen immediately
             showNextScreen();
         } else {
-            //Prepare the screen and show it when ready
-            screen.prepare(this::showNextScreen);
+            //Prepare the screen and show it when ready, unless it has been replaced meanwhile
+            screen.prepare(() -> {
+                if(nextScreen != screen) return;
+                if(screen.isPrepared()) {
+                    showNextScreen();
+                } else {
+                    nextScreen = null;
+                    Gdx.app.error("Screen Manager", "Cannot prepare screen " + screen.getClass().getSimpleName());
+                }
+            });
         }
     }
 
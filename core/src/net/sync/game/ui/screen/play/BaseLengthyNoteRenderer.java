@@ -22,9 +22,11 @@
 
 package net.sync.game.ui.screen.play;
 
-import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import net.sync.game.round.PanelState;
 import net.sync.game.round.judge.JudgmentClass;
 import net.sync.game.round.judge.TailJudgment;
@@ -45,52 +47,98 @@ public abstract class BaseLengthyNoteRenderer extends BaseNoteRenderer implement
     }
 
     @Override
-    public void draw(Batch batch, int panel, Note note, double beat, double time, float receptorX, float receptorY) {
-        if(!isNoteVisible(panel, note, beat, time)) {
-            return;
+    public void layout(NoteLayout layout, int panel, Note note, double beat, double time, float receptorX, float receptorY) {
+        super.layout(layout, panel, note, beat, time, receptorX, receptorY);
+        LengthyNote lengthyNote = (LengthyNote) note;
+        layout.bodyDrawable = getNoteBodyDrawable(panel, lengthyNote, beat, time);
+        layout.tailDrawable = getNoteTailDrawable(panel, lengthyNote, beat, time);
+        if(layout.drawable != null) {
+            layout.tailX = receptorX + getTailX(panel, lengthyNote, beat, time);
+            layout.tailY = receptorY + getTailY(panel, lengthyNote, beat, time, layout.height);
         }
+    }
 
-        Drawable bodyDrawable = getNoteBodyDrawable(panel, (LengthyNote) note, beat, time);
-        Drawable tailDrawable = getNoteTailDrawable(panel, (LengthyNote) note, beat, time);
+    @Override
+    protected void drawNote(Batch batch, NoteLayout layout) {
+        Drawable bodyDrawable = layout.bodyDrawable;
+        Drawable tailDrawable = layout.tailDrawable;
 
         if(bodyDrawable == null) return; //TODO Shouldnt be null at this point
         if(tailDrawable == null) return;
 
-        int noteX = (int) (receptorX + getNoteX(panel, note, beat, time));
-        int noteY = (int) (receptorY + getNoteY(panel, note, beat, time));
-        int noteHeight = (int) getNoteHeight(panel, note, beat, time);
-        int tailX = (int) (receptorX + getTailX(panel, (LengthyNote) note, beat, time));
-        int tailY = (int) (receptorY + getTailY(panel, (LengthyNote) note, beat, time));
+        int noteX = (int) layout.x;
+        int noteY = (int) layout.y;
+        int noteHeight = (int) layout.height;
+        int tailX = (int) layout.tailX;
+        int tailY = (int) layout.tailY;
         int tailHeight = (int) tailDrawable.getMinHeight();
         int bodyHeight = (int) (Math.abs(tailY - noteY) - tailHeight + noteHeight / 2.0f);
-        int opacity = (int) getNoteOpacity(panel, note, beat, time);
 
-        //Set opacity
-        Color color = new Color(batch.getColor());
-        color.a = opacity;
-        batch.setColor(color);
-
-        int currentY = (int) (noteY + noteHeight / 2.0f);
-        while(bodyHeight > 0) {
-            float h = Math.min(bodyHeight, bodyDrawable.getMinHeight());
-            currentY -= h;
-            bodyDrawable.draw(batch, noteX, currentY, bodyDrawable.getMinWidth(), h);
-            bodyHeight -= bodyDrawable.getMinHeight();
+        if(bodyHeight > 0) {
+            drawBody(batch, bodyDrawable, noteX, (int) (noteY + noteHeight / 2.0f), bodyHeight);
         }
         tailDrawable.draw(batch, tailX, tailY, tailDrawable.getMinWidth(), tailDrawable.getMinHeight());
 
-        super.draw(batch, panel, note, beat, time, receptorX, receptorY);
+        super.drawNote(batch, layout);
+    }
+
+    /**
+     * Draws the body of a lengthy note, repeating the body drawable from the top to the bottom. A body
+     * region covering the height of a texture with repeat vertical wrap is drawn as a single quad with
+     * repeating texture coordinates, other regions are drawn one quad per repetition. The last repetition
+     * is cropped to the body height.
+     * @param batch the batch.
+     * @param bodyDrawable the body drawable.
+     * @param x the body x.
+     * @param top the y of the body top.
+     * @param height the body height, must be positive.
+     */
+    protected void drawBody(Batch batch, Drawable bodyDrawable, float x, float top, float height) {
+        if(!(bodyDrawable instanceof TextureRegionDrawable)) {
+            //Unknown drawable, it can't be cropped
+            float currentY = top;
+            while(height > 0) {
+                float h = Math.min(height, bodyDrawable.getMinHeight());
+                currentY -= h;
+                bodyDrawable.draw(batch, x, currentY, bodyDrawable.getMinWidth(), h);
+                height -= bodyDrawable.getMinHeight();
+            }
+            return;
+        }
+
+        TextureRegion region = ((TextureRegionDrawable) bodyDrawable).getRegion();
+        Texture texture = region.getTexture();
+        float width = bodyDrawable.getMinWidth();
+        float tileHeight = bodyDrawable.getMinHeight();
+        float u = region.getU();
+        float u2 = region.getU2();
+        float v = region.getV();
+        float v2 = region.getV2();
+
+        //The batch maps the first v to the quad bottom
+        if(texture.getVWrap() == Texture.TextureWrap.Repeat && region.getRegionHeight() == texture.getHeight()) {
+            batch.draw(texture, x, top - height, width, height, u, v + (v2 - v) * (height / tileHeight), u2, v);
+            return;
+        }
+
+        float currentY = top;
+        while(height > 0) {
+            float h = Math.min(height, tileHeight);
+            currentY -= h;
+            batch.draw(texture, x, currentY, width, h, u, v + (v2 - v) * (h / tileHeight), u2, v);
+            height -= tileHeight;
+        }
     }
 
     @Override
-    public float getNoteY(int panel, Note note, double beat, double time) {
+    public float getNoteY(int panel, Note note, double beat, double time, float noteHeight) {
         if(note instanceof JudgeableNote) {
             JudgeableNote judgeableNote = (JudgeableNote) note;
             //TODO here we assume getJudgment is a TapJudgment
             TapJudgment judgment = (TapJudgment) judgeableNote.getJudgment();
             if(judgment == null || judgment.getJudgmentClass() == JudgmentClass.MISS) {
                 //Head not judged or missed
-                return super.getNoteY(panel, note, beat, time);
+                return super.getNoteY(panel, note, beat, time, noteHeight);
             }
         }
 
@@ -103,14 +151,13 @@ public abstract class BaseLengthyNoteRenderer extends BaseNoteRenderer implement
             } else {
                 Timing timing = getRound().getTiming();
                 double genBeat = timing.getBeatAt(tailJudgment.getGenTime());
-                float height = getNoteHeight(panel, note, beat, time);
                 SpeedModifier speedMod = getRound().getModifiers().getSpeedModifier();
-                return (float) -(height * speedMod.getSpeedAt(beat) * (genBeat - beat));
+                return (float) -(noteHeight * speedMod.getSpeedAt(beat) * (genBeat - beat));
             }
         }
 
         //Base lengthy note
-        return super.getNoteY(panel, note, beat, time);
+        return super.getNoteY(panel, note, beat, time, noteHeight);
     }
 
     @Override
@@ -119,11 +166,9 @@ public abstract class BaseLengthyNoteRenderer extends BaseNoteRenderer implement
     }
 
     @Override
-    public float getTailY(int panel, LengthyNote note, double beat, double time) {
-        Drawable drawable = getNoteDrawable(panel, note, beat, time);
-        float height = drawable.getMinHeight();
+    public float getTailY(int panel, LengthyNote note, double beat, double time, float noteHeight) {
         SpeedModifier speedMod = getRound().getModifiers().getSpeedModifier();
-        return (float) -(height * speedMod.getSpeedAt(beat) * (note.getBeat() + note.getLength() - beat));
+        return (float) -(noteHeight * speedMod.getSpeedAt(beat) * (note.getBeat() + note.getLength() - beat));
     }
 
     @Override
@@ -156,25 +201,21 @@ public abstract class BaseLengthyNoteRenderer extends BaseNoteRenderer implement
     }
 
     @Override
-    public boolean isNoteInsideView(int panel, Note note, double beat, double time, float receptorX, float receptorY, float viewWidth, float viewHeight) {
-        if(!super.isNoteInsideView(panel, note, beat, time, receptorX, receptorY, viewWidth, viewHeight)) {
+    public boolean isNoteInsideView(NoteLayout layout, float viewWidth, float viewHeight) {
+        if(!super.isNoteInsideView(layout, viewWidth, viewHeight)) {
             //Head not inside view, check trail
-            Drawable noteDrawable = getNoteDrawable(panel, note, beat, time);
-            Drawable bodyDrawable = getNoteBodyDrawable(panel, (LengthyNote) note, beat, time);
-            Drawable tailDrawable = getNoteTailDrawable(panel, (LengthyNote) note, beat, time);
+            Drawable noteDrawable = layout.drawable;
+            Drawable bodyDrawable = layout.bodyDrawable;
+            Drawable tailDrawable = layout.tailDrawable;
 
             if(bodyDrawable == null || tailDrawable == null || noteDrawable == null)
                 return false; //TODO Shouldnt be null at this point
 
-            float noteY = getNoteY(panel, note, beat, time);
-            float tailX = getTailX(panel, (LengthyNote) note, beat, time);
-            float tailY = getTailY(panel, (LengthyNote) note, beat, time);
-
             //Trail bounds
-            float x = tailX + receptorX;
-            float y = tailY + receptorY;
+            float x = layout.tailX;
+            float y = layout.tailY;
             float width = Math.max(bodyDrawable.getMinWidth(), tailDrawable.getMinWidth());
-            float height = Math.abs(tailY - noteY) + noteDrawable.getMinHeight() / 2.0f;
+            float height = Math.abs(layout.tailY - layout.y) + layout.height / 2.0f;
             return x < viewWidth && x + width > 0 && y < viewHeight && y + height > 0;
         }
 
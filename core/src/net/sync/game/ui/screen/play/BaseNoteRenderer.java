@@ -22,7 +22,6 @@
 
 package net.sync.game.ui.screen.play;
 
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TransformDrawable;
@@ -30,6 +29,7 @@ import net.sync.game.round.Round;
 import net.sync.game.round.modifier.SpeedModifier;
 import net.sync.game.song.note.Note;
 import net.sync.game.song.note.NotePanel;
+import net.sync.game.util.ui.PackedColors;
 
 public abstract class BaseNoteRenderer implements NoteRenderer {
     private final BeatmapView view;
@@ -39,37 +39,59 @@ public abstract class BaseNoteRenderer implements NoteRenderer {
     }
 
     @Override
-    public void draw(Batch batch, int panel, Note note, double beat, double time, float receptorX, float receptorY) {
-        if(!isNoteVisible(panel, note, beat, time)) {
-            return;
-        }
-
+    public void layout(NoteLayout layout, int panel, Note note, double beat, double time, float receptorX, float receptorY) {
         Drawable drawable = getNoteDrawable(panel, note, beat, time);
+        layout.panel = panel;
+        layout.note = note;
+        layout.drawable = drawable;
+        layout.bodyDrawable = null;
+        layout.tailDrawable = null;
         if(drawable == null) { //TODO at this point drawable should not be null
+            layout.visible = false;
             return;
         }
 
-        float width = getNoteWidth(panel, note, beat, time);
-        float height = getNoteHeight(panel, note, beat, time);
-        float x = receptorX + getNoteX(panel, note, beat, time);
-        float y = receptorY + getNoteY(panel, note, beat, time);
-        float originX = width / 2.0f;
-        float originY = height / 2.0f;
-        float rotation = getNoteRotation(panel, note, beat, time);
-        float scaleX = getNoteScaleX(panel, note, beat, time);
-        float scaleY = getNoteScaleY(panel, note, beat, time);
-        float opacity = getNoteOpacity(panel, note, beat, time);
+        layout.visible = isNoteVisible(panel, note, beat, time);
+        layout.width = drawable.getMinWidth();
+        layout.height = drawable.getMinHeight();
+        layout.x = receptorX + getNoteX(panel, note, beat, time);
+        layout.y = receptorY + getNoteY(panel, note, beat, time, layout.height);
+        if(layout.visible) {
+            layout.rotation = getNoteRotation(panel, note, beat, time);
+            layout.scaleX = getNoteScaleX(panel, note, beat, time);
+            layout.scaleY = getNoteScaleY(panel, note, beat, time);
+            layout.opacity = getNoteOpacity(panel, note, beat, time);
+        }
+    }
+
+    @Override
+    public void draw(Batch batch, NoteLayout layout) {
+        if(!layout.visible) {
+            return;
+        }
 
         //Set opacity
-        Color color = new Color(batch.getColor());
-        color.a = opacity;
-        batch.setColor(color);
+        float color = batch.getPackedColor();
+        batch.setPackedColor(PackedColors.withAlpha(color, layout.opacity));
+        drawNote(batch, layout);
+        batch.setPackedColor(color);
+    }
 
+    /**
+     * Draws a visible note with the batch color already set.
+     * @param batch the batch.
+     * @param layout the note layout.
+     */
+    protected void drawNote(Batch batch, NoteLayout layout) {
+        Drawable drawable = layout.drawable;
+        float width = layout.width;
+        float height = layout.height;
         if(drawable instanceof TransformDrawable) {
             TransformDrawable transformDrawable = (TransformDrawable) drawable;
-            transformDrawable.draw(batch, x, y, originX, originY, width, height, scaleX, scaleY, rotation);
+            transformDrawable.draw(batch, layout.x, layout.y, width / 2.0f, height / 2.0f, width, height,
+                    layout.scaleX, layout.scaleY, layout.rotation);
         } else {
-            drawable.draw(batch, x, y, width * scaleX, height * scaleY);
+            drawable.draw(batch, layout.x, layout.y, width * layout.scaleX, height * layout.scaleY);
         }
     }
 
@@ -79,23 +101,9 @@ public abstract class BaseNoteRenderer implements NoteRenderer {
     }
 
     @Override
-    public float getNoteY(int panel, Note note, double beat, double time) {
-        Drawable drawable = getNoteDrawable(panel, note, beat, time);
-        float height = drawable.getMinHeight();
+    public float getNoteY(int panel, Note note, double beat, double time, float noteHeight) {
         SpeedModifier speedMod = getRound().getModifiers().getSpeedModifier();
-        return (float) -(height * speedMod.getSpeedAt(beat) * (note.getBeat() - beat));
-    }
-
-    @Override
-    public float getNoteWidth(int panel, Note note, double beat, double time) {
-        Drawable drawable = getNoteDrawable(panel, note, beat, time);
-        return drawable != null ? drawable.getMinWidth() : 0;
-    }
-
-    @Override
-    public float getNoteHeight(int panel, Note note, double beat, double time) {
-        Drawable drawable = getNoteDrawable(panel, note, beat, time);
-        return drawable != null ? drawable.getMinHeight() : 0;
+        return (float) -(noteHeight * speedMod.getSpeedAt(beat) * (note.getBeat() - beat));
     }
 
     @Override
@@ -134,22 +142,26 @@ public abstract class BaseNoteRenderer implements NoteRenderer {
     }
 
     @Override
-    public boolean isNoteInsideView(int panel, Note note, double beat, double time,
-                                    float receptorX, float receptorY, float viewWidth, float viewHeight) {
-        Drawable drawable = getNoteDrawable(panel, note, beat, time);
-        if(drawable == null) { //TODO at this point drawable should not be null
+    public boolean isNoteInsideView(NoteLayout layout, float viewWidth, float viewHeight) {
+        if(layout.drawable == null) { //TODO at this point drawable should not be null
             return false;
         }
 
-        float x = receptorX + getNoteX(panel, note, beat, time);
-        float y = receptorY + getNoteY(panel, note, beat, time);
-        float width = drawable.getMinWidth();
-        float height = drawable.getMinHeight();
-        return x < viewWidth && x + width > 0 && y < viewHeight && y + height > 0;
+        float x = layout.x;
+        float y = layout.y;
+        return x < viewWidth && x + layout.width > 0 && y < viewHeight && y + layout.height > 0;
     }
 
     @Override
     public Round getRound() {
         return view.getRound();
     }
+
+    /**
+     * Gets the view the renderer draws to.
+     * @return the beatmap view.
+     */
+    protected BeatmapView getView() {
+        return view;
+    }
 }
@@ -24,6 +24,7 @@ package net.sync.game.ui.screen.play;
 
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.scenes.scene2d.ui.Widget;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import net.sync.game.round.Round;
 import net.sync.game.song.Beatmap;
 import net.sync.game.song.Timing;
@@ -50,6 +51,9 @@ public class BeatmapView extends Widget {
 
     private int[] panels = NotePanel.getModePanels(settings().getGameMode());
 
+    /* Layout of the note being drawn, reused for all the notes */
+    private final NoteLayout layout = new NoteLayout();
+
     public BeatmapView(Round round) {
         super();
         this.round = round;
@@ -66,9 +70,9 @@ public class BeatmapView extends Widget {
         double beat = timing.getBeatAt(time);
 
         //Draw panels
-        for(int panel : panels) {
-            drawReceptor(batch, panel, beat, time);
-            drawNotes(batch, panel, beat, time);
+        for(int i = 0; i < panels.length; i++) {
+            drawReceptor(batch, panels[i], beat, time);
+            drawNotes(batch, panels[i], beat, time);
         }
     }
 
@@ -78,6 +82,11 @@ public class BeatmapView extends Widget {
 
     private void drawNotes(Batch batch, int panel, double beat, double time) {
         Beatmap beatmap = getBeatmap();
+        int count = beatmap.countNotes(panel);
+        if(count == 0) {
+            //There is no note inside the beatmap for the given panel.
+            return;
+        }
 
         //Calculate view x, y, width and height to use for note rendering.
         //View position is relative to the receptor position.
@@ -85,68 +94,103 @@ public class BeatmapView extends Widget {
         float receptorY = receptorRenderer.getReceptorY(panel, beat, time);
         float viewW = getWidth();
         float viewH = getHeight();
-        Note note;
-        NoteRenderer renderer;
 
-        //Get the render starting note
-        note = findStartingNote(panel, beat, time, receptorX, receptorY, viewW, viewH);
+        //Get the beats of the first and last notes that can appear at the top and bottom of the view.
+        //If notes don't scroll the visible range can't be computed and all the notes are checked.
+        double startBeat = Double.NEGATIVE_INFINITY;
+        double endBeat = Double.POSITIVE_INFINITY;
+        int index = 0;
+        int viewIndex = 0;
+        float spacing = getBeatSpacing(panel, beat, time);
+        if(spacing > 0) {
+            startBeat = beat - (viewH - receptorY) / spacing;
+            endBeat = beat + (receptorY + spacing) / spacing;
+            viewIndex = findStartingNote(panel, beat, time, startBeat, receptorX, receptorY, viewW, viewH);
+
+            //Lengthy notes starting above the view can still reach it with their tail
+            index = beatmap.ceilingEndIndex(panel, startBeat);
+            if(index == -1 || index > viewIndex) {
+                index = viewIndex;
+            }
+        }
+
+        //Render the lengthy notes reaching the view from above, notes ending above the view are skipped
+        //without laying them out.
+        for(; index < viewIndex; index++) {
+            if(beatmap.getBeatAt(panel, index) + beatmap.getLengthAt(panel, index) >= startBeat
+                    && layoutNote(panel, index, beat, time, receptorX, receptorY, viewW, viewH)) {
+                getNoteRenderer(layout.note).draw(batch, layout);
+            }
+        }
 
-        //Start by rendering the starting note, then render next notes until a note
-        //outside the view is found or the end of the beatmap is reached.
-        while(note != null && (renderer = getNoteRenderer(note)).isNoteInsideView(panel, note, beat, time, receptorX, receptorY, viewW, viewH)) {
-            renderer.draw(batch, panel, note, beat, time, receptorX, receptorY);
-            note = beatmap.higherNote(panel, note.getBeat());
+        //Render notes from the starting note until a note outside the view is found
+        //past the end beat, or the end of the beatmap is reached.
+        for(; index < count; index++) {
+            if(layoutNote(panel, index, beat, time, receptorX, receptorY, viewW, viewH)) {
+                getNoteRenderer(layout.note).draw(batch, layout);
+            } else if(beatmap.getBeatAt(panel, index) > endBeat) {
+                break;
+            }
         }
     }
 
     /**
-     * Find the first note that appears inside the view for the given panel. Render will begin from this
-     * note and will continue with following notes until reaching a note that renders outside the view.
+     * Find the first note that may appear inside the view for the given panel, ignoring the lengthy notes
+     * starting above the view. The first note inside the visible beat range is found with a binary search,
+     * then the preceding notes still appearing inside the view are included.
      * @param panel the note panel
      * @param beat the current beat
      * @param time the current time
+     * @param startBeat the beat at the top of the view
      * @param receptorX the receptor x position inside the view
      * @param receptorY the receptor y position inside the view
      * @param viewW the view width
      * @param viewH the view height
-     * @return the render starting note, or null if there are no notes to render.
+     * @return the index of the render starting note, or the count of notes if there is no such note.
      */
-    private Note findStartingNote(int panel, double beat, double time,
-                                                          float receptorX, float receptorY, float viewW, float viewH) {
+    private int findStartingNote(int panel, double beat, double time, double startBeat,
+                                 float receptorX, float receptorY, float viewW, float viewH) {
         Beatmap beatmap = getBeatmap();
 
-        if(!beatmap.hasNotes(panel)) {
-            //There is no note inside the beatmap for the given panel.
-            return null;
+        //Get the first note that can appear at the top of the view
+        int index = beatmap.ceilingIndex(panel, startBeat);
+        if(index == -1) {
+            index = beatmap.countNotes(panel);
         }
 
-        Note note;
-        NoteRenderer renderer;
-
-        //Start by getting the closest floor note and find the
-        //first note that does not appear inside the view.
-        note = beatmap.floorNote(panel, beat);
-
-        while(note != null) {
-            renderer = getNoteRenderer(note);
-            if(renderer.isNoteInsideView(panel, note, beat, time, receptorX, receptorY, viewW, viewH)) {
-                note = beatmap.lowerNote(panel, note.getBeat());
-            } else {
-                break;
-            }
+        //Notes smaller than the receptor are closer to each other, include
+        //the preceding notes that still appear inside the view.
+        while(index > 0 && layoutNote(panel, index - 1, beat, time, receptorX, receptorY, viewW, viewH)) {
+            index--;
         }
 
-        note = note != null ? beatmap.higherNote(panel, note.getBeat()) : beatmap.firstNote(panel);
+        return index;
+    }
 
-        if(note != null) {
-            renderer = getNoteRenderer(note);
-            if(renderer.isNoteInsideView(panel, note, beat, time, receptorX, receptorY, viewW, viewH)) {
-                return note;
-            }
+    /**
+     * Gets the distance in pixels between two consecutive beats. Notes are spaced by their own height,
+     * the receptor height is used assuming notes are as big as the receptor.
+     * @return the beat spacing, 0 if the notes don't scroll.
+     */
+    private float getBeatSpacing(int panel, double beat, double time) {
+        Drawable receptor = receptorRenderer.getReceptorDrawable(panel, beat, time);
+        double speed = getRound().getModifiers().getSpeedModifier().getSpeedAt(beat);
+        if(receptor == null || !(speed > 0)) {
+            return 0.0f;
         }
+        return (float) (receptor.getMinHeight() * speed);
+    }
 
-        //There is no note to render inside the view
-        return null;
+    /**
+     * Lays out the note at the given index inside the view layout.
+     * @return true if the note is inside the view, false otherwise.
+     */
+    private boolean layoutNote(int panel, int index, double beat, double time,
+                               float receptorX, float receptorY, float viewW, float viewH) {
+        Note note = getBeatmap().getNoteAt(panel, index);
+        NoteRenderer renderer = getNoteRenderer(note);
+        renderer.layout(layout, panel, note, beat, time, receptorX, receptorY);
+        return renderer.isNoteInsideView(layout, viewW, viewH);
     }
 
     private NoteRenderer getNoteRenderer(Note note) {
@@ -159,6 +203,14 @@ public class BeatmapView extends Widget {
         return null;
     }
 
+    /**
+     * Gets the panels drawn by the view.
+     * @return the panels, must not be modified.
+     */
+    public int[] getPanels() {
+        return panels;
+    }
+
     public Beatmap getBeatmap() {
         return getRound().getChart().beatmap;
     }
@@ -29,21 +29,32 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.InputListener;
 import com.badlogic.gdx.scenes.scene2d.ui.Widget;
+import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.IntArray;
+import net.sync.game.round.PanelEventQueue;
 import net.sync.game.round.PanelState;
 import net.sync.game.round.Round;
 import net.sync.game.song.note.NotePanel;
 
-public class ControlsView extends Widget {
+public class ControlsView extends Widget implements Disposable {
+    private static final Color PRESSED_COLOR = new Color(1, 0, 0, 0.3f);
+
     private float controlWidth = 40;
     private float controlHeight = 40;
 
     private Round round;
 
+    /* Reused at each frame and input event */
+    private ShapeRenderer renderer;
+    private final Rectangle leftRect = new Rectangle();
+    private final Rectangle rightRect = new Rectangle();
+    private final Rectangle upRect = new Rectangle();
+    private final Rectangle downRect = new Rectangle();
+    private final Rectangle[] rects = { leftRect, rightRect, upRect, downRect };
+
     public ControlsView(Round round) {
         super();
         this.round = round;
@@ -59,12 +70,16 @@ public class ControlsView extends Widget {
         }
         batch.end();
 
-        ShapeRenderer renderer = new ShapeRenderer();
-        renderer.setAutoShapeType(true);
+        if(renderer == null) {
+            renderer = new ShapeRenderer();
+            renderer.setAutoShapeType(true);
+        }
+        //Screen coordinates, as a new renderer would use
+        renderer.getProjectionMatrix().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        renderer.updateMatrices();
         renderer.begin(ShapeRenderer.ShapeType.Line);
 
         Rectangle[] rects = getRects();
-        Vector2 center = new Vector2();
 
         for(int i = 0; i < rects.length; i++) {
             Rectangle rect = rects[i];
@@ -88,8 +103,7 @@ public class ControlsView extends Widget {
                     break;
             }
             if(getControls().isPressedAt(panel, round.getMusicPosition().getPosition())) {
-                rect.getCenter(center);
-                renderer.setColor(new Color(1, 0, 0, 0.3f));
+                renderer.setColor(PRESSED_COLOR);
                 renderer.set(ShapeRenderer.ShapeType.Filled);
                 renderer.rect(rect.x, rect.y, rect.width, rect.height);
             }
@@ -99,36 +113,48 @@ public class ControlsView extends Widget {
         batch.begin();
     }
 
+    @Override
+    public void dispose() {
+        if(renderer != null) {
+            renderer.dispose();
+            renderer = null;
+        }
+    }
+
     private Rectangle[] getRects() {
-        return new Rectangle[] { getLeftRect(), getRightRect(), getUpRect(), getDownRect() };
+        getLeftRect();
+        getRightRect();
+        getUpRect();
+        getDownRect();
+        return rects;
     }
 
     private Rectangle getLeftRect() {
         float controlHeight = this.controlHeight * 2.0f;
         float baseX = getWidth() / 2 - controlWidth * 1.5f;
         float baseY = 350;
-        return new Rectangle(baseX, baseY + this.controlHeight / 2, controlWidth, controlHeight);
+        return leftRect.set(baseX, baseY + this.controlHeight / 2, controlWidth, controlHeight);
     }
 
     private Rectangle getRightRect() {
         float controlHeight = this.controlHeight * 2.0f;
         float baseX = getWidth() / 2 - controlWidth * 1.5f;
         float baseY = 350;
-        return new Rectangle(baseX + controlWidth * 2, baseY + this.controlHeight / 2, controlWidth, controlHeight);
+        return rightRect.set(baseX + controlWidth * 2, baseY + this.controlHeight / 2, controlWidth, controlHeight);
     }
 
     private Rectangle getUpRect() {
         float controlWidth = this.controlWidth * 2;
         float baseX = getWidth() / 2 - this.controlWidth * 1.5f;
         float baseY = 350;
-        return new Rectangle(baseX + this.controlWidth / 2, baseY + controlHeight * 2.5f, controlWidth, controlHeight);
+        return upRect.set(baseX + this.controlWidth / 2, baseY + controlHeight * 2.5f, controlWidth, controlHeight);
     }
 
     private Rectangle getDownRect() {
         float controlWidth = this.controlWidth * 2;
         float baseX = getWidth() / 2 - this.controlWidth * 1.5f;
         float baseY = 350;
-        return new Rectangle(baseX + this.controlWidth / 2, baseY - controlHeight * 0.5f, controlWidth, controlHeight);
+        return downRect.set(baseX + this.controlWidth / 2, baseY - controlHeight * 0.5f, controlWidth, controlHeight);
     }
 
     private float getDistance(float x, float y, Rectangle rect) {
@@ -141,6 +167,21 @@ public class ControlsView extends Widget {
         return round.getPanelState();
     }
 
+    /**
+     * Queues a panel state change. Input listeners run on the rendering thread, which also drains the queue
+     * when the round is updated: if the queue is full its events are applied right away, so no change is lost.
+     * @param panel the panel
+     * @param time the time in seconds when the change occurred
+     * @param pressed the state, true if pressed, false if released
+     */
+    private void offer(int panel, double time, boolean pressed) {
+        PanelEventQueue queue = round.getInputQueue();
+        if(!queue.offer(panel, time, pressed)) {
+            queue.drain(round.getPanelState());
+            queue.offer(panel, time, pressed);
+        }
+    }
+
     class MobileControlListener extends InputListener {
         private IntArray leftPointers = new IntArray();
         private IntArray downPointers = new IntArray();
@@ -157,28 +198,28 @@ public class ControlsView extends Widget {
                     if(!leftPointers.contains(pointer)) {
                         removePointer(pointer);
                         leftPointers.add(pointer);
-                        getControls().setPressed(noteColumn, eventTimeSeconds);
+                        offer(noteColumn, eventTimeSeconds, true);
                     }
                     break;
                 case NotePanel.DOWN:
                     if(!downPointers.contains(pointer)) {
                         removePointer(pointer);
                         downPointers.add(pointer);
-                        getControls().setPressed(noteColumn, eventTimeSeconds);
+                        offer(noteColumn, eventTimeSeconds, true);
                     }
                     break;
                 case NotePanel.UP:
                     if(!upPointers.contains(pointer)) {
                         removePointer(pointer);
                         upPointers.add(pointer);
-                        getControls().setPressed(noteColumn, eventTimeSeconds);
+                        offer(noteColumn, eventTimeSeconds, true);
                     }
                     break;
                 case NotePanel.RIGHT:
                     if(!rightPointers.contains(pointer)) {
                         removePointer(pointer);
                         rightPointers.add(pointer);
-                        getControls().setPressed(noteColumn, eventTimeSeconds);
+                        offer(noteColumn, eventTimeSeconds, true);
                     }
                     break;
             }
@@ -190,7 +231,7 @@ public class ControlsView extends Widget {
 
             double eventTimeSeconds = round.getMusicPosition().getPositionAt(Gdx.input.getCurrentEventTime());
 
-            getControls().setPressed(noteColumn, eventTimeSeconds);
+            offer(noteColumn, eventTimeSeconds, true);
             switch(noteColumn) {
                 case NotePanel.LEFT:
                     leftPointers.add(pointer);
@@ -244,21 +285,19 @@ public class ControlsView extends Widget {
         }
 
         private void removePointer(int pointer) {
-            PanelState panelState = getControls();
-
             double eventTimeSeconds = round.getMusicPosition().getPositionAt(Gdx.input.getCurrentEventTime());
 
             if(leftPointers.removeValue(pointer) && leftPointers.size == 0) {
-                panelState.setReleased(NotePanel.LEFT, eventTimeSeconds);
+                offer(NotePanel.LEFT, eventTimeSeconds, false);
             }
             else if(rightPointers.removeValue(pointer) && rightPointers.size == 0) {
-                panelState.setReleased(NotePanel.RIGHT, eventTimeSeconds);
+                offer(NotePanel.RIGHT, eventTimeSeconds, false);
             }
             else if(downPointers.removeValue(pointer) && downPointers.size == 0)  {
-                panelState.setReleased(NotePanel.DOWN, eventTimeSeconds);
+                offer(NotePanel.DOWN, eventTimeSeconds, false);
             }
             else if(upPointers.removeValue(pointer) && upPointers.size == 0) {
-                panelState.setReleased(NotePanel.UP, eventTimeSeconds);
+                offer(NotePanel.UP, eventTimeSeconds, false);
             }
         }
     }
@@ -268,16 +307,16 @@ public class ControlsView extends Widget {
         public boolean keyDown(InputEvent event, int keycode) {
             double eventTimeSeconds = round.getMusicPosition().getPosition();
             if(keycode == Input.Keys.Y) {
-                getControls().setPressed(NotePanel.UP, eventTimeSeconds);
+                offer(NotePanel.UP, eventTimeSeconds, true);
             }
             if(keycode == Input.Keys.G) {
-                getControls().setPressed(NotePanel.LEFT, eventTimeSeconds);
+                offer(NotePanel.LEFT, eventTimeSeconds, true);
             }
             if(keycode == Input.Keys.H) {
-                getControls().setPressed(NotePanel.DOWN, eventTimeSeconds);
+                offer(NotePanel.DOWN, eventTimeSeconds, true);
             }
             if(keycode == Input.Keys.J) {
-                getControls().setPressed(NotePanel.RIGHT, eventTimeSeconds);
+                offer(NotePanel.RIGHT, eventTimeSeconds, true);
             }
             return true;
         }
@@ -286,16 +325,16 @@ public class ControlsView extends Widget {
         public boolean keyUp(InputEvent event, int keycode) {
             double eventTimeSeconds = round.getMusicPosition().getPosition();
             if(keycode == Input.Keys.Y) {
-                getControls().setReleased(NotePanel.UP, eventTimeSeconds);
+                offer(NotePanel.UP, eventTimeSeconds, false);
             }
             if(keycode == Input.Keys.G) {
-                getControls().setReleased(NotePanel.LEFT, eventTimeSeconds);
+                offer(NotePanel.LEFT, eventTimeSeconds, false);
             }
             if(keycode == Input.Keys.H) {
-                getControls().setReleased(NotePanel.DOWN, eventTimeSeconds);
+                offer(NotePanel.DOWN, eventTimeSeconds, false);
             }
             if(keycode == Input.Keys.J) {
-                getControls().setReleased(NotePanel.RIGHT, eventTimeSeconds);
+                offer(NotePanel.RIGHT, eventTimeSeconds, false);
             }
             return true;
         }
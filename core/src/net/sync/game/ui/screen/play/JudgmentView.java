@@ -22,7 +22,6 @@
 
 package net.sync.game.ui.screen.play;
 
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.scenes.scene2d.ui.Widget;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
@@ -32,6 +31,7 @@ import net.sync.game.round.judge.Judgment;
 import net.sync.game.round.judge.JudgmentClass;
 import net.sync.game.round.judge.TailJudgment;
 import net.sync.game.round.judge.TapJudgment;
+import net.sync.game.util.ui.PackedColors;
 
 import static net.sync.game.Game.resources;
 
@@ -83,9 +83,8 @@ public class JudgmentView extends Widget {
             if(drawable == null) return; //TODO
 
             //Set opacity
-            Color color = new Color(batch.getColor());
-            color.a = 1.0f;
-            batch.setColor(color);
+            float color = batch.getPackedColor();
+            batch.setPackedColor(PackedColors.withAlpha(color, 1.0f));
 
             //Draw
             float x = getWidth() / 2 - drawable.getMinWidth() / 2;
@@ -93,6 +92,7 @@ public class JudgmentView extends Widget {
             float w = drawable.getMinWidth();
             float h = drawable.getMinHeight();
             drawable.draw(batch, x, y, w, h);
+            batch.setPackedColor(color);
         }
     }
 
@@ -45,9 +45,10 @@ public interface LengthyNoteRenderer extends NoteRenderer {
      * @param note the note.
      * @param beat the note beat.
      * @param time current time relative to the start of the music track.
+     * @param noteHeight the unscaled note height, that is the distance between two beats at speed 1.
      * @return the y position relative to the receptor y position.
      */
-    float getTailY(int panel, LengthyNote note, double beat, double time);
+    float getTailY(int panel, LengthyNote note, double beat, double time, float noteHeight);
 
     /**
      * Checks if the note is active. For example hold/roll notes are active
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.ui.screen.play;
+
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import net.sync.game.song.note.Note;
+
+/**
+ * The drawables and the geometry of a note in the frame being drawn. They are resolved once for each note by
+ * {@link NoteRenderer#layout(NoteLayout, int, Note, double, double, float, float)}, then used to check the note
+ * bounds and to draw it. A single instance is reused for all the notes, so drawing doesn't allocate.
+ */
+public class NoteLayout {
+    /** The note panel */
+    public int panel;
+    /** The note */
+    public Note note;
+    /** True if the note must be drawn, see {@link NoteRenderer#isNoteVisible(int, Note, double, double)} */
+    public boolean visible;
+    /** The note drawable, null if the note cannot be drawn */
+    public Drawable drawable;
+    /** The note x position inside the view */
+    public float x;
+    /** The note y position inside the view */
+    public float y;
+    /** The note unscaled width */
+    public float width;
+    /** The note unscaled height */
+    public float height;
+    /** The note scale x, set only if the note is visible */
+    public float scaleX;
+    /** The note scale y, set only if the note is visible */
+    public float scaleY;
+    /** The note rotation in degrees, set only if the note is visible */
+    public float rotation;
+    /** The note opacity, set only if the note is visible */
+    public float opacity;
+    /** The body drawable of lengthy notes, null for other notes */
+    public Drawable bodyDrawable;
+    /** The tail drawable of lengthy notes, null for other notes */
+    public Drawable tailDrawable;
+    /** The tail x position inside the view, set only for lengthy notes */
+    public float tailX;
+    /** The tail y position inside the view, set only for lengthy notes */
+    public float tailY;
+}
@@ -30,17 +30,25 @@ import net.sync.game.song.note.Note;
 
 public interface NoteRenderer {
     /**
-     * Draw a note to the batch. Batch is translated to the view position.
-     * Is called only if {@link #isNoteInsideView(int, Note, double, double, float, float, float, float)} returns true.
-     * @param batch the batch.
+     * Resolves the note drawables and geometry for the current frame, calling each getter at most once,
+     * and stores them inside the given layout.
+     * @param layout the layout to fill, previous values must be ignored.
      * @param panel the note panel.
-     * @param note the note to draw.
+     * @param note the note.
      * @param beat the current beat.
      * @param time the current time relative to the start of the music track.
      * @param receptorX the receptor x position inside the view.
      * @param receptorY the receptor y position inside the view.
      */
-    void draw(Batch batch, int panel, Note note, double beat, double time, float receptorX, float receptorY);
+    void layout(NoteLayout layout, int panel, Note note, double beat, double time, float receptorX, float receptorY);
+
+    /**
+     * Draw a note to the batch. Batch is translated to the view position.
+     * Is called only if {@link #isNoteInsideView(NoteLayout, float, float)} returns true.
+     * @param batch the batch.
+     * @param layout the note layout, see {@link #layout(NoteLayout, int, Note, double, double, float, float)}.
+     */
+    void draw(Batch batch, NoteLayout layout);
 
     /**
      * Gets note x position relative to receptor x position.
@@ -58,29 +66,10 @@ public interface NoteRenderer {
      * @param note the note.
      * @param beat the current beat.
      * @param time the current time relative to the start of the music track.
+     * @param noteHeight the unscaled note height, that is the distance between two beats at speed 1.
      * @return the y position relative to the receptor y position.
      */
-    float getNoteY(int panel, Note note, double beat, double time);
-
-    /**
-     * Gets unscaled note width.
-     * @param panel the note panel.
-     * @param note the note.
-     * @param beat the current beat.
-     * @param time the current time relative to the start of the music track.
-     * @return the note unscaled width.
-     */
-    float getNoteWidth(int panel, Note note, double beat, double time);
-
-    /**
-     * Gets unscaled note height.
-     * @param panel the note panel.
-     * @param note the note.
-     * @param beat the current beat.
-     * @param time the current time relative to the start of the music track.
-     * @return the note unscaled width.
-     */
-    float getNoteHeight(int panel, Note note, double beat, double time);
+    float getNoteY(int panel, Note note, double beat, double time, float noteHeight);
 
     /**
      * Gets note scale x.
@@ -138,18 +127,12 @@ public interface NoteRenderer {
      * Checks if the given note is inside the view.
      * Only notes inside the view will be drawn. It should ignore
      * note properties like opacity and visibility.
-     * @param panel the note panel.
-     * @param note the note.
-     * @param beat the current beat.
-     * @param time the current time relative to the start of the music track.
-     * @param receptorX the receptor x position inside the view.
-     * @param receptorY the receptor y position inside the view.
+     * @param layout the note layout, see {@link #layout(NoteLayout, int, Note, double, double, float, float)}.
      * @param viewWidth the view width.
      * @param viewHeight the view height.
      * @return true if the given note is inside the view, false otherwise.
      */
-    boolean isNoteInsideView(int panel, Note note, double beat, double time,
-                             float receptorX, float receptorY, float viewWidth, float viewHeight);
+    boolean isNoteInsideView(NoteLayout layout, float viewWidth, float viewHeight);
 
     /**
      * Gets note drawable.
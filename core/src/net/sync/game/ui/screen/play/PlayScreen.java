@@ -29,22 +29,35 @@ import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Stack;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.sync.game.Game;
 import net.sync.game.round.Round;
 import net.sync.game.song.Chart;
 import net.sync.game.song.ChartType;
 import net.sync.game.song.Song;
 import net.sync.game.song.SongLoader;
-import net.sync.game.song.sim.SimParser;
+import net.sync.game.song.sim.SimParseException;
 import net.sync.game.ui.Screen;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
 import static net.sync.game.Game.disposer;
+import static net.sync.game.Game.executors;
 import static net.sync.game.Game.resources;
+import static net.sync.game.Game.songs;
 
 /**
  * @author Vincenzo Fortunato
  */
 public class PlayScreen implements Screen {
+    /* Threads loading the chart and the music in parallel */
+    private static final int LOADER_THREADS = 2;
     private static PlayScreen instance;
 
     /* True if the screen is still preparing */
@@ -53,6 +66,8 @@ public class PlayScreen implements Screen {
     private boolean prepared = false;
     /* The preparation done callback */
     private Runnable prepareDoneCallback;
+    /* The round being loaded, null if the screen isn't loading */
+    private ListenableFuture<Round> preparation;
 
     private int resGroup;
 
@@ -70,56 +85,126 @@ public class PlayScreen implements Screen {
 
     @Override
     public void prepare(Runnable doneCallback) {
-        preparing = true;
         prepareDoneCallback = doneCallback;
+        if(preparing) return;
+        preparing = true;
         resGroup = resources().startGroup();
 
-        test();
+        //Load the round in background, views are created on the rendering thread when it's ready
+        int executorId = executors().generateId();
+        ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(LOADER_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("Play Screen Loader %d").setDaemon(true).build()));
+        executors().putExecutor(executorId, executor);
+        ListenableFuture<Round> loading = loadRound(executor);
+        preparation = loading;
+        Futures.addCallback(loading, new FutureCallback<Round>() {
+            @Override
+            public void onSuccess(Round result) {
+                Gdx.app.postRunnable(() -> onRoundLoaded(loading, executorId, result));
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                Gdx.app.error("Play Screen", "Cannot read song!", t);
+                Gdx.app.postRunnable(() -> onRoundLoaded(loading, executorId, null));
+            }
+        }, MoreExecutors.directExecutor());
     }
 
-    //TODO
-    private void test() {
+    /**
+     * Loads the round in stages: the song header is loaded first, then the chart notes and the music are loaded
+     * in parallel and finally the round is created, building the chart timing and the note times.
+     * @param executor the executor running the stages.
+     * @return the round future.
+     */
+    //TODO Test song
+    private ListenableFuture<Round> loadRound(ListeningExecutorService executor) {
         FileHandle fh;
-        String testSong = "E:/Program Files/StepMania 5.1/Songs/ITG Rodeo Tournament 8/012 - Grayed Out -Antifront-";
         if(Gdx.app.getType() == Application.ApplicationType.Desktop) {
             fh = Gdx.files.absolute(Game.INPUT_PATH == null ? "E:/Program Files/StepMania 5.1/Songs/ITG Rodeo Tournament 8/013 - Come & Get It" : Game.INPUT_PATH);
         } else {
             fh = Gdx.files.external(Game.instance().tempFile);
         }
 
-        SongLoader sl = new SongLoader("Test", fh);
-
-        try {
+        //Load only the song header, charts notes are loaded from the chart cache
+        ListenableFuture<Song> song = executor.submit(() -> {
+            SongLoader sl = new SongLoader("Test", fh, true);
             sl.run();
-            Song song = sl.get();
-            Chart chart = null;
+            return sl.get();
+        });
 
-            for(Chart c : song.charts) {
+        ListenableFuture<Chart> chart = Futures.transformAsync(song, s -> {
+            Chart selected = null;
+            for(Chart c : s.charts) {
                 if(c.type == ChartType.DANCE_SINGLE) {
-                    chart = c;
+                    selected = c;
                 }
             }
-            SimParser parser = song.simFile.getFormat().newParser();
-            parser.init(song.simFile);
-            chart.beatmap = parser.getChartParser(chart.hash).parseBeatmap();
+            if(selected == null)
+                throw new SimParseException("The song doesn't contain a dance single chart");
+            songs().loadChart(selected);
+            return Futures.immediateFuture(selected);
+        }, executor);
+
+        //Opening the music decodes the audio header
+        ListenableFuture<Music> music = Futures.transformAsync(song, s -> {
             FileHandle musicFile;
             if(Gdx.app.getType() == Application.ApplicationType.Desktop) {
-                musicFile = Gdx.files.absolute(song.directory.path() + "/" + song.musicPath);
+                musicFile = Gdx.files.absolute(s.directory.path() + "/" + s.musicPath);
             } else {
-                musicFile = Gdx.files.external(song.directory.path() + "/" + song.musicPath);
+                musicFile = Gdx.files.external(s.directory.path() + "/" + s.musicPath);
+            }
+            return Futures.immediateFuture(Gdx.audio.newMusic(musicFile));
+        }, executor);
+
+        return Futures.whenAllComplete(chart, music).call(() -> {
+            try {
+                return new Round(Futures.getDone(song), Futures.getDone(chart), Futures.getDone(music));
+            } catch(Exception e) {
+                //Don't leak the music if the chart cannot be loaded
+                if(!music.isCancelled() && music.isDone()) {
+                    try {
+                        Futures.getDone(music).dispose();
+                    } catch(ExecutionException ignored) {
+                        //The music failed to load
+                    }
+                }
+                throw e;
             }
-            music = Gdx.audio.newMusic(musicFile);
+        }, executor);
+    }
 
-            round = new Round(song, chart, music);
+    /**
+     * Creates the views of the loaded round. Called on the rendering thread.
+     * @param loading the future that loaded the round.
+     * @param executorId the id of the executor that loaded the round.
+     * @param result the loaded round, or null if it cannot be loaded.
+     */
+    private void onRoundLoaded(ListenableFuture<Round> loading, int executorId, Round result) {
+        //The executor is kept until the loading completes, so the music is always disposed on failures
+        executors().removeExecutor(executorId);
+        if(preparation != loading) {
+            //The screen has been disposed while loading
+            if(result != null) result.getMusicPosition().getMusic().dispose();
+            return;
+        }
+        preparation = null;
 
-            //Init actors
-            controlsView = new ControlsView(round);
-            beatmapView = new BeatmapView(round);
-            judgmentView = new JudgmentView(round);
-        } catch (Exception e) {
-            System.err.println("Cannot read song!");
-            e.printStackTrace();
+        if(result == null) {
+            //The screen cannot be shown, report that the preparation completed without preparing it
+            preparing = false;
+            resources().endGroup(resGroup);
+            prepareDoneCallback.run();
+            return;
         }
+
+        round = result;
+        music = result.getMusicPosition().getMusic();
+
+        //Init actors
+        controlsView = new ControlsView(round);
+        beatmapView = new BeatmapView(round);
+        judgmentView = new JudgmentView(round);
     }
 
     @Override
@@ -173,24 +258,36 @@ public class PlayScreen implements Screen {
     public void update() {
         if(preparing) {
             //Check and update preparation status
-            if(!resources().isGroupLoading(resGroup)) {
+            if(round != null && !resources().isGroupLoading(resGroup)) {
                 preparing = false;
                 prepared = true;
                 prepareDoneCallback.run();
             }
-        } else {
+        } else if(round != null) {
             round.update();
         }
     }
 
     @Override
     public void dispose() {
+        if(preparation != null) {
+            //The loading keeps running, the loaded round is discarded and its music disposed when it's ready.
+            //Shutting down the executor now could skip the tasks disposing the music
+            preparation = null;
+        }
         if(music != null) {
             music.dispose();
         }
+        if(controlsView != null) {
+            controlsView.dispose();
+            controlsView = null;
+        }
 
         resources().endGroup(resGroup);
+        preparing = false;
         prepared = false;
+        round = null;
+        music = null;
     }
 
     @Override
@@ -24,7 +24,6 @@ package net.sync.game.ui.screen.play;
 
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TransformDrawable;
@@ -33,6 +32,7 @@ import net.sync.game.round.PanelState;
 import net.sync.game.round.Round;
 import net.sync.game.song.note.NotePanel;
 import net.sync.game.util.math.MathUtils;
+import net.sync.game.util.ui.PackedColors;
 
 import static net.sync.game.Game.resources;
 
@@ -83,9 +83,8 @@ public class ReceptorRenderer {
         float opacity = getReceptorOpacity(panel, beat, time);
 
         //Set opacity
-        Color color = new Color(batch.getColor());
-        color.a = opacity;
-        batch.setColor(color);
+        float color = batch.getPackedColor();
+        batch.setPackedColor(PackedColors.withAlpha(color, opacity));
 
         //Draw
         if(drawable instanceof TransformDrawable) {
@@ -94,6 +93,7 @@ public class ReceptorRenderer {
         } else {
             drawable.draw(batch, x, y, width * scaleX, height * scaleY);
         }
+        batch.setPackedColor(color);
     }
 
     private void drawOutline(Batch batch, int panel, double beat, double time) {
@@ -114,9 +114,8 @@ public class ReceptorRenderer {
         float opacity = getOutlineOpacity(panel, beat, time);
 
         //Set opacity
-        Color color = new Color(batch.getColor());
-        color.a = opacity;
-        batch.setColor(color);
+        float color = batch.getPackedColor();
+        batch.setPackedColor(PackedColors.withAlpha(color, opacity));
 
         //Draw
         if(drawable instanceof TransformDrawable) {
@@ -125,6 +124,7 @@ public class ReceptorRenderer {
         } else {
             drawable.draw(batch, x, y, width * scaleX, height * scaleY);
         }
+        batch.setPackedColor(color);
     }
 
     /**
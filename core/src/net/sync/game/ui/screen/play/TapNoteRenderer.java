@@ -23,7 +23,6 @@
 package net.sync.game.ui.screen.play;
 
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
-import com.badlogic.gdx.utils.Array;
 import net.sync.game.resource.lazy.Resource;
 import net.sync.game.round.judge.JudgeCriteria;
 import net.sync.game.round.judge.TapJudgment;
@@ -72,8 +71,12 @@ public class TapNoteRenderer extends BaseNoteRenderer {
         TapJudgment worstJudgment = null;
 
         if(criteria.isChordCohesionEnabled() && beatmap.isChord(note.getBeat())) {
-            Array<Note> chordNotes = beatmap.getNotes(note.getBeat(), n -> n instanceof JudgeableNote && n instanceof ChordNote);
-            for(Note chordNote : chordNotes) {
+            //Walk the chord notes without collecting them, this is called for each note at each frame
+            for(int chordPanel : getView().getPanels()) {
+                Note chordNote = beatmap.getNote(chordPanel, note.getBeat());
+                if(!(chordNote instanceof JudgeableNote && chordNote instanceof ChordNote)) {
+                    continue;
+                }
                 JudgeableNote judgeableNote = (JudgeableNote) chordNote;
                 TapJudgment tapJudgment = (TapJudgment) judgeableNote.getJudgment();
                 if(tapJudgment == null) {
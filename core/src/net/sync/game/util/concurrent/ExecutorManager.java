@@ -33,7 +33,8 @@ import static net.sync.game.Game.disposer;
 
 /**
  * Manages executor services by binding them to int keys and
- * disposing them when they are no longer required.
+ * disposing them when they are no longer required. Executors can
+ * be bound and removed from any thread.
  */
 public class ExecutorManager implements Disposable {
     private Map<Integer, ExecutorService> executorsMap;
@@ -49,7 +50,7 @@ public class ExecutorManager implements Disposable {
      * @param id the service id.
      * @return the service or null if there's no service associated to the given id.
      */
-    public ExecutorService getExecutor(int id) {
+    public synchronized ExecutorService getExecutor(int id) {
         return executorsMap != null ? executorsMap.get(id) : null;
     }
 
@@ -63,7 +64,7 @@ public class ExecutorManager implements Disposable {
      * @return true if there was an executor previously associated to the given id.
      * @throws NullPointerException if the given service is null.
      */
-    public boolean putExecutor(int id, ExecutorService service) {
+    public synchronized boolean putExecutor(int id, ExecutorService service) {
         Preconditions.checkNotNull(service, "Null services are not allowed!");
         if(executorsMap == null) {
             executorsMap = new HashMap<>();
@@ -84,7 +85,7 @@ public class ExecutorManager implements Disposable {
      * @return true if there was an executor with the given id and it was removed and
      * shutdown correctly, false otherwise.
      */
-    public boolean removeExecutor(int id) {
+    public synchronized boolean removeExecutor(int id) {
         ExecutorService service = executorsMap.remove(id);
         if(service != null) {
             service.shutdownNow();
@@ -100,12 +101,12 @@ public class ExecutorManager implements Disposable {
      *
      * @return an id that can be used to associate an executor service.
      */
-    public int generateId() {
+    public synchronized int generateId() {
         return idCounter++;
     }
 
     @Override
-    public void dispose() {
+    public synchronized void dispose() {
         if(executorsMap != null) {
             for(ExecutorService service : executorsMap.values()) {
                 service.shutdownNow();
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.util.math;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>An immutable, array backed snapshot of a {@link LineGraph2D}. Marker points are flattened into sorted
+ * primitive arrays and each segment between two consecutive points is stored as a precomputed line
+ * (slope and intercept), so that evaluating the function doesn't require boxing or tree lookups.</p>
+ * <p>The image of a given x is exactly the same as the one returned by {@link LineGraph2D#f(Double)}
+ * on the source graph, including the behaviour at jump discontinuities and outside the marker points.</p>
+ * <p>Lookups start from the segment used by the previous call (the cursor). When x moves forward
+ * monotonically, as it does during playback, the segment is found with a couple of array reads. Otherwise
+ * the segment is found with a binary search. The cursor is only a hint, so concurrent lookups are
+ * safe but may fall back to the binary search.</p>
+ * @author Vincenzo Fortunato
+ */
+public class CompiledLineGraph2D {
+    /* Marker points x values, sorted in ascending order */
+    private final double[] xs;
+    /* Image of each marker point x, jumps already resolved using the left defined property */
+    private final double[] images;
+    /* Slope and intercept of the line between point i and point i + 1 */
+    private final double[] slopes;
+    private final double[] intercepts;
+    /* The function is undefined before the first point or after the last point if they are jumps */
+    private final boolean firstJump;
+    private final boolean lastJump;
+
+    /* Index of the segment used by the last lookup */
+    private int cursor = 0;
+
+    /**
+     * Compiles the given graph. Later changes to the graph will not be reflected.
+     * @param graph the graph to compile, it must have at least two points.
+     * @throws IllegalArgumentException if the graph has less than two points.
+     */
+    public CompiledLineGraph2D(LineGraph2D graph) {
+        Preconditions.checkNotNull(graph, "Graph cannot be null.");
+        Preconditions.checkArgument(graph.getPointCount() > 1, "The graph needs at least two points.");
+
+        int count = graph.getPointCount();
+        xs = new double[count];
+        images = new double[count];
+        slopes = new double[count - 1];
+        intercepts = new double[count - 1];
+
+        int i = 0;
+        Graph2DPoint prevPoint = null;
+        Graph2DPoint lastPoint = null;
+        boolean firstIsJump = false;
+        for(Graph2DPoint point : graph.getPoints()) {
+            xs[i] = point.x;
+            images[i] = point.leftDefined ? point.y : point.y + point.jump;
+            if(prevPoint == null) {
+                firstIsJump = point.isJump();
+            } else {
+                //Same computation used by LineGraph2D, results must match
+                double x1 = prevPoint.x,
+                       x2 = point.x,
+                       y1 = prevPoint.y + prevPoint.jump,
+                       y2 = point.y,
+                       m = (y2 - y1) / (x2 - x1);
+                slopes[i - 1] = m;
+                intercepts[i - 1] = -m * x1 + y1;
+            }
+            prevPoint = point;
+            lastPoint = point;
+            i++;
+        }
+        firstJump = firstIsJump;
+        lastJump = lastPoint.isJump();
+    }
+
+    /**
+     * Calculates the image of the given x.
+     * @param x the x variable of the function.
+     * @return the image at the given x, or {@link Double#NaN} if the image is undefined.
+     */
+    public double f(double x) {
+        int last = xs.length - 1;
+        if(x < xs[0]) {
+            //x is before the first marker point
+            return firstJump ? Double.NaN : slopes[0] * x + intercepts[0];
+        }
+        if(x > xs[last]) {
+            //x is after the last marker point
+            return lastJump ? Double.NaN : slopes[last - 1] * x + intercepts[last - 1];
+        }
+
+        int i = floorIndex(x);
+        if(xs[i] == x) {
+            return images[i];
+        }
+        return slopes[i] * x + intercepts[i];
+    }
+
+    /**
+     * Check if the image of the given x exists.
+     * @param x the x variable of the function.
+     * @return true if the image exists, false otherwise.
+     */
+    public boolean isDefined(double x) {
+        if(x < xs[0]) {
+            return !firstJump;
+        }
+        if(x > xs[xs.length - 1]) {
+            return !lastJump;
+        }
+        return true;
+    }
+
+    /**
+     * @return the count of marker points.
+     */
+    public int getPointCount() {
+        return xs.length;
+    }
+
+    /**
+     * Gets the index of the greatest marker point x less than or equal to the given x. The given x
+     * must be inside the marker points range.
+     * @param x the x value.
+     * @return the floor marker point index.
+     */
+    private int floorIndex(double x) {
+        int last = xs.length - 1;
+        int c = cursor;
+
+        //Fast path, same segment or the following one
+        if(xs[c] <= x) {
+            if(c == last || x < xs[c + 1]) {
+                return c;
+            }
+            if(c + 1 == last || x < xs[c + 2]) {
+                cursor = c + 1;
+                return c + 1;
+            }
+        }
+
+        //Binary search the greatest x less than or equal to the given one
+        int low = 0;
+        int high = last;
+        while(low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if(xs[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        cursor = low;
+        return low;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.util.ui;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.utils.NumberUtils;
+
+/**
+ * Utilities for colors packed into a float, as used by {@link Batch#setPackedColor(float)}.
+ * Packed colors don't require {@link com.badlogic.gdx.graphics.Color} instances, so they can
+ * be changed at each draw call without allocating.
+ */
+public class PackedColors {
+    /**
+     * Replaces the alpha of a packed color.
+     * @param packedColor the packed color (ABGR8888 float bits).
+     * @param alpha the alpha, from 0.0f to 1.0f (inclusive). Values out of range are clamped.
+     * @return the packed color with the given alpha.
+     */
+    public static float withAlpha(float packedColor, float alpha) {
+        int a = alpha <= 0.0f ? 0 : alpha >= 1.0f ? 255 : (int) (alpha * 255);
+        int bits = NumberUtils.floatToIntColor(packedColor);
+        return NumberUtils.intToFloatColor((bits & 0x00FFFFFF) | (a << 24));
+    }
+}
@@ -24,6 +24,37 @@ package net.sync.game.util.ui;
 
 import com.badlogic.gdx.files.FileHandle;
 
+/**
+ * Locates a texture inside an image file. The file can contain other textures, as the pages of an atlas do.
+ */
 public interface TexturePath {
+    /**
+     * Gets the image file containing the texture.
+     * @return the image file.
+     */
     FileHandle getFile();
+
+    /**
+     * Gets the x of the texture inside the image file.
+     * @return the x in pixels.
+     */
+    int getX();
+
+    /**
+     * Gets the y of the texture inside the image file.
+     * @return the y in pixels, from the top of the image.
+     */
+    int getY();
+
+    /**
+     * Gets the width of the texture inside the image file.
+     * @return the width in pixels, 0 if the texture covers the whole image.
+     */
+    int getWidth();
+
+    /**
+     * Gets the height of the texture inside the image file.
+     * @return the height in pixels, 0 if the texture covers the whole image.
+     */
+    int getHeight();
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.song.note.HoldNote;
+import net.sync.game.song.note.MineNote;
+import net.sync.game.song.note.NotePanel;
+import net.sync.game.song.note.RollNote;
+import net.sync.game.song.note.TapNote;
+import net.sync.game.song.sim.SimFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChartCacheTest {
+    @TempDir
+    Path directory;
+    private File simFile;
+    private ChartCache cache;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        simFile = directory.resolve("song.sm").toFile();
+        writeSimFile("#TITLE:Song;");
+        cache = new ChartCache(new FileHandle(directory.resolve("charts").toFile()));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Chart chart = createChart();
+        assertTrue(cache.write(chart));
+
+        Chart read = newChart();
+        assertTrue(cache.read(read));
+
+        assertEquals(chart.timingData.offset, read.timingData.offset);
+        assertEquals(chart.timingData.bpms, read.timingData.bpms);
+        assertEquals(chart.timingData.stops, read.timingData.stops);
+        assertEquals(chart.timingData.delays, read.timingData.delays);
+        assertEquals(chart.timingData.warps, read.timingData.warps);
+
+        assertArrayEquals(chart.beatmap.getPanels(), read.beatmap.getPanels());
+        for(int panel : chart.beatmap.getPanels()) {
+            assertEquals(chart.beatmap.countNotes(panel), read.beatmap.countNotes(panel));
+            for(int i = 0; i < chart.beatmap.countNotes(panel); i++) {
+                assertEquals(chart.beatmap.getBeatAt(panel, i), read.beatmap.getBeatAt(panel, i));
+                assertEquals(chart.beatmap.getNoteTypeAt(panel, i), read.beatmap.getNoteTypeAt(panel, i));
+                assertEquals(chart.beatmap.getLengthAt(panel, i), read.beatmap.getLengthAt(panel, i));
+            }
+        }
+    }
+
+    @Test
+    public void testMissingTimingMaps() throws IOException {
+        Chart chart = createChart();
+        chart.timingData.stops = null;
+        chart.timingData.warps = null;
+        assertTrue(cache.write(chart));
+
+        Chart read = newChart();
+        assertTrue(cache.read(read));
+        assertEquals(chart.timingData.bpms, read.timingData.bpms);
+        assertNull(read.timingData.stops);
+        assertNull(read.timingData.warps);
+    }
+
+    @Test
+    public void testMissingEntry() throws IOException {
+        assertFalse(cache.read(newChart()));
+    }
+
+    @Test
+    public void testSimFileLengthChanged() throws IOException {
+        assertTrue(cache.write(createChart()));
+        long lastModified = simFile.lastModified();
+        writeSimFile("#TITLE:Another Song;");
+        assertTrue(simFile.setLastModified(lastModified));
+
+        assertFalse(cache.read(newChart()));
+    }
+
+    @Test
+    public void testSimFileLastModifiedChanged() throws IOException {
+        assertTrue(cache.write(createChart()));
+        assertTrue(simFile.setLastModified(simFile.lastModified() - 60000L));
+
+        assertFalse(cache.read(newChart()));
+    }
+
+    @Test
+    public void testTruncatedEntry() throws IOException {
+        assertTrue(cache.write(createChart()));
+        File[] entries = directory.resolve("charts").toFile().listFiles();
+        assertEquals(1, entries.length);
+        File entry = entries[0];
+        try(RandomAccessFile file = new RandomAccessFile(entry, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        assertFalse(cache.read(newChart()));
+    }
+
+    @Test
+    public void testSameChartInDifferentSongs() throws IOException {
+        Chart chart = createChart();
+        assertTrue(cache.write(chart));
+
+        //Another song with the same chart hash but its own timing data
+        File otherSimFile = directory.resolve("other").resolve("song.sm").toFile();
+        new FileHandle(otherSimFile).writeString("#TITLE:Song;", false, "UTF-8");
+        assertTrue(otherSimFile.setLastModified(simFile.lastModified()));
+        assertFalse(cache.read(newChart(otherSimFile)));
+
+        Chart other = createChart(otherSimFile);
+        other.timingData.offset = 0.5;
+        assertTrue(cache.write(other));
+
+        Chart read = newChart();
+        assertTrue(cache.read(read));
+        assertEquals(chart.timingData.offset, read.timingData.offset);
+        Chart otherRead = newChart(otherSimFile);
+        assertTrue(cache.read(otherRead));
+        assertEquals(other.timingData.offset, otherRead.timingData.offset);
+
+        cache.remove(other);
+        assertFalse(cache.read(newChart(otherSimFile)));
+        assertTrue(cache.read(newChart()));
+    }
+
+    private void writeSimFile(String content) {
+        new FileHandle(simFile).writeString(content, false, "UTF-8");
+    }
+
+    private Chart newChart() {
+        return newChart(simFile);
+    }
+
+    private Chart newChart(File simFile) {
+        Song song = new Song();
+        song.simFile = new SimFile(new FileHandle(simFile));
+        Chart chart = new Chart();
+        chart.hash = "hash";
+        chart.song = song;
+        return chart;
+    }
+
+    private Chart createChart() {
+        return createChart(simFile);
+    }
+
+    private Chart createChart(File simFile) {
+        Chart chart = newChart(simFile);
+        TimingData timingData = chart.timingData;
+        timingData.offset = -0.125;
+        timingData.putBpm(0.0, 150.0);
+        timingData.putBpm(32.0, 75.5);
+        timingData.putStop(8.0, 0.5);
+        timingData.putDelay(16.0, 0.25);
+        timingData.putWarp(24.0, 2.0);
+
+        chart.beatmap = new Beatmap.Builder()
+                .putNote(NotePanel.LEFT, new TapNote(0.0))
+                .putNote(NotePanel.LEFT, new HoldNote(1.0, 2.5))
+                .putNote(NotePanel.LEFT, new MineNote(4.0))
+                .putNote(NotePanel.DOWN, new RollNote(0.5, 1.75))
+                .putNote(NotePanel.DOWN, new TapNote(3.0))
+                .putNote(NotePanel.RIGHT, new MineNote(2.0))
+                .build();
+        return chart;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song;
+
+import net.sync.game.song.SongIndexer.Change;
+import net.sync.game.song.SongIndexer.ChangeType;
+import net.sync.game.song.sim.SimFile;
+import org.jooq.DSLContext;
+import org.jooq.Record2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.sync.game.database.schema.tables.Charts.CHARTS;
+import static net.sync.game.database.schema.tables.Songs.SONGS;
+import static net.sync.game.song.TestIndex.ROOT;
+import static net.sync.game.song.TestIndex.change;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SongIndexerTest {
+    private TestIndex index;
+    private DSLContext database;
+
+    @BeforeEach
+    public void setUp() throws IOException, SQLException {
+        index = new TestIndex();
+        database = index.database();
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        index.close();
+    }
+
+    @Test
+    public void testAdd() {
+        index.write(change(ChangeType.ADD, createSong("a", "Song A", "1", "2")),
+                change(ChangeType.ADD, createSong("b", "Song B", "3")));
+
+        assertEquals(Arrays.asList("a", "b"), database.select(SONGS.DIRECTORY).from(SONGS).orderBy(SONGS.ID).fetch(SONGS.DIRECTORY));
+        assertEquals(Arrays.asList("1", "2"), getChartHashes("a"));
+        assertEquals(Collections.singletonList("3"), getChartHashes("b"));
+    }
+
+    @Test
+    public void testUpdate() {
+        index.write(change(ChangeType.ADD, createSong("a", "Song A", "1", "2", "2")));
+        List<String> ids = getChartIds("a", "2");
+
+        //Unchanged charts are kept, removed charts are deleted and new charts are inserted
+        index.write(change(ChangeType.UPDATE, createSong("a", "Renamed", "2", "3")));
+        assertEquals("Renamed", database.select(SONGS.TITLE).from(SONGS).fetchOne(SONGS.TITLE));
+        assertEquals(Arrays.asList("2", "3"), getChartHashes("a"));
+        List<String> keptIds = getChartIds("a", "2");
+        assertEquals(1, keptIds.size());
+        assertTrue(ids.containsAll(keptIds));
+
+        //Songs that are not in the index are added
+        index.write(change(ChangeType.UPDATE, createSong("b", "Song B", "4")));
+        assertEquals(Collections.singletonList("4"), getChartHashes("b"));
+    }
+
+    @Test
+    public void testUpdateSongBpms() {
+        Song song = createSong("a", "Song A", "1");
+        song.charts.get(0).timingData.putBpm(0.0, 120.0);
+        index.write(change(ChangeType.ADD, song));
+        List<String> ids = getChartIds("a", "1");
+
+        //The song BPMs changed, the chart notes and hash didn't
+        song = createSong("a", "Song A", "1");
+        song.charts.get(0).timingData.putBpm(0.0, 150.0);
+        song.charts.get(0).timingData.putBpm(64.0, 300.0);
+        index.write(change(ChangeType.UPDATE, song));
+
+        assertEquals(ids, getChartIds("a", "1"));
+        Record2<Float, Float> bpms = database.select(CHARTS.BPM_MIN, CHARTS.BPM_MAX).from(CHARTS).fetchOne();
+        assertEquals(Float.valueOf(150.0f), bpms.value1());
+        assertEquals(Float.valueOf(300.0f), bpms.value2());
+    }
+
+    @Test
+    public void testTouch() {
+        index.write(change(ChangeType.ADD, createSong("a", "Song A", "1")));
+        Change touch = new Change(ChangeType.TOUCH, "Pack", ROOT.child("Pack").child("a"),
+                new SimFile(ROOT.child("Pack").child("a").child("song.ssc")), "hash", 10L, 20L, null);
+        index.write(touch);
+
+        assertEquals("song.ssc", database.select(SONGS.SIM_PATH).from(SONGS).fetchOne(SONGS.SIM_PATH));
+        assertEquals(Long.valueOf(10L), database.select(SONGS.FILE_SIZE).from(SONGS).fetchOne(SONGS.FILE_SIZE));
+        assertEquals(Long.valueOf(20L), database.select(SONGS.LAST_MODIFIED).from(SONGS).fetchOne(SONGS.LAST_MODIFIED));
+        assertEquals(Collections.singletonList("1"), getChartHashes("a"));
+    }
+
+    @Test
+    public void testRemove() {
+        index.write(change(ChangeType.ADD, createSong("a", "Song A", "1")),
+                change(ChangeType.ADD, createSong("b", "Song B", "2")));
+        index.write(change(ChangeType.REMOVE, createSong("a", null)));
+
+        assertEquals(Collections.singletonList("b"), database.select(SONGS.DIRECTORY).from(SONGS).fetch(SONGS.DIRECTORY));
+        assertEquals(Collections.singletonList("2"), database.select(CHARTS.HASH).from(CHARTS).fetch(CHARTS.HASH));
+    }
+
+    @Test
+    public void testSongIdsNotReused() {
+        index.write(change(ChangeType.ADD, createSong("a", "Song A", "1")),
+                change(ChangeType.ADD, createSong("b", "Song B", "2")));
+        int removedId = database.select(SONGS.ID).from(SONGS).where(SONGS.DIRECTORY.eq("b")).fetchOne(SONGS.ID);
+        index.write(change(ChangeType.REMOVE, createSong("b", null)));
+
+        index.write(change(ChangeType.ADD, createSong("c", "Song C", "3")));
+        int id = database.select(SONGS.ID).from(SONGS).where(SONGS.DIRECTORY.eq("c")).fetchOne(SONGS.ID);
+        assertNotEquals(removedId, id);
+        assertTrue(id > removedId);
+    }
+
+    private List<String> getChartHashes(String directory) {
+        return database.select(CHARTS.HASH)
+                .from(CHARTS).join(SONGS).on(SONGS.ID.eq(CHARTS.SONG_ID))
+                .where(SONGS.DIRECTORY.eq(directory))
+                .orderBy(CHARTS.HASH)
+                .fetch(CHARTS.HASH);
+    }
+
+    private List<String> getChartIds(String directory, String hash) {
+        return database.select(CHARTS.ID)
+                .from(CHARTS).join(SONGS).on(SONGS.ID.eq(CHARTS.SONG_ID))
+                .where(SONGS.DIRECTORY.eq(directory).and(CHARTS.HASH.eq(hash)))
+                .fetch(CHARTS.ID);
+    }
+
+    private static Song createSong(String directory, String title, String... chartHashes) {
+        Song song = TestIndex.createSong("Pack", directory, title);
+        for(String hash : chartHashes) {
+            Chart chart = new Chart();
+            chart.hash = hash;
+            chart.type = ChartType.DANCE_SINGLE;
+            song.charts.add(chart);
+        }
+        return song;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song;
+
+import net.sync.game.song.SongIndexer.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.sync.game.database.schema.tables.Songs.SONGS;
+import static net.sync.game.song.TestIndex.ROOT;
+import static net.sync.game.song.TestIndex.change;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SongSearchTest {
+    private TestIndex index;
+    private SongSearch search;
+
+    @BeforeEach
+    public void setUp() throws IOException, SQLException {
+        index = new TestIndex();
+        search = new SongSearch(index.database(), ROOT);
+        index.write(change(ChangeType.ADD, createSong("Trance", "cafe", "Café del Mar", "Energy 52",
+                        createChart("1", ChartType.DANCE_SINGLE, DifficultyClass.HARD, 9, 140, 140))),
+                change(ChangeType.ADD, createSong("Dance", "butterfly", "Butterfly", "Smile.dk",
+                        createChart("2", ChartType.DANCE_SINGLE, DifficultyClass.EASY, 3, 135, 135),
+                        createChart("3", ChartType.DANCE_SINGLE, DifficultyClass.CHALLENGE, 12, 135, 270))),
+                change(ChangeType.ADD, createSong("Test", "pure", "100% Pure", "Under_score",
+                        createChart("4", ChartType.PUMP_SINGLE, DifficultyClass.MEDIUM, 6, 180, 180))));
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        index.close();
+    }
+
+    @Test
+    public void testToMatchExpression() {
+        assertNull(SongSearch.toMatchExpression(null));
+        assertNull(SongSearch.toMatchExpression(" \"*- "));
+        assertEquals("\"cafe\"*", SongSearch.toMatchExpression("cafe"));
+        //Operators and quotes are matched as words
+        assertEquals("\"Rock\"* \"n\"* \"roll\"* \"AND\"* \"NOT\"* \"x\"*",
+                SongSearch.toMatchExpression("Rock'n \"roll\" AND NOT -x*"));
+        assertEquals("\"Café\"* \"52\"*", SongSearch.toMatchExpression("Café:52"));
+    }
+
+    @Test
+    public void testKeywords() {
+        assertEquals(Collections.singletonList("Café del Mar"), findTitles(keywords("cafe")));
+        assertEquals(Collections.singletonList("Butterfly"), findTitles(keywords("butter smile")));
+        assertEquals(Collections.singletonList("Butterfly"), findTitles(keywords("SMILE.DK")));
+        assertEquals(Collections.emptyList(), findTitles(keywords("butterfly energy")));
+        assertEquals(Collections.emptyList(), findTitles(keywords("\"butterfly\" OR cafe")));
+    }
+
+    @Test
+    public void testSubstrings() {
+        SongSearchParams params = new SongSearchParams();
+        params.title = "100%";
+        assertEquals(Collections.singletonList("100% Pure"), findTitles(params));
+
+        //Wildcards are matched literally
+        params = new SongSearchParams();
+        params.title = "%";
+        assertEquals(Collections.singletonList("100% Pure"), findTitles(params));
+        params = new SongSearchParams();
+        params.artist = "_";
+        assertEquals(Collections.singletonList("100% Pure"), findTitles(params));
+
+        params = new SongSearchParams();
+        params.pack = "ance";
+        assertEquals(Arrays.asList("Butterfly", "Café del Mar"), findTitles(params));
+    }
+
+    @Test
+    public void testChartFilters() {
+        SongSearchParams params = new SongSearchParams();
+        params.chartType = ChartType.DANCE_SINGLE;
+        params.minMeter = 10;
+        assertEquals(Collections.singletonList("Butterfly"), findTitles(params));
+
+        //A single chart must match all the chart parameters
+        params = new SongSearchParams();
+        params.difficultyClass = DifficultyClass.EASY;
+        params.minMeter = 10;
+        assertEquals(Collections.emptyList(), findTitles(params));
+
+        params = new SongSearchParams();
+        params.minBpm = 200.0f;
+        assertEquals(Collections.singletonList("Butterfly"), findTitles(params));
+        params.maxBpm = 150.0f;
+        assertEquals(Collections.singletonList("Butterfly"), findTitles(params));
+        params.minBpm = 160.0f;
+        params.maxBpm = 190.0f;
+        assertEquals(Arrays.asList("100% Pure", "Butterfly"), findTitles(params));
+    }
+
+    @Test
+    public void testSortAndLimit() {
+        SongSearchParams params = new SongSearchParams();
+        params.sort = SongSearchParams.Sort.METER;
+        assertEquals(Arrays.asList("Butterfly", "100% Pure", "Café del Mar"), findTitles(params));
+
+        params.descending = true;
+        params.limit = 2;
+        params.offset = 1;
+        assertEquals(Arrays.asList("100% Pure", "Butterfly"), findTitles(params));
+
+        //Only the matching charts are aggregated
+        params = new SongSearchParams();
+        params.sort = SongSearchParams.Sort.METER;
+        params.difficultyClass = DifficultyClass.CHALLENGE;
+        params.chartType = ChartType.DANCE_SINGLE;
+        assertEquals(Collections.singletonList("Butterfly"), findTitles(params));
+    }
+
+    @Test
+    public void testCharts() {
+        List<Song> songs = search.find(keywords("butterfly"));
+        assertEquals(1, songs.size());
+        Song song = songs.get(0);
+        assertEquals(ROOT.child("Dance").child("butterfly").file(), song.directory.file());
+        assertEquals(2, song.charts.size());
+        assertEquals(DifficultyClass.EASY, song.charts.get(0).difficultyClass);
+        assertEquals(DifficultyClass.CHALLENGE, song.charts.get(1).difficultyClass);
+        assertEquals(song, song.charts.get(1).song);
+    }
+
+    @Test
+    public void testCompile() {
+        SongSearchParams params = keywords("cafe");
+        params.chartType = ChartType.DANCE_SINGLE;
+        List<String> titles = search.compile(index.database().select(SONGS.TITLE), params).fetch(SONGS.TITLE);
+        assertEquals(Collections.singletonList("Café del Mar"), titles);
+    }
+
+    @Test
+    public void testSearchIndexUpdated() {
+        Song song = createSong("Dance", "butterfly", "Papillon", "Smile.dk",
+                createChart("2", ChartType.DANCE_SINGLE, DifficultyClass.EASY, 3, 135, 135));
+        index.write(change(ChangeType.UPDATE, song));
+
+        assertEquals(Collections.emptyList(), findTitles(keywords("butterfly")));
+        assertEquals(Collections.singletonList("Papillon"), findTitles(keywords("papillon smile")));
+        assertEquals(3, index.database().fetchCount(SongSearch.SONGS_FTS));
+    }
+
+    @Test
+    public void testSearchIndexRemoved() {
+        Song song = createSong("Dance", "butterfly", null, null);
+        index.write(change(ChangeType.REMOVE, song));
+
+        assertEquals(Collections.emptyList(), findTitles(keywords("butterfly")));
+        assertEquals(Collections.singletonList("Café del Mar"), findTitles(keywords("cafe")));
+        assertEquals(2, index.database().fetchCount(SongSearch.SONGS_FTS));
+    }
+
+    private List<String> findTitles(SongSearchParams params) {
+        List<String> titles = new ArrayList<>();
+        for(Song song : search.find(params)) {
+            titles.add(song.title);
+        }
+        return titles;
+    }
+
+    private static SongSearchParams keywords(String keywords) {
+        SongSearchParams params = new SongSearchParams();
+        params.keywords = keywords;
+        return params;
+    }
+
+    private static Song createSong(String pack, String directory, String title, String artist, Chart... charts) {
+        Song song = TestIndex.createSong(pack, directory, title, charts);
+        song.artist = artist;
+        return song;
+    }
+
+    private static Chart createChart(String hash, ChartType type, DifficultyClass difficultyClass, int meter,
+                                     int minBpm, int maxBpm) {
+        Chart chart = new Chart();
+        chart.hash = hash;
+        chart.type = type;
+        chart.difficultyClass = difficultyClass;
+        chart.difficultyMeter = meter;
+        chart.displayBPM = minBpm == maxBpm
+                ? new DisplayBPM.StaticDisplayBPM(minBpm)
+                : new DisplayBPM.RangeDisplayBPM(minBpm, maxBpm);
+        return chart;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.song.SongIndexer.Change;
+import net.sync.game.song.SongIndexer.ChangeType;
+import net.sync.game.song.sim.SimFile;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An in-memory song index created with the template database script, used by tests. The index is bound to
+ * a single connection, that is closed with the index. Songs and changes written to the index are created
+ * inside a fake library directory.
+ */
+class TestIndex implements AutoCloseable {
+    /** The template script, relative to the core project directory **/
+    private static final String TEMPLATE = "../android/assets/template.sql";
+    /** The library directory of the test songs, never created **/
+    static final FileHandle ROOT = new FileHandle(new File("library"));
+
+    private final Connection connection;
+    private final DSLContext database;
+
+    TestIndex() throws IOException, SQLException {
+        //The indexer logs through the libGDX application, that doesn't exist in tests
+        if(Gdx.app == null) {
+            Gdx.app = (Application) Proxy.newProxyInstance(TestIndex.class.getClassLoader(),
+                    new Class<?>[] {Application.class}, (proxy, method, args) -> null);
+        }
+
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        database = DSL.using(connection, SQLDialect.SQLITE);
+        //Charts are deleted with their songs, as on the connections of the database manager
+        database.execute("PRAGMA foreign_keys = ON");
+        String script = new String(Files.readAllBytes(Paths.get(TEMPLATE)), StandardCharsets.UTF_8);
+        for(String statement : script.replaceAll("--.*", "").split(";")) {
+            if(!statement.trim().isEmpty()) {
+                database.execute(statement);
+            }
+        }
+    }
+
+    DSLContext database() {
+        return database;
+    }
+
+    /**
+     * Writes the given changes inside a single transaction, as the library indexer does.
+     * @param changes the changes to write.
+     */
+    void write(Change... changes) {
+        database.transaction(configuration -> {
+            try(SongIndexer.Writer writer = new SongIndexer.Writer(database)) {
+                writer.write(Arrays.asList(changes));
+            }
+        });
+    }
+
+    /**
+     * Creates the change of a song. The song hash is made from its title, removed songs are not attached.
+     * @param type the change type.
+     * @param song the changed song.
+     * @return the change.
+     */
+    static Change change(ChangeType type, Song song) {
+        return new Change(type, song.pack, song.directory, song.simFile, "hash:" + song.title,
+                1L, 1L, type == ChangeType.REMOVE ? null : song);
+    }
+
+    /**
+     * Creates a song inside the test library.
+     * @param pack the pack name.
+     * @param directory the song directory name.
+     * @param title the song title.
+     * @param charts the song charts.
+     * @return the song.
+     */
+    static Song createSong(String pack, String directory, String title, Chart... charts) {
+        Song song = new Song();
+        song.pack = pack;
+        song.directory = ROOT.child(pack).child(directory);
+        song.simFile = new SimFile(song.directory.child("song.sm"));
+        song.title = title;
+        song.musicPath = "song.ogg";
+        song.charts = new ArrayList<>(Arrays.asList(charts));
+        return song;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.song.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TagTokenizerTest {
+
+    @Test
+    public void testTokenizer() {
+        String content = "// header comment\n" +
+                "#TITLE: Some Title ;\n" +
+                "#ARTIST:Artist // inline comment\n;\n" +
+                "//#COMMENTED:tag;\n" +
+                "# Offset :-0.012;\n" +
+                "#NOTES:\n  dance-single:\n  :\n  Hard:\n  9:\n  0,0:\n0000\n1000 // measure 1\n;";
+        TagTokenizer tokenizer = new TagTokenizer(content);
+
+        assertTrue(tokenizer.next());
+        assertEquals("TITLE", tokenizer.name());
+        assertEquals("Some Title", tokenizer.value());
+        assertEquals("#TITLE: Some Title ;", tokenizer.tag());
+
+        assertTrue(tokenizer.next());
+        assertEquals("ARTIST", tokenizer.name());
+        assertEquals("Artist", tokenizer.value());
+
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.nameEquals("offset"));
+        assertEquals("-0.012", tokenizer.value());
+
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.nameEquals("NOTES"));
+        assertEquals("dance-single:\n  :\n  Hard:\n  9:\n  0,0:\n0000\n1000", tokenizer.value());
+        assertArrayEquals(new String[] {"dance-single", "", "Hard", "9", "0,0", "0000\n1000"},
+                TagTokenizer.split(tokenizer.value(), ':'));
+
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void testSplit() {
+        assertArrayEquals(new String[] {"a", "b"}, TagTokenizer.split("a : b", ':'));
+        assertArrayEquals(new String[] {"a"}, TagTokenizer.split("a::", ':'));
+        assertArrayEquals(new String[] {""}, TagTokenizer.split("", ':'));
+        assertArrayEquals(new String[0], TagTokenizer.split(" : ", ':'));
+    }
+}
@@ -25,6 +25,8 @@ package net.sync.game.util.math;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FunctionTest {
 
@@ -46,4 +48,39 @@ public class FunctionTest {
         assertEquals(function.f(3.0001D), true);
         assertEquals(function.f(3.56D), false);
     }
+
+    @Test
+    public void testCompiledLineGraph() {
+        //Line graph with a left defined jump, a right defined jump and a constant segment
+        LineGraph2D graph = new LineGraph2D();
+        graph.putPoint(-1.0D, 0.0D);
+        graph.putPoint(2.0D, 3.0D);
+        graph.putJump(2.0D, 5.0D, true);
+        graph.putPoint(4.0D, 10.0D);
+        graph.putPoint(5.0D, 10.0D);
+        graph.putPoint(6.0D, 11.0D);
+        graph.putJump(6.0D, 2.0D, false);
+        graph.putPoint(8.0D, 14.0D);
+
+        CompiledLineGraph2D compiled = new CompiledLineGraph2D(graph);
+
+        //Forward lookups
+        for(double x = -3.0D; x <= 10.0D; x += 0.125D) {
+            assertEquals(graph.f(x), compiled.f(x), 0.0D);
+        }
+        //Backward lookups
+        for(double x = 10.0D; x >= -3.0D; x -= 0.25D) {
+            assertEquals(graph.f(x), compiled.f(x), 0.0D);
+        }
+        //Jump points
+        assertEquals(3.0D, compiled.f(2.0D), 0.0D);
+        assertEquals(13.0D, compiled.f(6.0D), 0.0D);
+
+        //Undefined after a trailing jump
+        graph.putJump(8.0D, 1.0D, true);
+        compiled = new CompiledLineGraph2D(graph);
+        assertTrue(Double.isNaN(compiled.f(9.0D)));
+        assertFalse(compiled.isDefined(9.0D));
+        assertEquals(graph.f(8.0D), compiled.f(8.0D), 0.0D);
+    }
 }
@@ -25,8 +25,11 @@ package net.sync.game.desktop;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
 import net.sync.game.Backend;
 import net.sync.game.Game;
+import net.sync.game.resource.AtlasPacker;
+import net.sync.game.song.LibraryWatcher;
 import net.sync.game.util.ui.DPI;
 import org.sqlite.SQLiteDataSource;
 
@@ -70,4 +73,14 @@ public class DesktopLauncher implements Backend {
 		}
 		return dataSource;
 	}
+
+	@Override
+	public LibraryWatcher createLibraryWatcher(FileHandle root, LibraryWatcher.Listener listener) {
+		return new WatchServiceLibraryWatcher(root, listener);
+	}
+
+	@Override
+	public AtlasPacker createAtlasPacker() {
+		return new TexturePackerAtlasPacker();
+	}
 }
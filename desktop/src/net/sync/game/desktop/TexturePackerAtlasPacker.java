@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.sync.game.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import net.sync.game.resource.AtlasPacker;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * An atlas packer backed by the gdx-tools {@link TexturePacker}, which packs pages more densely than
+ * the pixmap packer available on other platforms.
+ */
+public class TexturePackerAtlasPacker implements AtlasPacker {
+
+    @Override
+    public void pack(Map<String, FileHandle> textures, FileHandle outputDir, String atlasName, int pageSize) throws IOException {
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = pageSize;
+        settings.maxHeight = pageSize;
+        settings.paddingX = 0;
+        settings.paddingY = 0;
+        settings.rotation = false;
+        settings.stripWhitespaceX = false;
+        settings.stripWhitespaceY = false;
+        settings.useIndexes = false;
+        settings.alias = false;
+        settings.silent = true;
+
+        TexturePacker packer = new TexturePacker(settings);
+        int packed = 0;
+        for(Map.Entry<String, FileHandle> texture : textures.entrySet()) {
+            BufferedImage image;
+            try(InputStream input = texture.getValue().read()) {
+                image = ImageIO.read(input);
+            }
+            if(image == null) {
+                throw new IOException("Unsupported image format " + texture.getValue().path());
+            }
+            if(image.getWidth() <= pageSize && image.getHeight() <= pageSize) {
+                packer.addImage(image, texture.getKey());
+                packed++;
+            }
+        }
+
+        if(packed == 0) {
+            //Nothing fits into a page, write an empty atlas
+            outputDir.child(atlasName + ".atlas").writeString("", false, "UTF-8");
+            return;
+        }
+
+        try {
+            packer.pack(outputDir.file(), atlasName);
+        } catch(RuntimeException e) {
+            throw new IOException("Cannot pack the atlas " + atlasName, e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 Vincenzo Fortunato.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package net.sync.game.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.song.LibraryWatcher;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * A library watcher backed by a NIO {@link WatchService}. Watch services are not recursive, so the library
+ * directory, its pack directories and their song directories are registered one by one.
+ */
+public class WatchServiceLibraryWatcher extends LibraryWatcher {
+    /** Song directories are registered at this depth, below the library directory **/
+    private static final int SONG_DEPTH = 2;
+
+    private final Path rootPath;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a watch service library watcher with the default debounce time.
+     * @param root the library directory.
+     * @param listener the listener notified with the changed directories.
+     */
+    public WatchServiceLibraryWatcher(FileHandle root, Listener listener) {
+        super(root, listener, DEFAULT_DEBOUNCE_MILLIS);
+        this.rootPath = root.file().toPath().toAbsolutePath();
+    }
+
+    @Override
+    public void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            register(rootPath);
+        } catch(IOException e) {
+            Gdx.app.error("Library Watcher", "Cannot watch library " + root, e);
+            return;
+        }
+        thread = new Thread(this::run, "Library Watch Service");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for file system events and invalidates the changed files until the watch service is closed.
+     */
+    private void run() {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path directory = keys.get(key);
+                for(WatchEvent<?> event : key.pollEvents()) {
+                    if(event.kind() == OVERFLOW || directory == null) {
+                        //Events have been lost
+                        invalidate(root);
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if(event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                        register(path);
+                    }
+                    invalidate(new FileHandle(path.toFile()));
+                }
+                if(!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        } catch(InterruptedException | ClosedWatchServiceException e) {
+            //Watcher disposed
+        }
+    }
+
+    /**
+     * Registers the given directory and its subdirectories, up to song directories.
+     * @param directory a directory of the library.
+     */
+    private void register(Path directory) {
+        int depth = directory.equals(rootPath) ? 0 : rootPath.relativize(directory).getNameCount();
+        if(depth > SONG_DEPTH) return;
+        try {
+            keys.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+            if(depth < SONG_DEPTH) {
+                try(DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                    for(Path child : children) {
+                        register(child);
+                    }
+                }
+            }
+        } catch(IOException e) {
+            Gdx.app.error("Library Watcher", "Cannot watch directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if(thread != null) {
+            thread.interrupt();
+        }
+        if(watchService != null) {
+            try {
+                watchService.close();
+            } catch(IOException e) {
+                Gdx.app.error("Library Watcher", "Cannot close watch service", e);
+            }
+        }
+    }
+}
@@ -25,6 +25,11 @@ package net.sync.game;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.backends.iosrobovm.IOSApplication;
 import com.badlogic.gdx.backends.iosrobovm.IOSApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import net.sync.game.resource.AtlasPacker;
+import net.sync.game.resource.PixmapAtlasPacker;
+import net.sync.game.song.LibraryWatcher;
+import net.sync.game.song.PollingLibraryWatcher;
 import net.sync.game.util.ui.DPI;
 import org.robovm.apple.foundation.NSAutoreleasePool;
 import org.robovm.apple.uikit.UIApplication;
@@ -63,4 +68,14 @@ public class IOSLauncher extends IOSApplication.Delegate implements Backend {
     public DataSource getDatabaseDataSource() {
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public LibraryWatcher createLibraryWatcher(FileHandle root, LibraryWatcher.Listener listener) {
+        return new PollingLibraryWatcher(root, listener);
+    }
+
+    @Override
+    public AtlasPacker createAtlasPacker() {
+        return new PixmapAtlasPacker();
+    }
+}